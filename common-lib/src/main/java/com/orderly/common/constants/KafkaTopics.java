@@ -16,6 +16,10 @@ public final class KafkaTopics {
     public static final String ORDER_FAILED = "order.failed";
     public static final String ORDER_SHIPPED = "order.shipped";
     public static final String ORDER_DELIVERED = "order.delivered";
+    public static final String ORDER_CANCELLED = "order.cancelled";
+
+    // Order events inventory could not process in their batch; retried with backoff, then dead-lettered
+    public static final String ORDER_PLACED_RETRY = "order.placed.inventory-retry";
 
     // Inventory events
     public static final String INVENTORY_RESERVED = "inventory.reserved";
@@ -0,0 +1,110 @@
+package com.orderly.common.events;
+
+import java.time.Instant;
+
+/**
+ * Event published when a product's available stock crosses its low-stock threshold.
+ * A RECOVERED event follows once stock is back above the threshold plus its margin.
+ * Consumed by: NotificationService (to alert merchandising), purchasing tools
+ */
+public class InventoryLowStockEvent {
+
+    private String eventId;
+    private String productId;
+    private String sku;
+    private String productName;
+    private String category;
+    private int availableQuantity;
+    private int threshold;
+    private StockState state;
+    private Instant detectedAt;
+    private Instant timestamp;
+
+    public InventoryLowStockEvent() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public int getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    public void setAvailableQuantity(int availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public StockState getState() {
+        return state;
+    }
+
+    public void setState(StockState state) {
+        this.state = state;
+    }
+
+    public Instant getDetectedAt() {
+        return detectedAt;
+    }
+
+    public void setDetectedAt(Instant detectedAt) {
+        this.detectedAt = detectedAt;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public enum StockState {
+        LOW,
+        RECOVERED
+    }
+}
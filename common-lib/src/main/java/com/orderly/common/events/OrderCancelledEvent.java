@@ -0,0 +1,69 @@
+package com.orderly.common.events;
+
+import java.time.Instant;
+
+/**
+ * Event published when a confirmed order is dropped from fulfillment because
+ * it has no stock left to ship (its reservations were released or expired).
+ * Consumed by: OrderService (to update status)
+ */
+public class OrderCancelledEvent {
+
+    private String eventId;
+    private String orderId;
+    private String userId;
+    private String waveId;
+    private String reason;
+    private Instant timestamp;
+
+    public OrderCancelledEvent() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getWaveId() {
+        return waveId;
+    }
+
+    public void setWaveId(String waveId) {
+        this.waveId = waveId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+}
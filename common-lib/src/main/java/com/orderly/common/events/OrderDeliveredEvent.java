@@ -0,0 +1,59 @@
+package com.orderly.common.events;
+
+import java.time.Instant;
+
+/**
+ * Event published when a shipped order has been delivered to the customer.
+ * Consumed by: OrderService (to update status)
+ */
+public class OrderDeliveredEvent {
+
+    private String eventId;
+    private String orderId;
+    private String userId;
+    private String trackingNumber;
+    private Instant timestamp;
+
+    public OrderDeliveredEvent() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+
+    public void setTrackingNumber(String trackingNumber) {
+        this.trackingNumber = trackingNumber;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -15,6 +15,7 @@ public class OrderPlacedEvent {
     private String userId;
     private List<OrderItemPayload> items;
     private BigDecimal totalAmount;
+    private String shippingPostalCode; // Routes the order to warehouses; may be null
     private Instant timestamp;
 
     public OrderPlacedEvent() {
@@ -60,6 +61,14 @@ public class OrderPlacedEvent {
         this.totalAmount = totalAmount;
     }
 
+    public String getShippingPostalCode() {
+        return shippingPostalCode;
+    }
+
+    public void setShippingPostalCode(String shippingPostalCode) {
+        this.shippingPostalCode = shippingPostalCode;
+    }
+
     public Instant getTimestamp() {
         return timestamp;
     }
@@ -100,6 +109,11 @@ public class OrderPlacedEvent {
             return this;
         }
 
+        public Builder shippingPostalCode(String shippingPostalCode) {
+            event.shippingPostalCode = shippingPostalCode;
+            return this;
+        }
+
         public Builder timestamp(Instant timestamp) {
             event.timestamp = timestamp;
             return this;
@@ -0,0 +1,69 @@
+package com.orderly.common.events;
+
+import java.time.Instant;
+
+/**
+ * Event published when an order's stock has been deducted and it leaves the
+ * warehouse as part of a pick wave.
+ * Consumed by: OrderService (to update status)
+ */
+public class OrderShippedEvent {
+
+    private String eventId;
+    private String orderId;
+    private String userId;
+    private String waveId;
+    private String trackingNumber;
+    private Instant timestamp;
+
+    public OrderShippedEvent() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getWaveId() {
+        return waveId;
+    }
+
+    public void setWaveId(String waveId) {
+        this.waveId = waveId;
+    }
+
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+
+    public void setTrackingNumber(String trackingNumber) {
+        this.trackingNumber = trackingNumber;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -130,12 +130,12 @@ function SearchBar({ onSearch, searchQuery }) {
         />
         {showSuggestions && suggestions.length > 0 && (
           <ul className="suggestions-list">
-            {suggestions.map((suggestion, index) => (
+            {suggestions.map((suggestion) => (
               <li 
-                key={index}
-                onClick={() => handleSearch(suggestion)}
+                key={suggestion.id}
+                onClick={() => handleSearch(suggestion.name)}
               >
-                {suggestion}
+                {suggestion.name}
               </li>
             ))}
           </ul>
@@ -71,22 +71,39 @@ export const cartApi = {
 };
 
 export const orderApi = {
-  createOrder: (userId, shippingAddress) => 
+  createOrder: (userId, shippingAddress, admissionTokens = []) => 
     api.post(`/api/orders`, { shippingAddress }, {
-      headers: { 'X-User-Id': userId }
+      headers: {
+        'X-User-Id': userId,
+        ...(admissionTokens.length && { 'X-Admission-Token': admissionTokens.join(',') }),
+      }
     }),
   getOrder: (orderId) => api.get(`/api/orders/${orderId}`),
   getUserOrders: (userId) => api.get(`/api/users/${userId}/orders`),
 };
 
+export const waitingRoomApi = {
+  join: (userId, productId) =>
+    api.post(`/api/waiting-room/${productId}/join`, null, { headers: { 'X-User-Id': userId } }),
+  getStatus: (userId, productId) =>
+    api.get(`/api/waiting-room/${productId}`, { headers: { 'X-User-Id': userId } }),
+};
+
 // Inventory Service APIs (port 8082)
 export const productApi = {
   getProducts: () => api.get('/api/products'),
   getProduct: (productId) => api.get(`/api/products/${productId}`),
+  getAvailability: (productIds) => api.post('/api/products/availability', productIds),
+  getProductChanges: (since = 0) => api.get(`/api/products/changes?since=${since}`),
   search: (query, filters = {}) => {
     const params = new URLSearchParams({ q: query, ...filters });
     return api.get(`/api/search?${params}`);
   },
+  facetedSearch: (query, filters = {}, cursor) => {
+    const params = new URLSearchParams({ q: query, ...filters });
+    if (cursor) params.set('cursor', cursor);
+    return api.get(`/api/search/faceted?${params}`);
+  },
   getSuggestions: (query) => api.get(`/api/search/suggestions?q=${query}`),
 };
 
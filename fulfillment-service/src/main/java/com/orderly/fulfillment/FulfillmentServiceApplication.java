@@ -0,0 +1,14 @@
+package com.orderly.fulfillment;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class FulfillmentServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(FulfillmentServiceApplication.class, args);
+    }
+}
@@ -0,0 +1,96 @@
+package com.orderly.fulfillment.config;
+
+import com.orderly.common.events.OrderConfirmedEvent;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.orderly.common.constants.KafkaTopics.*;
+
+/**
+ * Kafka configuration for fulfillment service.
+ * Confirmed orders are consumed in batches and added to the backlog with one
+ * write per poll.
+ */
+@Configuration
+public class KafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${fulfillment.intake.batch-size:500}")
+    private int batchSize;
+
+    @Value("${fulfillment.intake.retry-interval:5000}")
+    private long retryInterval;
+
+    @Bean
+    public NewTopic orderShippedTopic() {
+        return TopicBuilder.name(ORDER_SHIPPED)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic orderDeliveredTopic() {
+        return TopicBuilder.name(ORDER_DELIVERED)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic orderCancelledTopic() {
+        return TopicBuilder.name(ORDER_CANCELLED)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    // Consumer factory for OrderConfirmedEvent
+    @Bean
+    public ConsumerFactory<String, OrderConfirmedEvent> confirmedConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"); // Skip aborted inventory transactions
+
+        JsonDeserializer<OrderConfirmedEvent> deserializer = new JsonDeserializer<>(OrderConfirmedEvent.class, false);
+        deserializer.addTrustedPackages("com.orderly.common.events");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderConfirmedEvent> confirmedListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderConfirmedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(confirmedConsumerFactory());
+        factory.setBatchListener(true);
+        // A batch that cannot be queued (MongoDB down) is retried until it can; skipping it would lose orders
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(retryInterval,
+                FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+}
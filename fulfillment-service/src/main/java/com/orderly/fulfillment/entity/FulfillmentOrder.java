@@ -0,0 +1,128 @@
+package com.orderly.fulfillment.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A confirmed order on its way through the warehouse.
+ * The id is the order id, so a re-delivered ORDER_CONFIRMED event cannot
+ * queue the same order twice.
+ */
+@Document(collection = "fulfillment_orders")
+@CompoundIndex(name = "status_queued", def = "{'status': 1, 'queuedAt': 1}")
+@CompoundIndex(name = "status_shipped", def = "{'status': 1, 'shippedAt': 1}")
+public class FulfillmentOrder {
+
+    @Id
+    private String orderId;
+
+    private String userId;
+    private FulfillmentStatus status;
+
+    // Set when a pick wave claims the order
+    @Indexed(sparse = true)
+    private String waveId;
+
+    private String trackingNumber;
+    private Instant confirmedAt;
+    private Instant queuedAt;
+    private Instant pickedAt;
+    private Instant shippedAt;
+    private Instant deliveredAt;
+
+    public FulfillmentOrder() {
+    }
+
+    // Getters and Setters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public FulfillmentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(FulfillmentStatus status) {
+        this.status = status;
+    }
+
+    public String getWaveId() {
+        return waveId;
+    }
+
+    public void setWaveId(String waveId) {
+        this.waveId = waveId;
+    }
+
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+
+    public void setTrackingNumber(String trackingNumber) {
+        this.trackingNumber = trackingNumber;
+    }
+
+    public Instant getConfirmedAt() {
+        return confirmedAt;
+    }
+
+    public void setConfirmedAt(Instant confirmedAt) {
+        this.confirmedAt = confirmedAt;
+    }
+
+    public Instant getQueuedAt() {
+        return queuedAt;
+    }
+
+    public void setQueuedAt(Instant queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+
+    public Instant getPickedAt() {
+        return pickedAt;
+    }
+
+    public void setPickedAt(Instant pickedAt) {
+        this.pickedAt = pickedAt;
+    }
+
+    public Instant getShippedAt() {
+        return shippedAt;
+    }
+
+    public void setShippedAt(Instant shippedAt) {
+        this.shippedAt = shippedAt;
+    }
+
+    public Instant getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public void setDeliveredAt(Instant deliveredAt) {
+        this.deliveredAt = deliveredAt;
+    }
+
+    public enum FulfillmentStatus {
+        QUEUED,     // In the backlog, waiting for a pick wave
+        PICKING,    // Claimed by a wave; stock deduction in progress
+        SHIPPED,    // Stock deducted, ORDER_SHIPPED published
+        DELIVERED,  // ORDER_DELIVERED published
+        CANCELLED   // Nothing left to ship (reservation released or expired)
+    }
+}
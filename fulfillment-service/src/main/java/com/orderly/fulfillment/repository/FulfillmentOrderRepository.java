@@ -0,0 +1,15 @@
+package com.orderly.fulfillment.repository;
+
+import com.orderly.fulfillment.entity.FulfillmentOrder;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FulfillmentOrderRepository extends MongoRepository<FulfillmentOrder, String> {
+
+    List<FulfillmentOrder> findByWaveId(String waveId);
+
+    long countByStatus(FulfillmentOrder.FulfillmentStatus status);
+}
@@ -0,0 +1,109 @@
+package com.orderly.fulfillment.service;
+
+import com.orderly.common.constants.KafkaTopics;
+import com.orderly.common.events.OrderDeliveredEvent;
+import com.orderly.fulfillment.entity.FulfillmentOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Marks shipped orders delivered and publishes ORDER_DELIVERED for them.
+ *
+ * There is no carrier integration yet, so an order counts as delivered a
+ * fixed delay after it shipped. Due orders are handled in batches: one query,
+ * the batch's events sent together, then one update.
+ */
+@Service
+public class DeliveryTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryTracker.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Duration deliveryDelay;
+    private final int batchSize;
+    private final Counter deliveredCounter;
+
+    public DeliveryTracker(MongoTemplate mongoTemplate,
+                           KafkaTemplate<String, Object> kafkaTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${fulfillment.delivery.delay:10m}") Duration deliveryDelay,
+                           @Value("${fulfillment.delivery.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.deliveryDelay = deliveryDelay;
+        this.batchSize = batchSize;
+        this.deliveredCounter = meterRegistry.counter("fulfillment.orders", "outcome", "delivered");
+    }
+
+    @Scheduled(fixedDelayString = "${fulfillment.delivery.check-interval:PT5S}")
+    public void deliverDue() {
+        Instant due = Instant.now().minus(deliveryDelay);
+        List<FulfillmentOrder> batch;
+        do {
+            Query query = new Query(Criteria.where("status").is(FulfillmentOrder.FulfillmentStatus.SHIPPED)
+                    .and("shippedAt").lte(due))
+                    .with(Sort.by("shippedAt"))
+                    .limit(batchSize);
+            batch = mongoTemplate.find(query, FulfillmentOrder.class);
+            if (!batch.isEmpty() && !deliver(batch)) {
+                return;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private boolean deliver(List<FulfillmentOrder> orders) {
+        Instant now = Instant.now();
+        try {
+            CompletableFuture.allOf(orders.stream()
+                    .map(order -> kafkaTemplate.send(KafkaTopics.ORDER_DELIVERED, order.getOrderId(),
+                            deliveredEvent(order, now)))
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            log.error("Publishing ORDER_DELIVERED for {} orders failed, retrying next run: {}",
+                    orders.size(), e.getMessage());
+            return false;
+        }
+
+        List<String> orderIds = orders.stream().map(FulfillmentOrder::getOrderId).collect(Collectors.toList());
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(orderIds)
+                        .and("status").is(FulfillmentOrder.FulfillmentStatus.SHIPPED)),
+                new Update()
+                        .set("status", FulfillmentOrder.FulfillmentStatus.DELIVERED)
+                        .set("deliveredAt", now),
+                FulfillmentOrder.class);
+        deliveredCounter.increment(orders.size());
+        log.info("Delivered {} orders", orders.size());
+        return true;
+    }
+
+    private static OrderDeliveredEvent deliveredEvent(FulfillmentOrder order, Instant now) {
+        OrderDeliveredEvent event = new OrderDeliveredEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setOrderId(order.getOrderId());
+        event.setUserId(order.getUserId());
+        event.setTrackingNumber(order.getTrackingNumber());
+        event.setTimestamp(now);
+        return event;
+    }
+}
@@ -0,0 +1,220 @@
+package com.orderly.fulfillment.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.orderly.common.events.OrderConfirmedEvent;
+import com.orderly.fulfillment.entity.FulfillmentOrder;
+import com.orderly.fulfillment.repository.FulfillmentOrderRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Confirmed orders waiting for a pick wave, kept in MongoDB so the backlog
+ * survives restarts.
+ *
+ * Orders are added with one bulk insert per consumed batch and claimed for a
+ * wave with one update. When the backlog reaches its maximum size the
+ * ORDER_CONFIRMED consumer is paused; it resumes once at least a wave's worth
+ * of room has been made, so intake and waves do not flap around the limit.
+ */
+@Service
+public class FulfillmentBacklog {
+
+    static final String CONTAINER_ID = "fulfillment-order-confirmed";
+
+    private static final Logger log = LoggerFactory.getLogger(FulfillmentBacklog.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final FulfillmentOrderRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final KafkaListenerEndpointRegistry registry;
+    private final long maxSize;
+    private final long resumeBelow;
+
+    private final AtomicLong queued = new AtomicLong();
+    private volatile boolean paused;
+
+    public FulfillmentBacklog(FulfillmentOrderRepository repository,
+                              MongoTemplate mongoTemplate,
+                              KafkaListenerEndpointRegistry registry,
+                              MeterRegistry meterRegistry,
+                              @Value("${fulfillment.backlog.max-size:20000}") long maxSize,
+                              @Value("${fulfillment.wave.size:200}") int waveSize) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.registry = registry;
+        this.maxSize = maxSize;
+        this.resumeBelow = Math.max(maxSize - waveSize, maxSize / 2);
+
+        Gauge.builder("fulfillment.backlog.size", queued, AtomicLong::get)
+                .description("Confirmed orders waiting for a pick wave")
+                .register(meterRegistry);
+        Gauge.builder("fulfillment.backlog.paused", this, b -> b.paused ? 1 : 0)
+                .description("1 while ORDER_CONFIRMED intake is paused because the backlog is full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue confirmed orders with one unordered bulk insert. Orders already
+     * known (re-delivered events) are skipped.
+     *
+     * @return the number of orders added
+     */
+    public int enqueue(List<OrderConfirmedEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        List<FulfillmentOrder> orders = new ArrayList<>(events.size());
+        for (OrderConfirmedEvent event : events) {
+            FulfillmentOrder order = new FulfillmentOrder();
+            order.setOrderId(event.getOrderId());
+            order.setUserId(event.getUserId());
+            order.setStatus(FulfillmentOrder.FulfillmentStatus.QUEUED);
+            order.setConfirmedAt(event.getTimestamp());
+            order.setQueuedAt(now);
+            orders.add(order);
+        }
+
+        int added = orders.size();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FulfillmentOrder.class)
+                    .insert(orders)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            added -= e.getErrors().size();
+        }
+
+        if (queued.addAndGet(added) >= maxSize) {
+            pause();
+        }
+        return added;
+    }
+
+    /**
+     * Claim up to {@code size} of the longest-waiting orders for a wave.
+     * Orders claimed by a concurrent wave on another instance are left out.
+     */
+    public List<FulfillmentOrder> claimWave(String waveId, int size) {
+        Query oldest = new Query(Criteria.where("status").is(FulfillmentOrder.FulfillmentStatus.QUEUED))
+                .with(Sort.by("queuedAt"))
+                .limit(size);
+        oldest.fields().include("_id");
+        List<String> orderIds = mongoTemplate.find(oldest, FulfillmentOrder.class).stream()
+                .map(FulfillmentOrder::getOrderId)
+                .collect(Collectors.toList());
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+
+        Query query = new Query(Criteria.where("_id").in(orderIds)
+                .and("status").is(FulfillmentOrder.FulfillmentStatus.QUEUED));
+        Update update = new Update()
+                .set("status", FulfillmentOrder.FulfillmentStatus.PICKING)
+                .set("waveId", waveId)
+                .set("pickedAt", Instant.now());
+        if (mongoTemplate.updateMulti(query, update, FulfillmentOrder.class).getModifiedCount() == 0) {
+            return List.of();
+        }
+        return repository.findByWaveId(waveId);
+    }
+
+    /**
+     * Put a wave's unshipped orders back in the backlog. They keep their
+     * queue time, so the next wave picks them first.
+     */
+    public void requeue(String waveId) {
+        Query query = new Query(Criteria.where("waveId").is(waveId)
+                .and("status").is(FulfillmentOrder.FulfillmentStatus.PICKING));
+        requeue(query);
+    }
+
+    /**
+     * Requeue orders of waves that have been picking longer than
+     * {@code staleAfter}, left behind by an instance that stopped mid-wave.
+     * Repeating the stock deduction for them is safe; it is idempotent per order.
+     */
+    public long requeueStale(Duration staleAfter) {
+        Query query = new Query(Criteria.where("status").is(FulfillmentOrder.FulfillmentStatus.PICKING)
+                .and("pickedAt").lt(Instant.now().minus(staleAfter)));
+        return requeue(query);
+    }
+
+    private long requeue(Query query) {
+        Update update = new Update()
+                .set("status", FulfillmentOrder.FulfillmentStatus.QUEUED)
+                .unset("waveId")
+                .unset("pickedAt");
+        long requeued = mongoTemplate.updateMulti(query, update, FulfillmentOrder.class).getModifiedCount();
+        queued.addAndGet(requeued);
+        return requeued;
+    }
+
+    public Optional<Instant> oldestQueuedAt() {
+        Query oldest = new Query(Criteria.where("status").is(FulfillmentOrder.FulfillmentStatus.QUEUED))
+                .with(Sort.by("queuedAt"));
+        oldest.fields().include("queuedAt");
+        return Optional.ofNullable(mongoTemplate.findOne(oldest, FulfillmentOrder.class))
+                .map(FulfillmentOrder::getQueuedAt);
+    }
+
+    /**
+     * Re-count the backlog and pause or resume intake to keep it within its
+     * maximum size.
+     *
+     * @return orders waiting for a wave
+     */
+    public long refresh() {
+        long size = repository.countByStatus(FulfillmentOrder.FulfillmentStatus.QUEUED);
+        queued.set(size);
+        if (size >= maxSize) {
+            pause();
+        } else if (size <= resumeBelow) {
+            resume();
+        }
+        return size;
+    }
+
+    private void pause() {
+        MessageListenerContainer container = registry.getListenerContainer(CONTAINER_ID);
+        if (container != null && !container.isPauseRequested()) {
+            container.pause();
+            paused = true;
+            log.warn("Backlog holds {} orders (max {}), pausing ORDER_CONFIRMED intake", queued.get(), maxSize);
+        }
+    }
+
+    private void resume() {
+        MessageListenerContainer container = registry.getListenerContainer(CONTAINER_ID);
+        if (container != null && container.isPauseRequested()) {
+            container.resume();
+            paused = false;
+            log.info("Backlog down to {} orders, resuming ORDER_CONFIRMED intake", queued.get());
+        }
+    }
+}
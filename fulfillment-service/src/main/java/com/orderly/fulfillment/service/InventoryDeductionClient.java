@@ -0,0 +1,54 @@
+package com.orderly.fulfillment.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deducts a whole pick wave's stock from the inventory service in one call.
+ */
+@Component
+public class InventoryDeductionClient {
+
+    private final RestClient restClient;
+
+    public InventoryDeductionClient(RestClient.Builder builder,
+                                    @Value("${fulfillment.inventory-url:http://localhost:8082}") String inventoryUrl,
+                                    @Value("${fulfillment.inventory-timeout:10s}") Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+        this.restClient = builder.baseUrl(inventoryUrl).requestFactory(requestFactory).build();
+    }
+
+    /**
+     * @return units shipped per order; orders with nothing left to ship are absent
+     * @throws RestClientException if the inventory service could not be reached
+     *         or did not deduct the wave
+     */
+    public Map<String, Integer> deduct(String waveId, List<String> orderIds) {
+        JsonNode response = restClient.post()
+                .uri("/api/reservations/fulfill")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("waveId", waveId, "orderIds", orderIds))
+                .retrieve()
+                .body(JsonNode.class);
+        JsonNode data = response != null ? response.path("data") : null;
+        if (data == null || !data.isObject()) {
+            throw new RestClientException("Unexpected response deducting wave " + waveId);
+        }
+
+        Map<String, Integer> shipped = new HashMap<>();
+        data.fields().forEachRemaining(entry -> shipped.put(entry.getKey(), entry.getValue().asInt()));
+        return shipped;
+    }
+}
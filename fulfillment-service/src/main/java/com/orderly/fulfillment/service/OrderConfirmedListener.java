@@ -0,0 +1,44 @@
+package com.orderly.fulfillment.service;
+
+import com.orderly.common.constants.KafkaTopics;
+import com.orderly.common.events.OrderConfirmedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Adds confirmed orders to the fulfillment backlog, one poll at a time.
+ */
+@Service
+public class OrderConfirmedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderConfirmedListener.class);
+
+    private final FulfillmentBacklog backlog;
+
+    public OrderConfirmedListener(FulfillmentBacklog backlog) {
+        this.backlog = backlog;
+    }
+
+    @KafkaListener(id = FulfillmentBacklog.CONTAINER_ID, topics = KafkaTopics.ORDER_CONFIRMED,
+            containerFactory = "confirmedListenerFactory")
+    public void handleOrderConfirmed(List<ConsumerRecord<String, OrderConfirmedEvent>> records) {
+        List<OrderConfirmedEvent> events = records.stream()
+                .map(ConsumerRecord::value)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (events.size() < records.size()) {
+            // Null values are records the ErrorHandlingDeserializer could not read
+            log.error("Skipping {} unreadable OrderConfirmedEvent records", records.size() - events.size());
+        }
+
+        int added = backlog.enqueue(events);
+        log.info("Queued {} of {} confirmed orders for fulfillment", added, records.size());
+    }
+}
@@ -0,0 +1,246 @@
+package com.orderly.fulfillment.service;
+
+import com.orderly.common.constants.KafkaTopics;
+import com.orderly.common.events.OrderCancelledEvent;
+import com.orderly.common.events.OrderShippedEvent;
+import com.orderly.fulfillment.entity.FulfillmentOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cuts the backlog into pick waves and ships them.
+ *
+ * A wave is cut as soon as the backlog holds a full wave, or once the oldest
+ * queued order has waited the maximum wave wait. Each wave makes one stock
+ * deduction call to the inventory service, publishes its ORDER_SHIPPED events
+ * (and ORDER_CANCELLED for orders with nothing left to ship) together, and
+ * records the outcome with one bulk write. A wave that fails
+ * before its events are out goes back to the backlog; one that stops after
+ * (instance lost) is requeued once it goes stale, and repeating it is safe
+ * because the deduction is idempotent per order.
+ */
+@Service
+public class WavePlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(WavePlanner.class);
+
+    private final FulfillmentBacklog backlog;
+    private final InventoryDeductionClient inventoryClient;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final int waveSize;
+    private final Duration maxWait;
+    private final Duration staleAfter;
+
+    private final DistributionSummary waveSizes;
+    private final Timer waveDuration;
+    private final Counter shippedCounter;
+    private final Counter cancelledCounter;
+    private final Counter failedWaves;
+
+    public WavePlanner(FulfillmentBacklog backlog,
+                       InventoryDeductionClient inventoryClient,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       MongoTemplate mongoTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${fulfillment.wave.size:200}") int waveSize,
+                       @Value("${fulfillment.wave.max-wait:30s}") Duration maxWait,
+                       @Value("${fulfillment.wave.stale-after:5m}") Duration staleAfter) {
+        this.backlog = backlog;
+        this.inventoryClient = inventoryClient;
+        this.kafkaTemplate = kafkaTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.waveSize = waveSize;
+        this.maxWait = maxWait;
+        this.staleAfter = staleAfter;
+
+        this.waveSizes = DistributionSummary.builder("fulfillment.wave.size")
+                .description("Orders per pick wave")
+                .register(meterRegistry);
+        this.waveDuration = Timer.builder("fulfillment.wave.duration")
+                .description("Time to deduct stock for and ship one pick wave")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.shippedCounter = meterRegistry.counter("fulfillment.orders", "outcome", "shipped");
+        this.cancelledCounter = meterRegistry.counter("fulfillment.orders", "outcome", "cancelled");
+        this.failedWaves = meterRegistry.counter("fulfillment.wave.failures");
+    }
+
+    @Scheduled(fixedDelayString = "${fulfillment.wave.interval:PT1S}")
+    public void planWaves() {
+        long queued = backlog.refresh();
+        while (queued >= waveSize || (queued > 0 && oldestHasWaited())) {
+            if (!runWave()) {
+                return;
+            }
+            queued = backlog.refresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fulfillment.wave.stale-check-interval:PT1M}")
+    public void requeueStaleWaves() {
+        long requeued = backlog.requeueStale(staleAfter);
+        if (requeued > 0) {
+            log.warn("Requeued {} orders from waves picking for more than {}", requeued, staleAfter);
+        }
+    }
+
+    private boolean oldestHasWaited() {
+        return backlog.oldestQueuedAt()
+                .map(queuedAt -> !queuedAt.plus(maxWait).isAfter(Instant.now()))
+                .orElse(false);
+    }
+
+    /**
+     * Claim, deduct and ship one wave.
+     *
+     * @return whether the wave went out, so the caller may cut another
+     */
+    private boolean runWave() {
+        String waveId = UUID.randomUUID().toString();
+        List<FulfillmentOrder> orders = backlog.claimWave(waveId, waveSize);
+        if (orders.isEmpty()) {
+            return false;
+        }
+        Timer.Sample sample = Timer.start();
+        List<String> orderIds = orders.stream().map(FulfillmentOrder::getOrderId).collect(Collectors.toList());
+
+        Map<String, Integer> shipped;
+        try {
+            shipped = inventoryClient.deduct(waveId, orderIds);
+        } catch (RestClientException e) {
+            log.warn("Stock deduction for wave {} of {} orders failed, returning it to the backlog: {}",
+                    waveId, orders.size(), e.getMessage());
+            backlog.requeue(waveId);
+            failedWaves.increment();
+            return false;
+        }
+
+        Instant now = Instant.now();
+        assignTrackingNumbers(orders, shipped.keySet());
+
+        List<OrderShippedEvent> events = new ArrayList<>(shipped.size());
+        List<OrderCancelledEvent> cancellations = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FulfillmentOrder.class);
+        for (FulfillmentOrder order : orders) {
+            if (!shipped.containsKey(order.getOrderId())) {
+                cancellations.add(cancelledEvent(order, waveId, now));
+                continue;
+            }
+            events.add(shippedEvent(order, waveId, now));
+            bulk.updateOne(new Query(Criteria.where("_id").is(order.getOrderId()).and("waveId").is(waveId)),
+                    new Update()
+                            .set("status", FulfillmentOrder.FulfillmentStatus.SHIPPED)
+                            .set("shippedAt", now));
+        }
+
+        try {
+            CompletableFuture.allOf(Stream.concat(
+                    events.stream().map(event -> kafkaTemplate.send(KafkaTopics.ORDER_SHIPPED,
+                            event.getOrderId(), event)),
+                    cancellations.stream().map(event -> kafkaTemplate.send(KafkaTopics.ORDER_CANCELLED,
+                            event.getOrderId(), event)))
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            // Stock is already deducted; the wave is repeated once stale and the deduction is a no-op then
+            log.error("Publishing outcomes of wave {} failed: {}", waveId, e.getMessage());
+            failedWaves.increment();
+            return false;
+        }
+
+        if (!events.isEmpty()) {
+            bulk.execute();
+        }
+        if (!cancellations.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("_id").in(cancellations.stream()
+                                    .map(OrderCancelledEvent::getOrderId)
+                                    .collect(Collectors.toList()))
+                            .and("waveId").is(waveId)),
+                    new Update().set("status", FulfillmentOrder.FulfillmentStatus.CANCELLED),
+                    FulfillmentOrder.class);
+        }
+
+        sample.stop(waveDuration);
+        waveSizes.record(orders.size());
+        shippedCounter.increment(events.size());
+        cancelledCounter.increment(cancellations.size());
+        log.info("Wave {} shipped {} orders ({} units), {} had nothing left to ship",
+                waveId, events.size(), shipped.values().stream().mapToInt(Integer::intValue).sum(),
+                cancellations.size());
+        return true;
+    }
+
+    /**
+     * Give shipped orders that have none yet a tracking number, persisted
+     * before any event carries it. A repeated wave finds the number on the
+     * claimed order and sends the same one again.
+     */
+    private void assignTrackingNumbers(List<FulfillmentOrder> orders, Set<String> shipped) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FulfillmentOrder.class);
+        int assigned = 0;
+        for (FulfillmentOrder order : orders) {
+            if (order.getTrackingNumber() != null || !shipped.contains(order.getOrderId())) {
+                continue;
+            }
+            order.setTrackingNumber("TRK" + UUID.randomUUID().toString().replace("-", "")
+                    .substring(0, 12).toUpperCase(Locale.ROOT));
+            bulk.updateOne(new Query(Criteria.where("_id").is(order.getOrderId())
+                            .and("trackingNumber").exists(false)),
+                    new Update().set("trackingNumber", order.getTrackingNumber()));
+            assigned++;
+        }
+        if (assigned > 0) {
+            bulk.execute();
+        }
+    }
+
+    private static OrderShippedEvent shippedEvent(FulfillmentOrder order, String waveId, Instant now) {
+        OrderShippedEvent event = new OrderShippedEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setOrderId(order.getOrderId());
+        event.setUserId(order.getUserId());
+        event.setWaveId(waveId);
+        event.setTrackingNumber(order.getTrackingNumber());
+        event.setTimestamp(now);
+        return event;
+    }
+
+    private static OrderCancelledEvent cancelledEvent(FulfillmentOrder order, String waveId, Instant now) {
+        OrderCancelledEvent event = new OrderCancelledEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setOrderId(order.getOrderId());
+        event.setUserId(order.getUserId());
+        event.setWaveId(waveId);
+        event.setReason("Nothing left to ship: the order's stock reservations were released or expired");
+        event.setTimestamp(now);
+        return event;
+    }
+}
@@ -0,0 +1,141 @@
+package com.orderly.inventory.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.orderly.inventory.entity.Product;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of catalog reads: single products, per-category
+ * listings and the active product listing.
+ *
+ * Entries are dropped precisely on {@link ProductChangedEvent}s. Entries also
+ * expire after the stock staleness bound, because stock changes on other
+ * instances are not broadcast.
+ */
+@Component
+public class ProductCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCache.class);
+    private static final String ACTIVE_KEY = "active";
+
+    private final Cache<String, Product> products;
+    private final Cache<String, List<Product>> categories;
+    private final Cache<String, List<Product>> activeProducts;
+
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${inventory.cache.max-size:64MB}") DataSize maxSize,
+                        @Value("${inventory.cache.stock-staleness:5s}") Duration stockStaleness) {
+        // Single products get half the budget, listings share the rest
+        long budget = maxSize.toBytes();
+        this.products = build(budget / 2, stockStaleness, ProductCache::weigh);
+        this.categories = build(budget / 4, stockStaleness, ProductCache::weighAll);
+        this.activeProducts = build(budget / 4, stockStaleness, ProductCache::weighAll);
+
+        register(meterRegistry, "products", products);
+        register(meterRegistry, "categories", categories);
+        register(meterRegistry, "active", activeProducts);
+    }
+
+    /**
+     * Cached product lookup. Misses are not cached, so new products show up immediately.
+     */
+    public Optional<Product> getProduct(String productId, Function<String, Optional<Product>> loader) {
+        return Optional.ofNullable(products.get(productId, id -> loader.apply(id).orElse(null)));
+    }
+
+    /**
+     * Whichever of the products are cached right now, without loading the rest.
+     */
+    public Map<String, Product> peekProducts(Iterable<String> productIds) {
+        return products.getAllPresent(productIds);
+    }
+
+    public List<Product> getCategory(String category, Function<String, List<Product>> loader) {
+        return categories.get(category, loader);
+    }
+
+    public List<Product> getActiveProducts(Supplier<List<Product>> loader) {
+        return activeProducts.get(ACTIVE_KEY, key -> loader.get());
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        products.invalidateAll(event.getProductIds());
+        if (event.getType() == ProductChangedEvent.ChangeType.CATALOG) {
+            categories.invalidateAll(event.getCategories());
+            activeProducts.invalidateAll();
+        }
+        log.debug("Invalidated {} cached products ({} {})", event.getProductIds().size(),
+                event.isRemote() ? "remote" : "local", event.getType());
+    }
+
+    private static <V> Cache<String, V> build(long maxWeight, Duration ttl, Weigher<V> weigher) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, V value) -> weigher.weigh(value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    private static void register(MeterRegistry meterRegistry, String name, Cache<String, ?> cache) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventory." + name);
+        Gauge.builder("inventory.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("inventory.cache.weighted.size", cache, ProductCache::weightedSize)
+                .description("Estimated bytes held by the cache")
+                .baseUnit("bytes")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private static double weightedSize(Cache<String, ?> cache) {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    /**
+     * Rough heap estimate of a product: object headers plus UTF-16 strings.
+     */
+    private static int weigh(Product product) {
+        return 160
+                + chars(product.getId()) + chars(product.getSku()) + chars(product.getName())
+                + chars(product.getDescription()) + chars(product.getCategory())
+                + chars(product.getImageUrl());
+    }
+
+    private static int weighAll(List<Product> products) {
+        int weight = 16;
+        for (Product product : products) {
+            weight += 8 + weigh(product);
+        }
+        return weight;
+    }
+
+    private static int chars(String value) {
+        return value != null ? 40 + 2 * value.length() : 0;
+    }
+
+    @FunctionalInterface
+    private interface Weigher<V> {
+        int weigh(V value);
+    }
+}
@@ -0,0 +1,59 @@
+package com.orderly.inventory.cache;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published in-process whenever products are written.
+ *
+ * CATALOG changes (name, price, category, active flag...) are relayed to other
+ * instances over the invalidation bus; those copies arrive with {@code remote}
+ * set. STOCK changes stay local, and other instances rely on the cache's
+ * stock staleness bound instead.
+ */
+public class ProductChangedEvent {
+
+    private final Set<String> productIds;
+    private final Set<String> categories; // Categories whose listings may have changed
+    private final ChangeType type;
+    private final boolean remote;
+
+    public ProductChangedEvent(Collection<String> productIds, Collection<String> categories,
+                               ChangeType type, boolean remote) {
+        this.productIds = Set.copyOf(productIds);
+        this.categories = categories.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+        this.type = type;
+        this.remote = remote;
+    }
+
+    public static ProductChangedEvent catalog(Collection<String> productIds, Collection<String> categories) {
+        return new ProductChangedEvent(productIds, categories, ChangeType.CATALOG, false);
+    }
+
+    public static ProductChangedEvent stock(Collection<String> productIds) {
+        return new ProductChangedEvent(productIds, Set.of(), ChangeType.STOCK, false);
+    }
+
+    public Set<String> getProductIds() {
+        return productIds;
+    }
+
+    public Set<String> getCategories() {
+        return categories;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+
+    public enum ChangeType {
+        CATALOG,
+        STOCK
+    }
+}
@@ -0,0 +1,121 @@
+package com.orderly.inventory.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Relays local catalog changes to every other inventory-service instance over
+ * Redis pub/sub, and republishes theirs here as remote {@link ProductChangedEvent}s.
+ */
+@Component
+public class ProductInvalidationBus implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductInvalidationBus.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+
+    // Lets an instance skip its own messages
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public ProductInvalidationBus(StringRedisTemplate redisTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  ObjectMapper objectMapper,
+                                  @Value("${inventory.cache.invalidation-channel:inventory:product-invalidations}")
+                                  String channel) {
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemote() || event.getType() != ProductChangedEvent.ChangeType.CATALOG) {
+            return;
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(new InvalidationMessage(
+                    instanceId, new ArrayList<>(event.getProductIds()), new ArrayList<>(event.getCategories())));
+            redisTemplate.convertAndSend(channel, payload);
+        } catch (Exception e) {
+            // Other instances fall back to the cache TTL
+            log.warn("Failed to broadcast invalidation for {} products: {}",
+                    event.getProductIds().size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            InvalidationMessage invalidation = objectMapper.readValue(message.getBody(), InvalidationMessage.class);
+            if (instanceId.equals(invalidation.getOrigin())) {
+                return;
+            }
+            eventPublisher.publishEvent(new ProductChangedEvent(invalidation.getProductIds(),
+                    invalidation.getCategories(), ProductChangedEvent.ChangeType.CATALOG, true));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed invalidation message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Wire format on the invalidation channel.
+     */
+    public static class InvalidationMessage {
+        private String origin;
+        private List<String> productIds;
+        private List<String> categories;
+
+        public InvalidationMessage() {
+        }
+
+        public InvalidationMessage(String origin, List<String> productIds, List<String> categories) {
+            this.origin = origin;
+            this.productIds = productIds;
+            this.categories = categories;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public void setOrigin(String origin) {
+            this.origin = origin;
+        }
+
+        public List<String> getProductIds() {
+            return productIds;
+        }
+
+        public void setProductIds(List<String> productIds) {
+            this.productIds = productIds;
+        }
+
+        public List<String> getCategories() {
+            return categories;
+        }
+
+        public void setCategories(List<String> categories) {
+            this.categories = categories;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.orderly.inventory.catalog;
+
+import com.orderly.inventory.entity.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Delta sync over the catalog change sequence.
+ *
+ * Every catalog write stamps its products with a new sequence value, so the
+ * products with {@code changeSeq} after a client's token are exactly those
+ * created, updated or deactivated since, each appearing once at its latest
+ * state. A sequence value is taken before the write that uses it lands, so
+ * changes are only handed out up to a horizon: the sequence as sampled at
+ * least {@code settle} ago. Writes below it have finished, and a token never
+ * moves past one still in flight.
+ */
+@Service
+public class CatalogChangeFeed {
+
+    public static final int DEFAULT_LIMIT = 500;
+    public static final int MAX_LIMIT = 5000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogSequence catalogSequence;
+    private final Duration settle;
+
+    // (sampledAt, sequence) pairs, oldest first, covering a little over the settle window
+    private final Deque<Sample> samples = new ArrayDeque<>();
+
+    public CatalogChangeFeed(MongoTemplate mongoTemplate,
+                             CatalogSequence catalogSequence,
+                             @Value("${inventory.catalog.changes.settle:5s}") Duration settle) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogSequence = catalogSequence;
+        this.settle = settle;
+    }
+
+    /**
+     * @param since a previous {@code nextToken}, or a plain sequence number (0 for everything)
+     */
+    public CatalogChanges changesSince(String since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Token from = Token.parse(since);
+        long horizon = horizon();
+        if (from.seq() >= horizon && from.id() == null) {
+            return new CatalogChanges(List.of(), from.toString(), false);
+        }
+
+        Criteria after = from.id() == null
+                ? Criteria.where("changeSeq").gt(from.seq())
+                : new Criteria().orOperator(
+                        Criteria.where("changeSeq").gt(from.seq()),
+                        Criteria.where("changeSeq").is(from.seq()).and("_id").gt(from.id()));
+        Query query = new Query(new Criteria().andOperator(after, Criteria.where("changeSeq").lte(horizon)))
+                .with(Sort.by("changeSeq", "_id"))
+                .limit(pageSize + 1);
+
+        List<Product> products = mongoTemplate.find(query, Product.class);
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            Product last = products.get(pageSize - 1);
+            return new CatalogChanges(products, new Token(last.getChangeSeq(), last.getId()).toString(), true);
+        }
+        // Everything up to the horizon has been returned
+        return new CatalogChanges(products, new Token(Math.max(horizon, from.seq()), null).toString(), false);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.catalog.changes.sample-interval:PT1S}")
+    public void sample() {
+        long seq = catalogSequence.current();
+        Instant now = Instant.now();
+        synchronized (samples) {
+            samples.addLast(new Sample(now, seq));
+            // Keep the newest sample that is already older than the settle window
+            Instant settled = now.minus(settle);
+            while (samples.size() > 1) {
+                Sample first = samples.removeFirst();
+                if (samples.peekFirst().sampledAt().isAfter(settled)) {
+                    samples.addFirst(first);
+                    break;
+                }
+            }
+        }
+    }
+
+    private long horizon() {
+        Instant settled = Instant.now().minus(settle);
+        synchronized (samples) {
+            Sample oldest = samples.peekFirst();
+            return oldest != null && !oldest.sampledAt().isAfter(settled) ? oldest.seq() : 0L;
+        }
+    }
+
+    private record Sample(Instant sampledAt, long seq) {
+    }
+
+    /**
+     * "seq" when caught up to a sequence value, "seq:id" part way through one.
+     */
+    private record Token(long seq, String id) {
+
+        static Token parse(String token) {
+            if (token == null || token.isBlank()) {
+                return new Token(0L, null);
+            }
+            int separator = token.indexOf(':');
+            try {
+                return separator < 0
+                        ? new Token(Long.parseLong(token.trim()), null)
+                        : new Token(Long.parseLong(token.substring(0, separator)), token.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid sync token: " + token);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return id == null ? Long.toString(seq) : seq + ":" + id;
+        }
+    }
+}
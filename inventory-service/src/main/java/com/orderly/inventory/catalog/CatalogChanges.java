@@ -0,0 +1,39 @@
+package com.orderly.inventory.catalog;
+
+import com.orderly.inventory.entity.Product;
+
+import java.util.List;
+
+/**
+ * Products changed since a sync token, each at most once, in change order.
+ * Pass {@code nextToken} as {@code since} on the following call; when
+ * {@code hasMore} is set, call again right away.
+ */
+public class CatalogChanges {
+
+    private final List<Product> items;
+    private final String nextToken;
+    private final boolean hasMore;
+
+    public CatalogChanges(List<Product> items, String nextToken, boolean hasMore) {
+        this.items = items;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    public List<Product> getItems() {
+        return items;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public int getSize() {
+        return items.size();
+    }
+}
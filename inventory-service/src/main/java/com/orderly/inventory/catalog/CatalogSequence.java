@@ -0,0 +1,47 @@
+package com.orderly.inventory.catalog;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cluster-wide catalog change sequence, kept in the {@code sequences} collection.
+ *
+ * Every catalog write stamps the products it touches with a fresh value, so
+ * the catalog as a whole has a monotonically increasing version. Stock-only
+ * writes do not advance it.
+ */
+@Component
+public class CatalogSequence {
+
+    private static final String COLLECTION = "sequences";
+    private static final String CATALOG = "catalog";
+
+    private final MongoTemplate mongoTemplate;
+
+    public CatalogSequence(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public long next() {
+        Document counter = mongoTemplate.findAndModify(
+                byId(),
+                new Update().inc("value", 1L),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Document.class, COLLECTION);
+        return counter.get("value", Number.class).longValue();
+    }
+
+    public long current() {
+        Document counter = mongoTemplate.findOne(byId(), Document.class, COLLECTION);
+        return counter != null ? counter.get("value", Number.class).longValue() : 0L;
+    }
+
+    private static Query byId() {
+        return new Query(Criteria.where("_id").is(CATALOG));
+    }
+}
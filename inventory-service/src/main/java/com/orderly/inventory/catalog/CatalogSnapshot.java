@@ -0,0 +1,70 @@
+package com.orderly.inventory.catalog;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A catalog listing encoded once as the JSON response body, plus a gzip copy.
+ * The ETag is derived from the catalog sequence and a checksum of the listing,
+ * so rebuilding an unchanged listing yields the same tag.
+ */
+public class CatalogSnapshot {
+
+    private final long catalogSeq;
+    private final long checksum;
+    private final byte[] body;
+    private final byte[] gzipBody; // Null when the body is too small to be worth compressing
+    private final String etag;
+    private final Instant builtAt;
+
+    CatalogSnapshot(long catalogSeq, long checksum, byte[] body, byte[] gzipBody, Instant builtAt) {
+        this.catalogSeq = catalogSeq;
+        this.checksum = checksum;
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = "\"" + catalogSeq + "-" + Long.toHexString(checksum) + "\"";
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * Same bytes and tag, with a fresh build time.
+     */
+    CatalogSnapshot renewed() {
+        return new CatalogSnapshot(catalogSeq, checksum, body, gzipBody, Instant.now());
+    }
+
+    boolean isFresh(Duration maxAge) {
+        return builtAt.plus(maxAge).isAfter(Instant.now());
+    }
+
+    boolean sameContent(long otherSeq, long otherChecksum) {
+        return catalogSeq == otherSeq && checksum == otherChecksum;
+    }
+
+    public long getCatalogSeq() {
+        return catalogSeq;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Strong tags must differ per content encoding.
+     */
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+}
@@ -0,0 +1,151 @@
+package com.orderly.inventory.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.inventory.cache.ProductChangedEvent;
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps pre-encoded catalog listings so GET requests are served without
+ * serializing anything.
+ *
+ * Snapshots are dropped on catalog writes, and rebuilt at most once per stock
+ * staleness bound otherwise; a rebuild that finds the same listing keeps the
+ * existing bytes and ETag. Rebuilds read MongoDB directly rather than the
+ * product cache, so the two staleness bounds do not add up.
+ *
+ * Rebuilds run outside the cache's locks: one caller per key rebuilds while
+ * others keep serving the stale snapshot, or wait for the rebuild if there is
+ * none yet, and the result is swapped in when done.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+    private static final String ACTIVE_KEY = "active";
+    private static final String CATEGORY_PREFIX = "category:";
+
+    private final ProductRepository productRepository;
+    private final CatalogSequence catalogSequence;
+    private final ObjectMapper objectMapper;
+    private final Duration maxAge;
+    private final int gzipMinBytes;
+    private final Cache<String, CatalogSnapshot> snapshots;
+    private final ConcurrentHashMap<String, CompletableFuture<CatalogSnapshot>> rebuilding =
+            new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CatalogSnapshotService(ProductRepository productRepository,
+                                  CatalogSequence catalogSequence,
+                                  ObjectMapper objectMapper,
+                                  @Value("${inventory.cache.stock-staleness:5s}") Duration maxAge,
+                                  @Value("${inventory.catalog.gzip-min-bytes:1024}") int gzipMinBytes,
+                                  @Value("${inventory.catalog.max-snapshots:1000}") long maxSnapshots) {
+        this.productRepository = productRepository;
+        this.catalogSequence = catalogSequence;
+        this.objectMapper = objectMapper;
+        this.maxAge = maxAge;
+        this.gzipMinBytes = gzipMinBytes;
+        this.snapshots = Caffeine.newBuilder().maximumSize(maxSnapshots).build();
+    }
+
+    public CatalogSnapshot activeProducts() {
+        return snapshot(ACTIVE_KEY, productRepository::findByActiveTrue);
+    }
+
+    public CatalogSnapshot category(String category) {
+        return snapshot(CATEGORY_PREFIX + category, () -> productRepository.findByCategory(category));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.ChangeType.CATALOG) {
+            return; // Stock changes are picked up by the age bound
+        }
+        invalidations.incrementAndGet(); // Before the removal, so rebuilds already loading won't store
+        snapshots.invalidate(ACTIVE_KEY);
+        for (String category : event.getCategories()) {
+            snapshots.invalidate(CATEGORY_PREFIX + category);
+        }
+    }
+
+    private CatalogSnapshot snapshot(String key, Supplier<List<Product>> loader) {
+        CatalogSnapshot current = snapshots.getIfPresent(key);
+        if (current != null && current.isFresh(maxAge)) {
+            return current;
+        }
+        CompletableFuture<CatalogSnapshot> rebuild = new CompletableFuture<>();
+        CompletableFuture<CatalogSnapshot> inFlight = rebuilding.putIfAbsent(key, rebuild);
+        if (inFlight != null) {
+            // Someone else is rebuilding: serve the stale copy, or wait if there is none
+            return current != null ? current : inFlight.join();
+        }
+        try {
+            long generation = invalidations.get();
+            CatalogSnapshot built = build(key, loader, current);
+            // Store unless a catalog write invalidated snapshots while this one was loading
+            snapshots.asMap().compute(key, (k, existing) -> invalidations.get() == generation ? built : existing);
+            rebuild.complete(built);
+            return built;
+        } catch (RuntimeException e) {
+            rebuild.completeExceptionally(e);
+            throw e;
+        } finally {
+            rebuilding.remove(key, rebuild);
+        }
+    }
+
+    private CatalogSnapshot build(String key, Supplier<List<Product>> loader, CatalogSnapshot previous) {
+        long seq = catalogSequence.current();
+        try {
+            byte[] data = objectMapper.writeValueAsBytes(loader.get());
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            if (previous != null && previous.sameContent(seq, crc.getValue())) {
+                return previous.renewed();
+            }
+
+            ApiResponse<RawValue> response = ApiResponse.success(new RawValue(new String(data, StandardCharsets.UTF_8)));
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            byte[] gzipBody = body.length >= gzipMinBytes ? gzip(body) : null;
+            log.debug("Rebuilt catalog snapshot {} at seq {} ({} bytes)", key, seq, body.length);
+            return new CatalogSnapshot(seq, crc.getValue(), body, gzipBody, Instant.now());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode catalog snapshot " + key, e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
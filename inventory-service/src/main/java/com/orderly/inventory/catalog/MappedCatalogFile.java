@@ -0,0 +1,249 @@
+package com.orderly.inventory.catalog;
+
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.service.InventoryService;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Flat binary catalog file, read through a memory mapping.
+ *
+ * <pre>
+ * header  int magic, int format, long catalogSeq, long writtenAt (epoch ms),
+ *         int count, int unused, long indexOffset
+ * record  int stockQuantity, int reservedQuantity, long changeSeq, long version,
+ *         int lowStockThreshold (-1 = none), byte flags (active, lowStockAlerted,
+ *         has locations), then id, sku, name, description, category, imageUrl,
+ *         price as int length (-1 = null) + UTF-8 bytes
+ * index   count x int record offset, sorted by product id
+ * </pre>
+ *
+ * Stock counters and flags sit at fixed offsets at the start of each record, so
+ * they can be patched in place. The mapping is private (copy-on-write): patches
+ * touch only this process's pages, never the file. Per-warehouse stock changes
+ * too often to be kept here, so products with locations are left out of reads.
+ */
+public final class MappedCatalogFile {
+
+    private static final int MAGIC = 0x4F434154; // "OCAT"
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = 40;
+    private static final int NO_THRESHOLD = -1;
+    private static final int NULL_STRING = -1;
+    private static final int ACTIVE = 1;
+    private static final int LOW_STOCK_ALERTED = 2;
+    private static final int HAS_LOCATIONS = 4;
+
+    private final MappedByteBuffer buffer;
+    private final long catalogSeq;
+    private final Instant writtenAt;
+    private final int count;
+    private final int indexOffset;
+
+    private MappedCatalogFile(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+            throw new IllegalStateException("Not a catalog snapshot file (format " + FORMAT + ")");
+        }
+        this.catalogSeq = buffer.getLong(8);
+        this.writtenAt = Instant.ofEpochMilli(buffer.getLong(16));
+        this.count = buffer.getInt(24);
+        this.indexOffset = (int) buffer.getLong(32);
+    }
+
+    public static MappedCatalogFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Catalog snapshot larger than 2GB: " + size);
+            }
+            return new MappedCatalogFile(channel.map(FileChannel.MapMode.PRIVATE, 0, size));
+        }
+    }
+
+    /**
+     * Write products to a temp file, then move it over {@code path} atomically.
+     * Products may arrive in any order; only their offsets are held in memory.
+     */
+    public static int write(Path path, Iterator<Product> products, long catalogSeq, Instant writtenAt)
+            throws IOException {
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "catalog-", ".tmp");
+        List<IndexEntry> index = new ArrayList<>();
+
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.write(new byte[HEADER_SIZE]); // Filled in below
+            while (products.hasNext()) {
+                Product product = products.next();
+                index.add(new IndexEntry(product.getId(), out.size()));
+                writeRecord(out, product);
+            }
+            if (out.size() == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Catalog snapshot exceeds 2GB"); // size() saturates
+            }
+
+            index.sort(Comparator.comparing(IndexEntry::id));
+            for (IndexEntry entry : index) {
+                out.writeInt(entry.offset());
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(FORMAT).putLong(catalogSeq).putLong(writtenAt.toEpochMilli())
+                    .putInt(index.size()).putInt(0)
+                    .putLong(Files.size(temp) - 4L * index.size());
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return index.size();
+    }
+
+    public long getCatalogSeq() {
+        return catalogSeq;
+    }
+
+    public Instant getWrittenAt() {
+        return writtenAt;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Binary search the id index and decode the record, or null if absent or
+     * the product keeps stock per warehouse.
+     */
+    public Product find(String productId) {
+        int offset = offsetOf(productId);
+        if (offset < 0 || (buffer.get(offset + 28) & HAS_LOCATIONS) != 0) {
+            return null;
+        }
+        return readRecord(offset);
+    }
+
+    /**
+     * Overwrite a product's stock counters, version and low-stock flag in the
+     * private mapping.
+     */
+    public boolean patchStock(String productId, int stockQuantity, int reservedQuantity, long version,
+                              boolean lowStockAlerted) {
+        int offset = offsetOf(productId);
+        if (offset < 0) {
+            return false;
+        }
+        buffer.putInt(offset, stockQuantity);
+        buffer.putInt(offset + 4, reservedQuantity);
+        buffer.putLong(offset + 16, version);
+        int flags = buffer.get(offset + 28);
+        buffer.put(offset + 28, (byte) (lowStockAlerted ? flags | LOW_STOCK_ALERTED : flags & ~LOW_STOCK_ALERTED));
+        return true;
+    }
+
+    private int offsetOf(String productId) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(indexOffset + 4 * mid);
+            int cmp = readString(offset + 29).compareTo(productId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static void writeRecord(DataOutputStream out, Product product) throws IOException {
+        out.writeInt(product.getStockQuantity());
+        out.writeInt(product.getReservedQuantity());
+        out.writeLong(product.getChangeSeq() != null ? product.getChangeSeq() : 0L);
+        out.writeLong(product.getVersion() != null ? product.getVersion() : 0L);
+        out.writeInt(product.getLowStockThreshold() != null ? product.getLowStockThreshold() : NO_THRESHOLD);
+        out.writeByte((product.isActive() ? ACTIVE : 0)
+                | (product.isLowStockAlerted() ? LOW_STOCK_ALERTED : 0)
+                | (InventoryService.tracksLocations(product) ? HAS_LOCATIONS : 0));
+        writeString(out, product.getId()); // Fixed at record offset + 29
+        writeString(out, product.getSku());
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        writeString(out, product.getCategory());
+        writeString(out, product.getImageUrl());
+        writeString(out, product.getPrice() != null ? product.getPrice().toPlainString() : null);
+    }
+
+    private Product readRecord(int offset) {
+        Product product = new Product();
+        product.setStockQuantity(buffer.getInt(offset));
+        product.setReservedQuantity(buffer.getInt(offset + 4));
+        product.setChangeSeq(buffer.getLong(offset + 8));
+        product.setVersion(buffer.getLong(offset + 16));
+        int threshold = buffer.getInt(offset + 24);
+        product.setLowStockThreshold(threshold == NO_THRESHOLD ? null : threshold);
+        int flags = buffer.get(offset + 28);
+        product.setActive((flags & ACTIVE) != 0);
+        product.setLowStockAlerted((flags & LOW_STOCK_ALERTED) != 0);
+
+        int position = offset + 29;
+        String[] strings = new String[7];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(position);
+            position += 4 + Math.max(0, buffer.getInt(position));
+        }
+        product.setId(strings[0]);
+        product.setSku(strings[1]);
+        product.setName(strings[2]);
+        product.setDescription(strings[3]);
+        product.setCategory(strings[4]);
+        product.setImageUrl(strings[5]);
+        product.setPrice(strings[6] != null ? new BigDecimal(strings[6]) : null);
+        return product;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(int position) {
+        int length = buffer.getInt(position);
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record IndexEntry(String id, int offset) {
+    }
+}
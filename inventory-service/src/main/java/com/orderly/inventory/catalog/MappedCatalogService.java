@@ -0,0 +1,194 @@
+package com.orderly.inventory.catalog;
+
+import com.orderly.inventory.cache.ProductChangedEvent;
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.ledger.StockMovement;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Off-heap warm tier for product reads, backed by a memory-mapped snapshot file.
+ *
+ * The file is rewritten periodically. On startup it is mapped right away and
+ * caught up: products with catalog writes since the snapshot's sequence are
+ * bypassed (read from MongoDB instead), and products with ledger entries since
+ * the snapshot was taken get their stock counters re-read and patched in place.
+ * After that, the ledger is followed on a short interval the same way, so
+ * stock served from the tier stays within the cache's staleness bound.
+ */
+@Service
+public class MappedCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedCatalogService.class);
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogSequence catalogSequence;
+    private final boolean enabled;
+    private final Path file;
+    private final Duration tailOverlap;
+
+    private volatile MappedCatalogFile catalog;
+    private volatile Instant stockSyncedTo;
+
+    // Products whose catalog fields changed after the mapped snapshot was written
+    private volatile Set<String> superseded = ConcurrentHashMap.newKeySet();
+
+    // Superseded set of a snapshot being mapped; collects changes from before its catch-up query on
+    private volatile Set<String> catchingUp;
+
+    public MappedCatalogService(MongoTemplate mongoTemplate,
+                                CatalogSequence catalogSequence,
+                                @Value("${inventory.catalog.warm-start.enabled:true}") boolean enabled,
+                                @Value("${inventory.catalog.warm-start.file:data/catalog-snapshot.bin}") Path file,
+                                @Value("${inventory.catalog.warm-start.tail-overlap:5s}") Duration tailOverlap) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogSequence = catalogSequence;
+        this.enabled = enabled;
+        this.file = file;
+        this.tailOverlap = tailOverlap;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            map(MappedCatalogFile.open(file));
+        } catch (NoSuchFileException e) {
+            log.info("No catalog snapshot at {} yet; starting cold", file);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Product from the mapped snapshot, unless it changed since or is not in it.
+     */
+    public Optional<Product> find(String productId) {
+        MappedCatalogFile current = catalog;
+        if (current == null || superseded.contains(productId)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current.find(productId));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.ChangeType.CATALOG) {
+            return;
+        }
+        // catchingUp first: map() swaps superseded in before clearing it, so no change falls between
+        Set<String> collecting = catchingUp;
+        if (collecting != null) {
+            collecting.addAll(event.getProductIds());
+        }
+        if (catalog != null) {
+            superseded.addAll(event.getProductIds());
+        }
+    }
+
+    /**
+     * Rewrite the snapshot from a cursor and remap it.
+     */
+    @Scheduled(fixedDelayString = "${inventory.catalog.warm-start.write-interval:PT10M}",
+            initialDelayString = "${inventory.catalog.warm-start.write-interval:PT10M}")
+    public void writeSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        // Both taken before the scan, so catch-up covers anything the scan raced with
+        Instant takenAt = Instant.now();
+        long seq = catalogSequence.current();
+
+        Query query = new Query().with(Sort.by("_id"));
+        query.cursorBatchSize(STREAM_BATCH_SIZE);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            int count;
+            try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+                count = MappedCatalogFile.write(file, products.iterator(), seq, takenAt);
+            }
+            map(MappedCatalogFile.open(file));
+            log.info("Wrote catalog snapshot of {} products at seq {} ({} bytes)", count, seq, Files.size(file));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write catalog snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Follow the ledger and refresh stock of products that moved.
+     */
+    @Scheduled(fixedDelayString = "${inventory.catalog.warm-start.tail-interval:PT1S}")
+    public void followLedger() {
+        MappedCatalogFile current = catalog;
+        if (current != null) {
+            stockSyncedTo = refreshStock(current, stockSyncedTo);
+        }
+    }
+
+    private void map(MappedCatalogFile mapped) {
+        // Catalog catch-up: one indexed query for ids written after the snapshot, plus any
+        // changes published while it runs (events are published after their write)
+        Set<String> changedIds = ConcurrentHashMap.newKeySet();
+        this.catchingUp = changedIds;
+        Query changed = new Query(Criteria.where("changeSeq").gt(mapped.getCatalogSeq()));
+        changed.fields().include("_id");
+        mongoTemplate.find(changed, Product.class).forEach(product -> changedIds.add(product.getId()));
+
+        Instant syncedTo = refreshStock(mapped, mapped.getWrittenAt());
+
+        // Swap only once caught up
+        this.superseded = changedIds;
+        this.catchingUp = null;
+        this.stockSyncedTo = syncedTo;
+        this.catalog = mapped;
+        log.info("Mapped catalog snapshot {} ({} products, seq {}, {} changed since)",
+                file, mapped.getCount(), mapped.getCatalogSeq(), changedIds.size());
+    }
+
+    /**
+     * Re-read stock for every product with ledger entries after {@code since}
+     * (minus an overlap for clock skew between writers) and patch it in place.
+     * Counters are re-read rather than summed from deltas, so overlaps are harmless.
+     */
+    private Instant refreshStock(MappedCatalogFile mapped, Instant since) {
+        Instant now = Instant.now();
+        List<String> moved = mongoTemplate.findDistinct(
+                new Query(Criteria.where("timestamp").gt(since.minus(tailOverlap))),
+                "productId", StockMovement.class, String.class);
+        if (moved.isEmpty()) {
+            return now;
+        }
+
+        Query query = new Query(Criteria.where("_id").in(moved));
+        query.fields().include("stockQuantity", "reservedQuantity", "version", "lowStockAlerted");
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            mapped.patchStock(product.getId(), product.getStockQuantity(), product.getReservedQuantity(),
+                    product.getVersion() != null ? product.getVersion() : 0L, product.isLowStockAlerted());
+        }
+        return now;
+    }
+}
@@ -0,0 +1,47 @@
+package com.orderly.inventory.catalog;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Availability for a batch of products as parallel arrays: entry {@code i}
+ * of {@code available}, {@code prices} and {@code active} belongs to
+ * {@code ids[i]}. Requested ids that do not exist are listed in {@code missing}.
+ */
+public class ProductAvailability {
+
+    private final String[] ids;
+    private final int[] available;
+    private final BigDecimal[] prices;
+    private final boolean[] active;
+    private final List<String> missing;
+
+    public ProductAvailability(String[] ids, int[] available, BigDecimal[] prices, boolean[] active,
+                               List<String> missing) {
+        this.ids = ids;
+        this.available = available;
+        this.prices = prices;
+        this.active = active;
+        this.missing = missing;
+    }
+
+    public String[] getIds() {
+        return ids;
+    }
+
+    public int[] getAvailable() {
+        return available;
+    }
+
+    public BigDecimal[] getPrices() {
+        return prices;
+    }
+
+    public boolean[] getActive() {
+        return active;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,88 @@
+package com.orderly.inventory.catalog;
+
+import com.orderly.inventory.cache.ProductCache;
+import com.orderly.inventory.entity.Product;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Availability, price and active state for many products at once, e.g. every
+ * line of a cart.
+ *
+ * Products already in the product cache are answered from it, with the same
+ * stock staleness bound as single-product reads. The rest are fetched in one
+ * {@code _id $in} query projected to the few fields needed; those partial
+ * products are never cached.
+ */
+@Service
+public class ProductAvailabilityService {
+
+    public static final int MAX_IDS = 500;
+
+    private final ProductCache productCache;
+    private final MongoTemplate mongoTemplate;
+
+    public ProductAvailabilityService(ProductCache productCache, MongoTemplate mongoTemplate) {
+        this.productCache = productCache;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @throws IllegalArgumentException if more than {@link #MAX_IDS} distinct ids are requested
+     */
+    public ProductAvailability lookup(Collection<String> productIds) {
+        Set<String> requested = new LinkedHashSet<>(productIds);
+        requested.remove(null);
+        if (requested.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " product ids per request");
+        }
+
+        Map<String, Product> found = new HashMap<>(productCache.peekProducts(requested));
+        if (found.size() < requested.size()) {
+            List<String> remaining = new ArrayList<>(requested.size() - found.size());
+            for (String productId : requested) {
+                if (!found.containsKey(productId)) {
+                    remaining.add(productId);
+                }
+            }
+            Query query = new Query(Criteria.where("_id").in(remaining));
+            query.fields().include("stockQuantity", "reservedQuantity", "price", "active");
+            for (Product product : mongoTemplate.find(query, Product.class)) {
+                found.put(product.getId(), product);
+            }
+        }
+
+        String[] ids = new String[found.size()];
+        int[] available = new int[found.size()];
+        BigDecimal[] prices = new BigDecimal[found.size()];
+        boolean[] active = new boolean[found.size()];
+        List<String> missing = new ArrayList<>(requested.size() - found.size());
+        int i = 0;
+        for (String productId : requested) {
+            Product product = found.get(productId);
+            if (product == null) {
+                missing.add(productId);
+                continue;
+            }
+            ids[i] = productId;
+            available[i] = product.getAvailableQuantity();
+            prices[i] = product.getPrice();
+            active[i] = product.isActive();
+            i++;
+        }
+        return new ProductAvailability(Arrays.copyOf(ids, i), Arrays.copyOf(available, i),
+                Arrays.copyOf(prices, i), Arrays.copyOf(active, i), missing);
+    }
+}
@@ -0,0 +1,190 @@
+package com.orderly.inventory.catalog;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderly.inventory.entity.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keyset-paginated and streaming product listings.
+ *
+ * Pages continue strictly after the sort key of the previous page's last
+ * product instead of skipping, so every page is an index range scan and
+ * memory use depends only on the page size. Listings that include inactive
+ * products filter on {@code active in [true, false]} so the same indexes
+ * still serve the sort.
+ */
+@Service
+public class ProductListingService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private static final Set<String> PROJECTABLE = Set.of(
+            "sku", "name", "description", "category", "price", "stockQuantity", "reservedQuantity",
+            "availableQuantity", "imageUrl", "active", "lowStockThreshold", "changeSeq", "version");
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ProductListingService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param cursor the previous page's {@code nextCursor}, or null for the first page
+     * @param fields fields to return besides id; empty for whole products
+     */
+    public ProductPage page(boolean includeInactive, ProductSort sort, String cursor, int limit, Set<String> fields) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        Criteria criteria = activeFilter(includeInactive);
+        if (cursor != null && !cursor.isBlank()) {
+            criteria = criteria.andOperator(after(sort, decodeCursor(cursor, sort)));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, sort.getFields()))
+                .limit(pageSize + 1);
+        project(query, fields, sort);
+
+        List<Product> products = mongoTemplate.find(query, Product.class);
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            nextCursor = encodeCursor(sort.keyOf(products.get(pageSize - 1)));
+        }
+        return new ProductPage(trim(products, fields), nextCursor);
+    }
+
+    /**
+     * Stream every product in _id order from a database cursor.
+     * The caller must close the stream.
+     */
+    public Stream<?> stream(boolean includeInactive, Set<String> fields) {
+        Query query = new Query(activeFilter(includeInactive)).with(Sort.by("_id"));
+        query.cursorBatchSize(STREAM_BATCH_SIZE);
+        project(query, fields, ProductSort.ID);
+
+        Stream<Product> products = mongoTemplate.stream(query, Product.class);
+        return fields.isEmpty() ? products : products.map(product -> trim(product, fields));
+    }
+
+    /**
+     * Parse a comma-separated field list, rejecting unknown fields.
+     */
+    public static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Set.of();
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || name.equals("id")) {
+                continue;
+            }
+            if (!PROJECTABLE.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            parsed.add(name);
+        }
+        return parsed;
+    }
+
+    private static Criteria activeFilter(boolean includeInactive) {
+        return includeInactive
+                ? Criteria.where("active").in(true, false)
+                : Criteria.where("active").is(true);
+    }
+
+    /**
+     * (k1 > v1) or (k1 = v1 and k2 > v2) or ... over the sort fields.
+     */
+    private static Criteria after(ProductSort sort, List<Object> key) {
+        String[] fields = sort.getFields();
+        List<Criteria> branches = new ArrayList<>(fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            List<Criteria> terms = new ArrayList<>(i + 1);
+            for (int j = 0; j < i; j++) {
+                terms.add(Criteria.where(fields[j]).is(key.get(j)));
+            }
+            // Nulls sort first, so everything non-null comes after a null key
+            Object value = key.get(i);
+            terms.add(value == null ? Criteria.where(fields[i]).ne(null) : Criteria.where(fields[i]).gt(value));
+            branches.add(terms.size() == 1 ? terms.get(0) : new Criteria().andOperator(terms));
+        }
+        return new Criteria().orOperator(branches);
+    }
+
+    private static void project(Query query, Set<String> fields, ProductSort sort) {
+        if (fields.isEmpty()) {
+            return;
+        }
+        for (String field : fields) {
+            if (field.equals("availableQuantity")) {
+                query.fields().include("stockQuantity", "reservedQuantity");
+            } else {
+                query.fields().include(field);
+            }
+        }
+        // The cursor is built from the sort key, so it is always loaded
+        for (String field : sort.getFields()) {
+            query.fields().include(field);
+        }
+    }
+
+    private List<?> trim(List<Product> products, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return products;
+        }
+        return products.stream().map(product -> trim(product, fields)).collect(Collectors.toList());
+    }
+
+    private Map<String, Object> trim(Product product, Set<String> fields) {
+        Map<String, Object> all = objectMapper.convertValue(product, new TypeReference<Map<String, Object>>() {});
+        Map<String, Object> trimmed = new LinkedHashMap<>();
+        trimmed.put("id", product.getId());
+        for (String field : fields) {
+            trimmed.put(field, all.get(field));
+        }
+        return trimmed;
+    }
+
+    private String encodeCursor(List<Object> key) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(key));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode page cursor", e);
+        }
+    }
+
+    private List<Object> decodeCursor(String cursor, ProductSort sort) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII));
+            List<Object> key = objectMapper.readValue(json, new TypeReference<List<Object>>() {});
+            if (key.size() != sort.getFields().length) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort.name().toLowerCase());
+            }
+            return key;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + e.getMessage());
+        }
+    }
+}
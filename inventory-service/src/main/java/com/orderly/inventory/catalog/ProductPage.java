@@ -0,0 +1,30 @@
+package com.orderly.inventory.catalog;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated product listing.
+ * Pass {@code nextCursor} back to fetch the following page; it is null on the last page.
+ */
+public class ProductPage {
+
+    private final List<?> items;
+    private final String nextCursor;
+
+    public ProductPage(List<?> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<?> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getSize() {
+        return items.size();
+    }
+}
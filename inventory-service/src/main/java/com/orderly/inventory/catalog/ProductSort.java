@@ -0,0 +1,51 @@
+package com.orderly.inventory.catalog;
+
+import com.orderly.inventory.entity.Product;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sort orders for keyset pagination. Each ends with _id so keys are unique,
+ * and each has a matching {active, ...fields} index on Product.
+ * Price is not offered: it is stored as a string and would sort lexically.
+ */
+public enum ProductSort {
+
+    ID("_id"),
+    NAME("name", "_id"),
+    CATEGORY("category", "name", "_id");
+
+    private final String[] fields;
+
+    ProductSort(String... fields) {
+        this.fields = fields;
+    }
+
+    public String[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Sort key of a product, in the same order as {@link #getFields()}.
+     */
+    List<Object> keyOf(Product product) {
+        return switch (this) {
+            case ID -> Arrays.asList(product.getId());
+            case NAME -> Arrays.asList(product.getName(), product.getId());
+            case CATEGORY -> Arrays.asList(product.getCategory(), product.getName(), product.getId());
+        };
+    }
+
+    public static ProductSort from(String value) {
+        if (value == null || value.isBlank()) {
+            return ID;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported sort: " + value
+                    + " (expected one of " + Arrays.toString(values()).toLowerCase() + ")");
+        }
+    }
+}
@@ -4,18 +4,35 @@ import com.orderly.common.events.OrderPlacedEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Kafka configuration for inventory service.
+ *
+ * Order events are consumed in batches inside Kafka transactions: the
+ * outcome events produced for a batch and the batch's consumed offsets are
+ * committed together, or neither is. Other sends (e.g. low-stock alerts) run
+ * outside transactions on the same template.
+ *
+ * Values that cannot be deserialized reach the listeners as null values
+ * rather than failing the poll, so they can be dead-lettered like any other
+ * failure.
  */
 @Configuration
 public class KafkaConfig {
@@ -26,21 +43,76 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${inventory.orders.batch-size:200}")
+    private int batchSize;
+
+    @Value("${inventory.orders.concurrency:3}")
+    private int concurrency;
+
+    @Value("${inventory.orders.transaction-id-prefix:inventory-tx-}")
+    private String transactionIdPrefix;
+
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(KafkaProperties kafkaProperties) {
+        DefaultKafkaProducerFactory<String, Object> factory =
+                new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(null));
+        // Unique per instance, so instances never fence each other's producers
+        factory.setTransactionIdPrefix(transactionIdPrefix + UUID.randomUUID() + "-");
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+        template.setAllowNonTransactional(true);
+        return template;
+    }
+
+    @Bean
+    public KafkaTransactionManager<String, Object> kafkaTransactionManager(
+            ProducerFactory<String, Object> producerFactory) {
+        KafkaTransactionManager<String, Object> transactionManager = new KafkaTransactionManager<>(producerFactory);
+        // Lets the consumer hook commit timing and post-commit work onto the transaction
+        transactionManager.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ALWAYS);
+        return transactionManager;
+    }
+
     @Bean
     public ConsumerFactory<String, OrderPlacedEvent> orderPlacedConsumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
 
         JsonDeserializer<OrderPlacedEvent> deserializer = new JsonDeserializer<>(OrderPlacedEvent.class, false);
         deserializer.addTrustedPackages("com.orderly.common.events");
 
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> kafkaListenerContainerFactory(
+            KafkaTransactionManager<String, Object> kafkaTransactionManager) {
+        ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(orderPlacedConsumerFactory());
+        factory.setBatchListener(true);
+        // One consumer thread per partition; more than the partition count would sit idle
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setTransactionManager(kafkaTransactionManager);
+        return factory;
     }
 
+    /**
+     * Record-at-a-time, non-transactional containers for the order retry topics;
+     * failures there are forwarded to the next retry topic by the error handler,
+     * which a transactional container would bypass.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> orderRetryListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(orderPlacedConsumerFactory());
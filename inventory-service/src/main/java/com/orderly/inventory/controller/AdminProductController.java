@@ -1,14 +1,25 @@
 package com.orderly.inventory.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.orderly.common.dto.ApiResponse;
+import com.orderly.inventory.catalog.ProductListingService;
+import com.orderly.inventory.catalog.ProductPage;
+import com.orderly.inventory.catalog.ProductSort;
 import com.orderly.inventory.entity.Product;
 import com.orderly.inventory.service.InventoryService;
+import com.orderly.inventory.warehouse.RoutingTable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Admin endpoints for product management.
@@ -18,10 +29,21 @@ import java.util.List;
 @RequestMapping("/api/admin/products")
 public class AdminProductController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final InventoryService inventoryService;
+    private final ProductListingService listingService;
+    private final ObjectMapper objectMapper;
+    private final RoutingTable routingTable;
 
-    public AdminProductController(InventoryService inventoryService) {
+    public AdminProductController(InventoryService inventoryService,
+                                  ProductListingService listingService,
+                                  ObjectMapper objectMapper,
+                                  RoutingTable routingTable) {
         this.inventoryService = inventoryService;
+        this.listingService = listingService;
+        this.objectMapper = objectMapper;
+        this.routingTable = routingTable;
     }
 
     @GetMapping
@@ -33,6 +55,47 @@ public class AdminProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<ProductPage>> getPage(
+            @RequestParam(required = false, defaultValue = "false") boolean includeInactive,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductListingService.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String fields) {
+        try {
+            ProductPage page = listingService.page(includeInactive, ProductSort.from(sort), cursor, limit,
+                    ProductListingService.parseFields(fields));
+            return ResponseEntity.ok(ApiResponse.success(page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Export the catalog as newline-delimited JSON, streamed from a database cursor.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> export(
+            @RequestParam(required = false, defaultValue = "true") boolean includeInactive,
+            @RequestParam(required = false) String fields) {
+        Set<String> projection;
+        try {
+            projection = ProductListingService.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        StreamingResponseBody body = out -> {
+            try (Stream<?> products = listingService.stream(includeInactive, projection);
+                 SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                Iterator<?> it = products.iterator();
+                while (it.hasNext()) {
+                    writer.write(it.next());
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<Product>> createProduct(@RequestBody Product product) {
         Product created = inventoryService.createProduct(product);
@@ -92,6 +155,28 @@ public class AdminProductController {
         }
     }
 
+    @PutMapping("/{productId}/locations/{warehouseId}")
+    public ResponseEntity<ApiResponse<Product>> setLocationStock(
+            @PathVariable String productId,
+            @PathVariable String warehouseId,
+            @RequestParam int quantity) {
+        if (!routingTable.contains(warehouseId)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Unknown warehouse: " + warehouseId));
+        }
+        if (quantity < 0) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Stock cannot be negative"));
+        }
+        try {
+            Product updated = inventoryService.setLocationStock(productId, warehouseId, quantity);
+            return ResponseEntity.ok(ApiResponse.success("Warehouse stock updated successfully", updated));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{productId}")
     public ResponseEntity<ApiResponse<Void>> deleteProduct(@PathVariable String productId) {
         try {
@@ -0,0 +1,69 @@
+package com.orderly.inventory.controller;
+
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.inventory.deadletter.DeadLetterRecord;
+import com.orderly.inventory.deadletter.DeadLetterService;
+import com.orderly.inventory.deadletter.ReplayResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Admin endpoints for inspecting and replaying Kafka dead-letter topics
+ * (any topic ending in {@code -dlt}, from any service).
+ * These endpoints require ADMIN role (enforced by API Gateway/Auth).
+ *
+ * Replays go to each record's original topic unless {@code target} is given;
+ * pass a service's own retry topic when the original topic has other
+ * consumers that should not see the events again.
+ */
+@RestController
+@RequestMapping("/api/admin/dlq")
+public class DeadLetterController {
+
+    private static final int MAX_LIMIT = 5000;
+
+    private final DeadLetterService deadLetterService;
+
+    public DeadLetterController(DeadLetterService deadLetterService) {
+        this.deadLetterService = deadLetterService;
+    }
+
+    @GetMapping("/{topic}")
+    public ResponseEntity<ApiResponse<List<DeadLetterRecord>>> peek(
+            @PathVariable String topic,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("limit must be between 1 and " + MAX_LIMIT));
+        }
+        try {
+            return ResponseEntity.ok(ApiResponse.success(deadLetterService.peek(topic, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{topic}/replay")
+    public ResponseEntity<ApiResponse<ReplayResult>> replay(
+            @PathVariable String topic,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(required = false) String target) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("limit must be between 1 and " + MAX_LIMIT));
+        }
+        try {
+            ReplayResult result = deadLetterService.replay(topic, limit, target);
+            return ResponseEntity.ok(ApiResponse.success("Replay completed", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (CompletionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Replay aborted, nothing committed: " + e.getCause().getMessage()));
+        }
+    }
+}
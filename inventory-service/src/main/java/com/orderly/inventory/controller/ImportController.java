@@ -0,0 +1,72 @@
+package com.orderly.inventory.controller;
+
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.inventory.importer.ImportFormat;
+import com.orderly.inventory.importer.ImportJob;
+import com.orderly.inventory.importer.ProductImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Admin endpoints for bulk catalog, stock and price files.
+ * Send the file as the raw request body with Content-Type text/csv or
+ * application/x-ndjson; poll the returned job for progress.
+ * These endpoints require ADMIN role (enforced by API Gateway/Auth).
+ */
+@RestController
+@RequestMapping("/api/admin/imports")
+public class ImportController {
+
+    private final ProductImportService importService;
+
+    public ImportController(ProductImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping("/products")
+    public ResponseEntity<ApiResponse<ImportJob>> importProducts(HttpServletRequest request) throws IOException {
+        return submit(ImportJob.JobType.PRODUCTS, request);
+    }
+
+    @PostMapping("/stock")
+    public ResponseEntity<ApiResponse<ImportJob>> importStock(HttpServletRequest request) throws IOException {
+        return submit(ImportJob.JobType.STOCK, request);
+    }
+
+    @PostMapping("/prices")
+    public ResponseEntity<ApiResponse<ImportJob>> importPrices(HttpServletRequest request) throws IOException {
+        return submit(ImportJob.JobType.PRICES, request);
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ImportJob>>> getRecentJobs() {
+        return ResponseEntity.ok(ApiResponse.success(importService.getRecentJobs()));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse<ImportJob>> getJob(@PathVariable String jobId) {
+        return importService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Import job not found: " + jobId)));
+    }
+
+    private ResponseEntity<ApiResponse<ImportJob>> submit(ImportJob.JobType type, HttpServletRequest request)
+            throws IOException {
+        ImportFormat format;
+        try {
+            format = ImportFormat.fromContentType(request.getContentType());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+        ImportJob job = importService.submit(type, format, request.getInputStream());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Import queued", job));
+    }
+}
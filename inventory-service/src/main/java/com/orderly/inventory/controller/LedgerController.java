@@ -0,0 +1,64 @@
+package com.orderly.inventory.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.inventory.ledger.StockLedger;
+import com.orderly.inventory.ledger.StockLevel;
+import com.orderly.inventory.ledger.StockMovement;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Read access to the inventory ledger for audits and reconciliation.
+ */
+@RestController
+@RequestMapping("/api/ledger")
+public class LedgerController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final StockLedger stockLedger;
+    private final ObjectMapper objectMapper;
+
+    public LedgerController(StockLedger stockLedger, ObjectMapper objectMapper) {
+        this.stockLedger = stockLedger;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/{productId}/level")
+    public ResponseEntity<ApiResponse<StockLevel>> getLevel(
+            @PathVariable String productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at) {
+        StockLevel level = at != null
+                ? stockLedger.levelAt(productId, at)
+                : stockLedger.currentLevel(productId);
+        return ResponseEntity.ok(ApiResponse.success(level));
+    }
+
+    /**
+     * Stream movements as newline-delimited JSON straight from the database cursor.
+     */
+    @GetMapping("/{productId}/history")
+    public ResponseEntity<StreamingResponseBody> getHistory(
+            @PathVariable String productId,
+            @RequestParam(defaultValue = "0") long fromSeq) {
+        StreamingResponseBody body = out -> {
+            try (Stream<StockMovement> movements = stockLedger.history(productId, fromSeq);
+                 SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                Iterator<StockMovement> it = movements.iterator();
+                while (it.hasNext()) {
+                    writer.write(it.next());
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
@@ -1,28 +1,103 @@
 package com.orderly.inventory.controller;
 
 import com.orderly.common.dto.ApiResponse;
+import com.orderly.inventory.catalog.CatalogChangeFeed;
+import com.orderly.inventory.catalog.CatalogChanges;
+import com.orderly.inventory.catalog.CatalogSnapshot;
+import com.orderly.inventory.catalog.CatalogSnapshotService;
+import com.orderly.inventory.catalog.ProductAvailability;
+import com.orderly.inventory.catalog.ProductAvailabilityService;
+import com.orderly.inventory.catalog.ProductListingService;
+import com.orderly.inventory.catalog.ProductPage;
+import com.orderly.inventory.catalog.ProductSort;
 import com.orderly.inventory.entity.Product;
 import com.orderly.inventory.service.InventoryService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
     private final InventoryService inventoryService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductListingService listingService;
+    private final CatalogChangeFeed changeFeed;
+    private final ProductAvailabilityService availabilityService;
 
-    public ProductController(InventoryService inventoryService) {
+    public ProductController(InventoryService inventoryService,
+                             CatalogSnapshotService catalogSnapshotService,
+                             ProductListingService listingService,
+                             CatalogChangeFeed changeFeed,
+                             ProductAvailabilityService availabilityService) {
         this.inventoryService = inventoryService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.listingService = listingService;
+        this.changeFeed = changeFeed;
+        this.availabilityService = availabilityService;
     }
 
+    /**
+     * Served from a pre-encoded snapshot; If-None-Match is answered without serializing.
+     */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Product>>> getAllProducts() {
-        List<Product> products = inventoryService.getAllProducts();
-        return ResponseEntity.ok(ApiResponse.success(products));
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return respond(catalogSnapshotService.activeProducts(), ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Keyset-paginated listing of active products.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<ProductPage>> getPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductListingService.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String fields) {
+        try {
+            ProductPage page = listingService.page(false, ProductSort.from(sort), cursor, limit,
+                    ProductListingService.parseFields(fields));
+            return ResponseEntity.ok(ApiResponse.success(page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Products created, updated or deactivated since a sync token, including inactive ones.
+     * Stock-only changes are not included.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<CatalogChanges>> getChanges(
+            @RequestParam(defaultValue = "0") String since,
+            @RequestParam(defaultValue = "" + CatalogChangeFeed.DEFAULT_LIMIT) int limit) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(changeFeed.changesSince(since, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Available quantity, price and active state for up to
+     * {@value ProductAvailabilityService#MAX_IDS} products in one call.
+     */
+    @PostMapping("/availability")
+    public ResponseEntity<ApiResponse<ProductAvailability>> getAvailability(@RequestBody List<String> productIds) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(availabilityService.lookup(productIds)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
 
     @GetMapping("/{productId}")
@@ -34,9 +109,11 @@ public class ProductController {
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<ApiResponse<List<Product>>> getByCategory(@PathVariable String category) {
-        List<Product> products = inventoryService.getProductsByCategory(category);
-        return ResponseEntity.ok(ApiResponse.success(products));
+    public ResponseEntity<byte[]> getByCategory(
+            @PathVariable String category,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return respond(catalogSnapshotService.category(category), ifNoneMatch, acceptEncoding);
     }
 
     @PostMapping
@@ -58,4 +135,81 @@ public class ProductController {
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    private static ResponseEntity<byte[]> respond(CatalogSnapshot snapshot, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = snapshot.getGzipBody() != null && acceptsGzip(acceptEncoding);
+        String etag = gzip ? snapshot.getGzipEtag() : snapshot.getEtag();
+
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipBody());
+        }
+        return response.body(snapshot.getBody());
+    }
+
+    /**
+     * Whether Accept-Encoding allows gzip: listed as gzip or x-gzip, or covered
+     * by "*", with a non-zero q-value. An explicit entry beats the wildcard.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQ = null;
+        Double wildcardQ = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = qValue(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQ = gzipQ == null ? q : Math.max(gzipQ, q);
+            } else if (coding.equals("*")) {
+                wildcardQ = q;
+            }
+        }
+        Double q = gzipQ != null ? gzipQ : wildcardQ;
+        return q != null && q > 0;
+    }
+
+    private static double qValue(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0; // Unparseable weight: don't pick this coding
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2); // If-None-Match uses weak comparison
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,50 @@
+package com.orderly.inventory.controller;
+
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.inventory.search.ProductReindexService;
+import com.orderly.inventory.search.ReindexJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin endpoints for rebuilding the product search index.
+ * These endpoints require ADMIN role (enforced by API Gateway/Auth).
+ */
+@RestController
+@RequestMapping("/api/admin/search/reindex")
+public class ReindexController {
+
+    private final ProductReindexService reindexService;
+
+    public ReindexController(@Autowired(required = false) ProductReindexService reindexService) {
+        this.reindexService = reindexService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<ReindexJob>> start() {
+        if (reindexService == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Elasticsearch is not enabled"));
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Reindex started", reindexService.start()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<ReindexJob>> getStatus() {
+        if (reindexService == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Elasticsearch is not enabled"));
+        }
+        return reindexService.getCurrentJob()
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("No reindex has run on this instance")));
+    }
+}
@@ -0,0 +1,78 @@
+package com.orderly.inventory.controller;
+
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.common.events.OrderPlacedEvent;
+import com.orderly.inventory.reservation.Reservation;
+import com.orderly.inventory.reservation.ReservationService;
+import com.orderly.inventory.service.OrderEventConsumer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reservations")
+public class ReservationController {
+
+    private static final int MAX_WAVE_SIZE = 2000;
+
+    private final ReservationService reservationService;
+    private final OrderEventConsumer orderEventConsumer;
+
+    public ReservationController(ReservationService reservationService, OrderEventConsumer orderEventConsumer) {
+        this.reservationService = reservationService;
+        this.orderEventConsumer = orderEventConsumer;
+    }
+
+    /**
+     * Reserve all lines of an order now. Idempotent per order id: repeating
+     * it, or the order's ORDER_PLACED event arriving later, reserves nothing twice.
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<ReservationService.ReservationResult>> reserve(
+            @RequestBody OrderPlacedEvent event) {
+        if (event.getOrderId() == null || event.getItems() == null || event.getItems().isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("orderId and items are required"));
+        }
+        ReservationService.ReservationResult result = orderEventConsumer.reserveDirect(event);
+        return ResponseEntity.ok(ApiResponse.success(result.isReserved() ? "Order reserved" : "Order rejected",
+                result));
+    }
+
+    /**
+     * Deduct the stock of a pick wave's orders as they ship, in one call per
+     * wave. Idempotent per order; the data maps each shipped order to its units.
+     */
+    @PostMapping("/fulfill")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> fulfill(@RequestBody FulfillRequest request) {
+        if (request.orderIds() == null || request.orderIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("orderIds are required"));
+        }
+        if (request.orderIds().size() > MAX_WAVE_SIZE) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("At most " + MAX_WAVE_SIZE + " orders per wave"));
+        }
+        Map<String, Integer> shipped = reservationService.fulfill(request.orderIds(), request.waveId());
+        return ResponseEntity.ok(ApiResponse.success("Stock deducted", shipped));
+    }
+
+    @GetMapping("/{orderId}")
+    public ResponseEntity<ApiResponse<List<Reservation>>> getReservations(@PathVariable String orderId) {
+        return ResponseEntity.ok(ApiResponse.success(reservationService.getReservations(orderId)));
+    }
+
+    @PostMapping("/{orderId}/confirm")
+    public ResponseEntity<ApiResponse<Integer>> confirm(@PathVariable String orderId) {
+        int confirmed = reservationService.confirm(orderId);
+        return ResponseEntity.ok(ApiResponse.success("Reservations confirmed", confirmed));
+    }
+
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<ApiResponse<Integer>> release(@PathVariable String orderId) {
+        int released = reservationService.release(orderId);
+        return ResponseEntity.ok(ApiResponse.success("Reservations released", released));
+    }
+
+    public record FulfillRequest(String waveId, List<String> orderIds) {
+    }
+}
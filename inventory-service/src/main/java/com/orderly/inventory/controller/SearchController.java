@@ -2,28 +2,46 @@ package com.orderly.inventory.controller;
 
 import com.orderly.common.dto.ApiResponse;
 import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.search.FacetedSearchResult;
+import com.orderly.inventory.search.LocalSearchIndex;
 import com.orderly.inventory.search.ProductDocument;
 import com.orderly.inventory.search.ProductSearchService;
+import com.orderly.inventory.search.ProductSuggestion;
+import com.orderly.inventory.search.SearchResultCache;
 import com.orderly.inventory.service.InventoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/search")
 public class SearchController {
 
+    private static final int MAX_LOCAL_RESULTS = 100;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ProductSearchService searchService;
+    private final LocalSearchIndex localIndex;
+    private final SearchResultCache searchCache;
     private final InventoryService inventoryService;
 
     @Autowired
     public SearchController(@Autowired(required = false) ProductSearchService searchService,
+                           @Autowired(required = false) LocalSearchIndex localIndex,
+                           SearchResultCache searchCache,
                            InventoryService inventoryService) {
         this.searchService = searchService;
+        this.localIndex = localIndex;
+        this.searchCache = searchCache;
         this.inventoryService = inventoryService;
     }
 
@@ -36,11 +54,21 @@ public class SearchController {
 
         // If Elasticsearch is available, use it
         if (searchService != null) {
-            List<ProductDocument> results = searchService.searchWithFilters(q, category, minPrice, maxPrice);
+            List<ProductDocument> results = searchCache.get(q, category, minPrice, maxPrice,
+                    query -> searchService.searchWithFilters(query, category, minPrice, maxPrice));
             return ResponseEntity.ok(ApiResponse.success(results));
         }
-        
-        // Fallback to simple database search
+
+        // Otherwise the embedded index, resolving hits through the product cache
+        if (localIndex != null && localIndex.isReady()) {
+            List<Product> results = localIndex.search(q, category, minPrice, maxPrice, MAX_LOCAL_RESULTS).stream()
+                    .map(inventoryService::getProduct)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(ApiResponse.success(results));
+        }
+
+        // Fallback to simple database search while the index loads
         List<Product> allProducts = inventoryService.getAllProducts();
         List<Product> filtered = allProducts.stream()
                 .filter(p -> p.getName().toLowerCase().contains(q.toLowerCase()) ||
@@ -49,21 +77,72 @@ public class SearchController {
         return ResponseEntity.ok(ApiResponse.success(filtered));
     }
 
+    /**
+     * One page of hits with category and price facets. Pass the returned
+     * {@code nextCursor} back as {@code cursor} for the following page.
+     */
+    @GetMapping("/faceted")
+    public ResponseEntity<ApiResponse<FacetedSearchResult>> facetedSearch(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int limit,
+            @RequestParam(defaultValue = "25") double priceInterval) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || priceInterval <= 0) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("limit must be 1-" + MAX_PAGE_SIZE + " and priceInterval positive"));
+        }
+        try {
+            if (searchService != null) {
+                return ResponseEntity.ok(ApiResponse.success(
+                        searchService.facetedSearch(q, category, minPrice, maxPrice, cursor, limit, priceInterval)));
+            }
+
+            if (localIndex != null && localIndex.isReady()) {
+                FacetedSearchResult page = localIndex.facetedSearch(q, category, minPrice, maxPrice,
+                        cursor, limit, priceInterval);
+                List<Product> products = page.getItems().stream()
+                        .map(id -> inventoryService.getProduct((String) id))
+                        .flatMap(Optional::stream)
+                        .collect(Collectors.toList());
+                return ResponseEntity.ok(ApiResponse.success(page.withItems(products)));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Search index is loading"));
+    }
+
+    /**
+     * Autocomplete: ids and names of active products, optionally within a category.
+     */
     @GetMapping("/suggestions")
-    public ResponseEntity<ApiResponse<List<String>>> getSuggestions(@RequestParam String q) {
+    public ResponseEntity<ApiResponse<List<ProductSuggestion>>> getSuggestions(
+            @RequestParam String q,
+            @RequestParam(required = false) String category) {
         // If Elasticsearch is available, use it
         if (searchService != null) {
-            List<String> suggestions = searchService.getSuggestions(q);
-            return ResponseEntity.ok(ApiResponse.success(suggestions));
+            return ResponseEntity.ok(ApiResponse.success(searchService.suggest(q, category, MAX_SUGGESTIONS)));
+        }
+
+        if (localIndex != null && localIndex.isReady()) {
+            return ResponseEntity.ok(ApiResponse.success(localIndex.suggest(q, category, MAX_SUGGESTIONS)));
         }
-        
-        // Fallback to simple database search
-        List<Product> products = inventoryService.getAllProducts();
-        List<String> suggestions = products.stream()
-                .filter(p -> p.getName().toLowerCase().contains(q.toLowerCase()))
-                .map(Product::getName)
-                .distinct()
-                .limit(10)
+
+        // Fallback to simple database search while the index loads
+        List<Product> products = category == null || category.isBlank()
+                ? inventoryService.getAllProducts()
+                : inventoryService.getProductsByCategory(category);
+        Set<String> names = new HashSet<>();
+        List<ProductSuggestion> suggestions = products.stream()
+                .filter(p -> p.isActive() && p.getName().toLowerCase().contains(q.toLowerCase()))
+                .filter(p -> names.add(p.getName()))
+                .map(p -> new ProductSuggestion(p.getId(), p.getName()))
+                .limit(MAX_SUGGESTIONS)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(ApiResponse.success(suggestions));
     }
@@ -0,0 +1,81 @@
+package com.orderly.inventory.deadletter;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * One record on a dead-letter topic, with the failure recorded in its headers.
+ * The value is the raw payload as published.
+ */
+public class DeadLetterRecord {
+
+    private final String topic;
+    private final int partition;
+    private final long offset;
+    private final String key;
+    private final String value;
+    private final Instant timestamp;
+    private final String originalTopic;
+    private final String exceptionClass;
+    private final String exceptionMessage;
+
+    DeadLetterRecord(ConsumerRecord<String, String> record) {
+        this.topic = record.topic();
+        this.partition = record.partition();
+        this.offset = record.offset();
+        this.key = record.key();
+        this.value = record.value();
+        this.timestamp = Instant.ofEpochMilli(record.timestamp());
+        this.originalTopic = DeadLetterService.originalTopic(record);
+        this.exceptionClass = lastHeader(record, KafkaHeaders.DLT_EXCEPTION_FQCN);
+        this.exceptionMessage = lastHeader(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE);
+    }
+
+    private static String lastHeader(ConsumerRecord<String, String> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * The topic the record was first consumed from before it started failing.
+     */
+    public String getOriginalTopic() {
+        return originalTopic;
+    }
+
+    public String getExceptionClass() {
+        return exceptionClass;
+    }
+
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+}
@@ -0,0 +1,179 @@
+package com.orderly.inventory.deadletter;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Inspects and replays dead-letter topics.
+ *
+ * Both operations read from the position of a dedicated consumer group, so
+ * inspecting shows what has not been replayed yet and a replay picks up where
+ * the last one stopped. A replay republishes the raw payloads, then commits
+ * the group's offsets past them; if any send fails nothing is committed and
+ * the next replay repeats the whole run.
+ */
+@Service
+public class DeadLetterService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterService.class);
+
+    private static final String DLT_SUFFIX = "-dlt";
+
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final KafkaTemplate<String, String> replayTemplate;
+    private final Duration pollTimeout;
+
+    public DeadLetterService(KafkaProperties kafkaProperties,
+                             @Value("${inventory.dlq.replay-group:inventory-dlq-replay}") String replayGroup,
+                             @Value("${inventory.dlq.poll-timeout:2s}") Duration pollTimeout) {
+        Map<String, Object> consumerProps = kafkaProperties.buildConsumerProperties(null);
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, replayGroup);
+        consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        this.consumerFactory = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer());
+        this.replayTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null), new StringSerializer(), new StringSerializer()));
+        this.pollTimeout = pollTimeout;
+    }
+
+    /**
+     * Up to {@code limit} records not yet replayed, oldest first per partition.
+     */
+    public List<DeadLetterRecord> peek(String topic, int limit) {
+        try (Consumer<String, String> consumer = open(topic)) {
+            return read(consumer, limit).stream()
+                    .map(DeadLetterRecord::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Republish up to {@code limit} records not yet replayed, each to
+     * {@code target} or else to the topic it was first consumed from.
+     */
+    public synchronized ReplayResult replay(String topic, int limit, String target) {
+        try (Consumer<String, String> consumer = open(topic)) {
+            List<ConsumerRecord<String, String>> records = read(consumer, limit);
+            Map<String, Integer> replayed = new LinkedHashMap<>();
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            int skipped = 0;
+            for (ConsumerRecord<String, String> record : records) {
+                offsets.put(new TopicPartition(record.topic(), record.partition()),
+                        new OffsetAndMetadata(record.offset() + 1));
+                String destination = target != null ? target : originalTopic(record);
+                if (destination == null || record.value() == null) {
+                    skipped++;
+                    continue;
+                }
+                sends.add(replayTemplate.send(new ProducerRecord<>(destination, null, record.key(), record.value(),
+                        replayHeaders(record.headers()))));
+                replayed.merge(destination, 1, Integer::sum);
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+            consumer.commitSync(offsets);
+            log.info("Replayed {} records from {} ({} skipped): {}", sends.size(), topic, skipped, replayed);
+            return new ReplayResult(topic, replayed, skipped);
+        }
+    }
+
+    private Consumer<String, String> open(String topic) {
+        if (topic == null || !topic.endsWith(DLT_SUFFIX)) {
+            throw new IllegalArgumentException("Not a dead-letter topic: " + topic);
+        }
+        Consumer<String, String> consumer = consumerFactory.createConsumer();
+        List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
+        List<TopicPartition> partitions = partitionInfos == null ? List.of() : partitionInfos.stream()
+                .map(info -> new TopicPartition(topic, info.partition()))
+                .collect(Collectors.toList());
+        consumer.assign(partitions);
+
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(partitions));
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata position = committed.get(partition);
+            if (position != null) {
+                consumer.seek(partition, position.offset());
+            } else {
+                consumer.seekToBeginning(List.of(partition));
+            }
+        }
+        return consumer;
+    }
+
+    private List<ConsumerRecord<String, String>> read(Consumer<String, String> consumer, int limit) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        if (consumer.assignment().isEmpty()) {
+            return records;
+        }
+        while (records.size() < limit) {
+            ConsumerRecords<String, String> polled = consumer.poll(pollTimeout);
+            if (polled.isEmpty()) {
+                break;
+            }
+            for (ConsumerRecord<String, String> record : polled) {
+                if (records.size() == limit) {
+                    break;
+                }
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * The record's headers without the failure bookkeeping, so a replayed
+     * record starts its retries afresh.
+     */
+    private static Headers replayHeaders(Headers headers) {
+        Headers replay = new RecordHeaders();
+        for (Header header : headers) {
+            String key = header.key();
+            if (!key.startsWith(KafkaHeaders.PREFIX + "dlt-") && !key.startsWith("retry_topic-")
+                    && !key.startsWith(SerializationUtils.DESERIALIZER_EXCEPTION_HEADER_PREFIX)) {
+                replay.add(header);
+            }
+        }
+        return replay;
+    }
+
+    static String originalTopic(ConsumerRecord<String, String> record) {
+        // Each hop through a retry topic may add its own; the first is where the record started
+        Iterator<Header> headers = record.headers().headers(KafkaHeaders.DLT_ORIGINAL_TOPIC).iterator();
+        return headers.hasNext() ? new String(headers.next().value(), StandardCharsets.UTF_8) : null;
+    }
+}
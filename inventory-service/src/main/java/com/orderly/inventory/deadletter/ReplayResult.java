@@ -0,0 +1,12 @@
+package com.orderly.inventory.deadletter;
+
+import java.util.Map;
+
+/**
+ * Outcome of replaying a dead-letter topic.
+ *
+ * @param replayed records republished, per destination topic
+ * @param skipped  records passed over because they had no value or no known destination
+ */
+public record ReplayResult(String topic, Map<String, Integer> replayed, int skipped) {
+}
@@ -0,0 +1,49 @@
+package com.orderly.inventory.entity;
+
+/**
+ * A product's stock at one warehouse. Embedded in {@link Product}; the
+ * product's own quantities are the totals over its locations.
+ */
+public class LocationStock {
+
+    private String warehouseId;
+    private int stockQuantity;
+    private int reservedQuantity;
+
+    public LocationStock() {
+    }
+
+    public LocationStock(String warehouseId, int stockQuantity, int reservedQuantity) {
+        this.warehouseId = warehouseId;
+        this.stockQuantity = stockQuantity;
+        this.reservedQuantity = reservedQuantity;
+    }
+
+    public String getWarehouseId() {
+        return warehouseId;
+    }
+
+    public void setWarehouseId(String warehouseId) {
+        this.warehouseId = warehouseId;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public int getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public void setReservedQuantity(int reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+
+    public int getAvailableQuantity() {
+        return stockQuantity - reservedQuantity;
+    }
+}
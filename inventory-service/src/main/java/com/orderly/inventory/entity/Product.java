@@ -1,13 +1,28 @@
 package com.orderly.inventory.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.orderly.common.events.InventoryLowStockEvent;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Document(collection = "products")
+@CompoundIndexes({
+        // Keyset pagination, see ProductSort
+        @CompoundIndex(name = "active_id", def = "{'active': 1, '_id': 1}"),
+        @CompoundIndex(name = "active_name_id", def = "{'active': 1, 'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "active_category_name_id", def = "{'active': 1, 'category': 1, 'name': 1, '_id': 1}"),
+        // Delta sync, see CatalogChangeFeed
+        @CompoundIndex(name = "changeSeq_id", def = "{'changeSeq': 1, '_id': 1}"),
+        // Unacknowledged low-stock alerts, see LowStockDetector
+        @CompoundIndex(name = "pendingLowStockAlert", def = "{'pendingLowStockAlert.detectedAt': 1}", sparse = true)
+})
 public class Product {
 
     @Id
@@ -22,8 +37,22 @@ public class Product {
     private BigDecimal price;
     private int stockQuantity;
     private int reservedQuantity;
+    private List<LocationStock> locations; // Per-warehouse split of the two totals above; null if not tracked
     private String imageUrl;
     private boolean active;
+    private Integer lowStockThreshold; // Overrides the category/default threshold when set
+
+    private Long changeSeq; // Catalog sequence of the last catalog (non-stock) write
+
+    @JsonIgnore
+    @Indexed
+    private boolean lowStockAlerted; // A LOW alert is out and no RECOVERED yet, see LowStockDetector
+
+    @JsonIgnore
+    private InventoryLowStockEvent pendingLowStockAlert; // Last crossing until Kafka acknowledges it
+
+    @JsonIgnore
+    private List<String> appliedReservations; // Most recent reservation ids, see InventoryService.reserveStockOnce
 
     @Version
     private Long version; // For optimistic locking
@@ -114,6 +143,69 @@ public class Product {
         this.active = active;
     }
 
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public List<LocationStock> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(List<LocationStock> locations) {
+        this.locations = locations;
+    }
+
+    /**
+     * Stock at one warehouse, or null if the product has none recorded there.
+     */
+    public LocationStock getLocation(String warehouseId) {
+        if (locations == null) {
+            return null;
+        }
+        for (LocationStock location : locations) {
+            if (location.getWarehouseId().equals(warehouseId)) {
+                return location;
+            }
+        }
+        return null;
+    }
+
+    public boolean isLowStockAlerted() {
+        return lowStockAlerted;
+    }
+
+    public void setLowStockAlerted(boolean lowStockAlerted) {
+        this.lowStockAlerted = lowStockAlerted;
+    }
+
+    public InventoryLowStockEvent getPendingLowStockAlert() {
+        return pendingLowStockAlert;
+    }
+
+    public void setPendingLowStockAlert(InventoryLowStockEvent pendingLowStockAlert) {
+        this.pendingLowStockAlert = pendingLowStockAlert;
+    }
+
+    public List<String> getAppliedReservations() {
+        return appliedReservations;
+    }
+
+    public void setAppliedReservations(List<String> appliedReservations) {
+        this.appliedReservations = appliedReservations;
+    }
+
     public Long getVersion() {
         return version;
     }
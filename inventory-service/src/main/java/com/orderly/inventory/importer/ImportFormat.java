@@ -0,0 +1,53 @@
+package com.orderly.inventory.importer;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Supported import file formats. Both are read one record at a time.
+ */
+public enum ImportFormat {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final String contentType;
+
+    ImportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            for (ImportFormat format : values()) {
+                if (contentType.toLowerCase().startsWith(format.contentType)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType
+                + " (expected text/csv or application/x-ndjson)");
+    }
+
+    /**
+     * Open a lazy record iterator. CSV files must start with a header row.
+     */
+    <T> MappingIterator<T> open(Reader reader, Class<T> rowType, ObjectMapper jsonMapper) throws IOException {
+        if (this == CSV) {
+            CsvSchema schema = CsvSchema.emptySchema().withHeader().withNullValue("");
+            return CSV_MAPPER.readerFor(rowType).with(schema).readValues(reader);
+        }
+        return jsonMapper.readerFor(rowType).readValues(reader);
+    }
+}
@@ -0,0 +1,167 @@
+package com.orderly.inventory.importer;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of one bulk import. Counters are bumped after every chunk, so the
+ * job can be polled from any instance while the file is still being processed.
+ */
+@Document(collection = "import_jobs")
+public class ImportJob {
+
+    public static final int MAX_ERRORS = 100;
+
+    @Id
+    private String id;
+
+    private JobType type;
+    private ImportFormat format;
+    private JobStatus status;
+
+    private long processed;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private List<String> errors = new ArrayList<>(); // First MAX_ERRORS rejections only
+
+    private String failureReason;
+
+    @Indexed(expireAfter = "7d")
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    public ImportJob() {
+    }
+
+    public ImportJob(JobType type, ImportFormat format) {
+        this.type = type;
+        this.format = format;
+        this.status = JobStatus.QUEUED;
+        this.createdAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public void setType(JobType type) {
+        this.type = type;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(ImportFormat format) {
+        this.format = format;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public enum JobType {
+        PRODUCTS,
+        STOCK,
+        PRICES
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
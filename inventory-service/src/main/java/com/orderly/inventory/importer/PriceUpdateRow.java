@@ -0,0 +1,48 @@
+package com.orderly.inventory.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a bulk price update.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PriceUpdateRow {
+
+    private String sku;
+    private BigDecimal price;
+
+    public PriceUpdateRow() {
+    }
+
+    /**
+     * @return a rejection reason, or null if the row can be applied
+     */
+    public String validate() {
+        if (sku == null || sku.isBlank()) {
+            return "sku is required";
+        }
+        if (price == null || price.signum() < 0) {
+            return "price must be zero or positive";
+        }
+        return null;
+    }
+
+    // Getters and Setters
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
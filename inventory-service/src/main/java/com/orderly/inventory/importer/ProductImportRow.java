@@ -0,0 +1,117 @@
+package com.orderly.inventory.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.math.BigDecimal;
+
+/**
+ * One product line of a catalog import, keyed by SKU.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductImportRow {
+
+    private String sku;
+    private String name;
+    private String description;
+    private String category;
+    private BigDecimal price;
+    private Integer stockQuantity; // Only applied when the SKU is new
+    private String imageUrl;
+    private Boolean active;
+    private Integer lowStockThreshold;
+
+    public ProductImportRow() {
+    }
+
+    /**
+     * @return a rejection reason, or null if the row can be imported
+     */
+    public String validate() {
+        if (sku == null || sku.isBlank()) {
+            return "sku is required";
+        }
+        if (name == null || name.isBlank()) {
+            return "name is required";
+        }
+        if (price == null || price.signum() < 0) {
+            return "price must be zero or positive";
+        }
+        if (stockQuantity != null && stockQuantity < 0) {
+            return "stockQuantity cannot be negative";
+        }
+        return null;
+    }
+
+    // Getters and Setters
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+}
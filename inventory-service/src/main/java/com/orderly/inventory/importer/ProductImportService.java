@@ -0,0 +1,450 @@
+package com.orderly.inventory.importer;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.orderly.inventory.cache.ProductChangedEvent;
+import com.orderly.inventory.catalog.CatalogSequence;
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.ledger.StockLedger;
+import com.orderly.inventory.ledger.StockMovement;
+import com.orderly.inventory.lowstock.LowStockDetector;
+import com.orderly.inventory.repository.ProductRepository;
+import com.orderly.inventory.service.InventoryService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams product, stock and price files into MongoDB in bulk.
+ *
+ * Uploads are spooled to a temp file and processed on a small worker pool.
+ * Records are parsed one at a time and written in chunks, so memory stays
+ * bounded by the chunk size whatever the file size. Each chunk is one bulk
+ * write keyed by SKU, one ledger insert and one bulk index request.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+    private static final int MAX_CONSECUTIVE_PARSE_FAILURES = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final StockLedger stockLedger;
+    private final LowStockDetector lowStockDetector;
+    private final CatalogSequence catalogSequence;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final ExecutorService workers;
+
+    @Autowired
+    public ProductImportService(MongoTemplate mongoTemplate,
+                                ProductRepository productRepository,
+                                StockLedger stockLedger,
+                                LowStockDetector lowStockDetector,
+                                CatalogSequence catalogSequence,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${inventory.import.chunk-size:1000}") int chunkSize,
+                                @Value("${inventory.import.workers:2}") int workerCount) {
+        this.mongoTemplate = mongoTemplate;
+        this.productRepository = productRepository;
+        this.stockLedger = stockLedger;
+        this.lowStockDetector = lowStockDetector;
+        this.catalogSequence = catalogSequence;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "product-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Spool the upload to disk and queue it. Returns as soon as the body is stored.
+     */
+    public ImportJob submit(ImportJob.JobType type, ImportFormat format, InputStream body) throws IOException {
+        Path spool = Files.createTempFile("import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ImportJob job = mongoTemplate.insert(new ImportJob(type, format));
+        workers.execute(() -> run(job.getId(), type, format, spool));
+        log.info("Queued {} import job {} ({} bytes)", type, job.getId(), Files.size(spool));
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(mongoTemplate.findById(jobId, ImportJob.class));
+    }
+
+    public List<ImportJob> getRecentJobs() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "createdAt")).limit(20);
+        return mongoTemplate.find(query, ImportJob.class);
+    }
+
+    private void run(String jobId, ImportJob.JobType type, ImportFormat format, Path spool) {
+        mongoTemplate.updateFirst(byId(jobId),
+                new Update().set("status", ImportJob.JobStatus.RUNNING).set("startedAt", Instant.now()),
+                ImportJob.class);
+
+        try (Reader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            switch (type) {
+                case PRODUCTS -> process(jobId, reader, format, ProductImportRow.class,
+                        ProductImportRow::validate, ProductImportRow::getSku, this::upsertProducts);
+                case STOCK -> process(jobId, reader, format, StockUpdateRow.class,
+                        StockUpdateRow::validate, StockUpdateRow::getSku, this::applyStockUpdates);
+                case PRICES -> process(jobId, reader, format, PriceUpdateRow.class,
+                        PriceUpdateRow::validate, PriceUpdateRow::getSku, this::applyPriceUpdates);
+            }
+            finish(jobId, ImportJob.JobStatus.COMPLETED, null);
+            log.info("Import job {} completed", jobId);
+        } catch (Exception e) {
+            finish(jobId, ImportJob.JobStatus.FAILED, e.getMessage());
+            log.error("Import job {} failed: {}", jobId, e.getMessage(), e);
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Failed to delete import spool file {}: {}", spool, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Parse, validate and hand rows to the writer one chunk at a time.
+     * Within a chunk the last row for a SKU wins.
+     */
+    private <T> void process(String jobId, Reader reader, ImportFormat format, Class<T> rowType,
+                             Function<T, String> validator, Function<T, String> skuOf,
+                             ChunkWriter<T> writer) throws IOException {
+        Map<String, T> chunk = new LinkedHashMap<>();
+        ChunkProgress progress = new ChunkProgress();
+        int consecutiveFailures = 0;
+
+        try (MappingIterator<T> rows = format.open(reader, rowType, objectMapper)) {
+            while (true) {
+                long line = lineOf(rows.getCurrentLocation());
+                T row;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    line = lineOf(rows.getCurrentLocation());
+                    row = rows.nextValue();
+                    consecutiveFailures = 0;
+                } catch (IOException | RuntimeException e) {
+                    progress.reject("line " + line + ": unreadable record (" + e.getMessage() + ")");
+                    if (++consecutiveFailures > MAX_CONSECUTIVE_PARSE_FAILURES) {
+                        throw new IllegalStateException("Too many consecutive unreadable records near line " + line);
+                    }
+                    continue;
+                }
+
+                String error = validator.apply(row);
+                if (error != null) {
+                    progress.reject("line " + line + ": " + error);
+                    continue;
+                }
+                progress.processed++;
+                chunk.put(skuOf.apply(row).trim(), row);
+
+                if (chunk.size() >= chunkSize) {
+                    writer.write(jobId, new ArrayList<>(chunk.values()), progress);
+                    saveProgress(jobId, progress);
+                    chunk.clear();
+                    progress = new ChunkProgress();
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            writer.write(jobId, new ArrayList<>(chunk.values()), progress);
+        }
+        saveProgress(jobId, progress);
+    }
+
+    /**
+     * Upsert products by SKU. Catalog fields are overwritten; stock is only
+     * set when the SKU is new, and is recorded in the ledger as received.
+     */
+    private void upsertProducts(String jobId, List<ProductImportRow> rows, ChunkProgress progress) {
+        long changeSeq = catalogSequence.next();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (ProductImportRow row : rows) {
+            Update update = new Update()
+                    .set("name", row.getName())
+                    .set("price", row.getPrice())
+                    .set("changeSeq", changeSeq)
+                    .inc("version", 1)
+                    .setOnInsert("stockQuantity", row.getStockQuantity() != null ? row.getStockQuantity() : 0)
+                    .setOnInsert("reservedQuantity", 0);
+            if (row.getDescription() != null) {
+                update.set("description", row.getDescription());
+            }
+            if (row.getCategory() != null) {
+                update.set("category", row.getCategory());
+            }
+            if (row.getImageUrl() != null) {
+                update.set("imageUrl", row.getImageUrl());
+            }
+            if (row.getLowStockThreshold() != null) {
+                update.set("lowStockThreshold", row.getLowStockThreshold());
+            }
+            if (row.getActive() != null) {
+                update.set("active", row.getActive());
+            } else {
+                update.setOnInsert("active", true);
+            }
+            bulk.upsert(new Query(Criteria.where("sku").is(row.getSku().trim())), update);
+        }
+
+        BulkWriteResult result = execute(bulk, rows, ProductImportRow::getSku, progress);
+        progress.inserted += result.getUpserts().size();
+        progress.updated += result.getMatchedCount();
+
+        String reference = "import:" + jobId;
+        List<StockMovement> received = new ArrayList<>();
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            Integer stock = rows.get(upsert.getIndex()).getStockQuantity();
+            if (stock != null && stock > 0) {
+                String productId = upsert.getId().asObjectId().getValue().toHexString();
+                received.add(new StockMovement(productId, StockMovement.MovementType.RECEIVE, stock, 0, reference));
+            }
+        }
+        stockLedger.recordAll(received);
+
+        afterWrite(productRepository.findBySkuIn(skus(rows, ProductImportRow::getSku)),
+                ProductChangedEvent.ChangeType.CATALOG);
+    }
+
+    /**
+     * Apply stock changes by SKU. Positive adjustments commute, so they go out
+     * as one bulk $inc. Absolute quantities and decrements need the exact
+     * previous value for the ledger and the non-negative check, so those are
+     * applied one findAndModify at a time. Products that keep stock per
+     * warehouse are rejected: their total only moves with a warehouse's stock.
+     */
+    private void applyStockUpdates(String jobId, List<StockUpdateRow> rows, ChunkProgress progress) {
+        Map<String, Product> bySku = productRepository.findBySkuIn(skus(rows, StockUpdateRow::getSku)).stream()
+                .collect(Collectors.toMap(Product::getSku, Function.identity()));
+        String reference = "import:" + jobId;
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        List<StockMovement> movements = new ArrayList<>();
+        int bulkCount = 0;
+
+        for (StockUpdateRow row : rows) {
+            Product product = bySku.get(row.getSku().trim());
+            if (product == null) {
+                progress.reject(row.getSku() + ": unknown sku");
+                continue;
+            }
+            if (InventoryService.tracksLocations(product)) {
+                progress.reject(row.getSku() + ": stock is kept per warehouse");
+                continue;
+            }
+
+            if (row.getAdjustment() != null && row.getAdjustment() >= 0) {
+                bulk.updateOne(new Query(Criteria.where("_id").is(product.getId()).and("locations.0").exists(false)),
+                        new Update().inc("stockQuantity", row.getAdjustment()).inc("version", 1));
+                movements.add(new StockMovement(product.getId(), StockMovement.MovementType.ADJUST,
+                        row.getAdjustment(), 0, reference));
+                bulkCount++;
+                continue;
+            }
+
+            Criteria criteria = Criteria.where("_id").is(product.getId()).and("locations.0").exists(false);
+            Update update;
+            if (row.getQuantity() != null) {
+                update = new Update().set("stockQuantity", row.getQuantity()).inc("version", 1);
+            } else {
+                criteria = criteria.and("stockQuantity").gte(-row.getAdjustment());
+                update = new Update().inc("stockQuantity", row.getAdjustment()).inc("version", 1);
+            }
+            Product previous = mongoTemplate.findAndModify(new Query(criteria), update,
+                    FindAndModifyOptions.options().returnNew(false), Product.class);
+            if (previous == null) {
+                progress.reject(row.getSku() + ": stock cannot be negative");
+                continue;
+            }
+            if (row.getQuantity() != null) {
+                movements.add(new StockMovement(product.getId(), StockMovement.MovementType.SET,
+                        row.getQuantity() - previous.getStockQuantity(), 0, reference));
+            } else {
+                movements.add(new StockMovement(product.getId(), StockMovement.MovementType.ADJUST,
+                        row.getAdjustment(), 0, reference));
+            }
+            progress.updated++;
+        }
+
+        if (bulkCount > 0) {
+            progress.updated += bulk.execute().getMatchedCount();
+        }
+        movements.removeIf(m -> m.getStockDelta() == 0);
+        stockLedger.recordAll(movements);
+
+        afterWrite(productRepository.findAllById(bySku.values().stream()
+                .map(Product::getId)
+                .collect(Collectors.toList())), ProductChangedEvent.ChangeType.STOCK);
+    }
+
+    private void applyPriceUpdates(String jobId, List<PriceUpdateRow> rows, ChunkProgress progress) {
+        long changeSeq = catalogSequence.next();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (PriceUpdateRow row : rows) {
+            bulk.updateOne(new Query(Criteria.where("sku").is(row.getSku().trim())),
+                    new Update().set("price", row.getPrice()).set("changeSeq", changeSeq).inc("version", 1));
+        }
+        BulkWriteResult result = execute(bulk, rows, PriceUpdateRow::getSku, progress);
+        progress.updated += result.getMatchedCount();
+
+        List<Product> products = productRepository.findBySkuIn(skus(rows, PriceUpdateRow::getSku));
+        if (products.size() < rows.size()) {
+            Set<String> found = products.stream().map(Product::getSku).collect(Collectors.toSet());
+            for (PriceUpdateRow row : rows) {
+                if (!found.contains(row.getSku().trim())) {
+                    progress.reject(row.getSku() + ": unknown sku");
+                }
+            }
+        }
+        afterWrite(products, ProductChangedEvent.ChangeType.CATALOG);
+    }
+
+    private <T> BulkWriteResult execute(BulkOperations bulk, List<T> rows, Function<T, String> skuOf,
+                                        ChunkProgress progress) {
+        try {
+            return bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                progress.reject(skuOf.apply(rows.get(error.getIndex())) + ": " + error.getMessage());
+            }
+            return e.getResult();
+        }
+    }
+
+    /**
+     * Post-write work for a chunk: one change event (cache invalidation and
+     * search indexing) and low-stock checks.
+     */
+    private void afterWrite(List<Product> products, ProductChangedEvent.ChangeType changeType) {
+        if (!products.isEmpty()) {
+            List<String> ids = products.stream().map(Product::getId).collect(Collectors.toList());
+            eventPublisher.publishEvent(changeType == ProductChangedEvent.ChangeType.CATALOG
+                    ? ProductChangedEvent.catalog(ids, products.stream().map(Product::getCategory).collect(Collectors.toSet()))
+                    : ProductChangedEvent.stock(ids));
+        }
+        products.forEach(lowStockDetector::evaluate);
+    }
+
+    private void saveProgress(String jobId, ChunkProgress progress) {
+        Update update = new Update()
+                .inc("processed", progress.processed)
+                .inc("inserted", progress.inserted)
+                .inc("updated", progress.updated)
+                .inc("rejected", progress.rejected);
+        if (!progress.errors.isEmpty()) {
+            update.push("errors").slice(ImportJob.MAX_ERRORS).each(progress.errors.toArray());
+        }
+        mongoTemplate.updateFirst(byId(jobId), update, ImportJob.class);
+    }
+
+    private void finish(String jobId, ImportJob.JobStatus status, String failureReason) {
+        Update update = new Update().set("status", status).set("finishedAt", Instant.now());
+        if (failureReason != null) {
+            update.set("failureReason", failureReason);
+        }
+        mongoTemplate.updateFirst(byId(jobId), update, ImportJob.class);
+    }
+
+    private static Query byId(String jobId) {
+        return new Query(Criteria.where("_id").is(jobId));
+    }
+
+    private static long lineOf(JsonLocation location) {
+        return location != null ? location.getLineNr() : -1;
+    }
+
+    private static <T> Collection<String> skus(List<T> rows, Function<T, String> skuOf) {
+        Set<String> skus = new HashSet<>(rows.size());
+        for (T row : rows) {
+            skus.add(skuOf.apply(row).trim());
+        }
+        return skus;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(String jobId, List<T> rows, ChunkProgress progress);
+    }
+
+    /**
+     * Counter deltas accumulated for one chunk, flushed to the job with $inc.
+     */
+    private static class ChunkProgress {
+        long processed;
+        long inserted;
+        long updated;
+        long rejected;
+        final List<String> errors = new ArrayList<>();
+
+        void reject(String error) {
+            rejected++;
+            if (errors.size() < ImportJob.MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.orderly.inventory.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * One line of a bulk stock update: either an absolute quantity or a relative adjustment.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StockUpdateRow {
+
+    private String sku;
+    private Integer quantity;
+    private Integer adjustment;
+
+    public StockUpdateRow() {
+    }
+
+    /**
+     * @return a rejection reason, or null if the row can be applied
+     */
+    public String validate() {
+        if (sku == null || sku.isBlank()) {
+            return "sku is required";
+        }
+        if ((quantity == null) == (adjustment == null)) {
+            return "exactly one of quantity or adjustment is required";
+        }
+        if (quantity != null && quantity < 0) {
+            return "quantity cannot be negative";
+        }
+        return null;
+    }
+
+    // Getters and Setters
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Integer getAdjustment() {
+        return adjustment;
+    }
+
+    public void setAdjustment(Integer adjustment) {
+        this.adjustment = adjustment;
+    }
+}
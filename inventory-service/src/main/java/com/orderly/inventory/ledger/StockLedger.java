@@ -0,0 +1,315 @@
+package com.orderly.inventory.ledger;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.orderly.inventory.entity.Product;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only inventory ledger.
+ *
+ * Every stock change is a small insert with a per-product sequence number.
+ * Levels are computed from the latest snapshot plus the deltas after it, so
+ * reads never have to fold the whole history. Stock that predates the ledger
+ * enters it as an opening-balance snapshot at sequence 0.
+ */
+@Service
+public class StockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+    private static final String LEDGER = "inventory_ledger";
+    private static final int MAX_APPEND_ATTEMPTS = 5;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int OPENING_BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    // Last sequence number handed out per product on this instance
+    private final Map<String, AtomicLong> heads = new ConcurrentHashMap<>();
+
+    // Products with entries appended since the last snapshot run
+    private volatile Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public StockLedger(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Append a single movement.
+     *
+     * @throws IllegalStateException if no free sequence number was found, so
+     *         the caller fails instead of the ledger drifting from the counters
+     */
+    public void record(String productId, StockMovement.MovementType type,
+                       int stockDelta, int reservedDelta, String reference) {
+        if (stockDelta == 0 && reservedDelta == 0) {
+            return;
+        }
+        append(new StockMovement(productId, type, stockDelta, reservedDelta, reference));
+    }
+
+    /**
+     * Append many movements with one unordered bulk insert.
+     */
+    public void recordAll(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        for (StockMovement movement : movements) {
+            movement.setSeq(nextSeq(movement.getProductId()));
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockMovement.class)
+                    .insert(movements)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Another instance took some of the sequence numbers; append those one by one
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                StockMovement movement = movements.get(error.getIndex());
+                movement.setId(null);
+                append(movement);
+            }
+        }
+        movements.forEach(m -> dirty.add(m.getProductId()));
+    }
+
+    /**
+     * Current levels: latest snapshot plus all deltas after it.
+     */
+    public StockLevel currentLevel(String productId) {
+        StockSnapshot snapshot = latestSnapshot(productId, null);
+        return fold(productId, snapshot, null);
+    }
+
+    /**
+     * Levels as they were at the given instant.
+     */
+    public StockLevel levelAt(String productId, Instant at) {
+        StockSnapshot snapshot = latestSnapshot(productId, at);
+        return fold(productId, snapshot, at);
+    }
+
+    /**
+     * Stream a product's history in sequence order, starting after {@code fromSeq}.
+     * The caller must close the stream.
+     */
+    public Stream<StockMovement> history(String productId, long fromSeq) {
+        Query query = new Query(Criteria.where("productId").is(productId).and("seq").gt(fromSeq))
+                .with(Sort.by("seq"));
+        query.cursorBatchSize(1000);
+        return mongoTemplate.stream(query, StockMovement.class);
+    }
+
+    /**
+     * Periodically fold new entries of recently changed products into snapshots.
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.snapshot-interval:PT5M}")
+    public void snapshotDirtyProducts() {
+        Set<String> products = dirty;
+        dirty = ConcurrentHashMap.newKeySet();
+        if (products.isEmpty()) {
+            return;
+        }
+
+        int written = 0;
+        for (String productId : products) {
+            try {
+                if (takeSnapshot(productId)) {
+                    written++;
+                }
+            } catch (Exception e) {
+                dirty.add(productId);
+                log.warn("Failed to snapshot ledger for product {}: {}", productId, e.getMessage());
+            }
+        }
+        log.info("Wrote {} ledger snapshots", written);
+    }
+
+    /**
+     * Backfill opening balances. Products that held stock before the ledger
+     * existed have no entries for it, so folding them from zero would report
+     * none. Each product with neither entries nor snapshots gets a sequence-0
+     * snapshot of its current counters; products with history are left alone,
+     * so this is a no-op once every product has been opened.
+     *
+     * Runs while this bean is initialised, which is before anything that
+     * writes stock on this instance (services depending on the ledger, the
+     * reservation wheel, listener containers, the web server) can start.
+     * Counters are read before history is checked, so an instance that
+     * already opened a product and then wrote to it is never double-counted.
+     */
+    @PostConstruct
+    public void openMissingBalances() {
+        Query query = new Query().with(Sort.by("_id"));
+        query.fields().include("stockQuantity", "reservedQuantity");
+        query.cursorBatchSize(OPENING_BATCH);
+
+        int opened = 0;
+        List<Product> batch = new ArrayList<>(OPENING_BATCH);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == OPENING_BATCH || !iterator.hasNext()) {
+                    opened += openBalances(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (opened > 0) {
+            log.info("Wrote opening ledger balances for {} products", opened);
+        }
+    }
+
+    private int openBalances(List<Product> products) {
+        List<String> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
+        // Raw field names: see the @Field mappings on StockMovement
+        Set<String> known = new HashSet<>(mongoTemplate.findDistinct(
+                new Query(Criteria.where("p").in(productIds)), "p", LEDGER, String.class));
+        known.addAll(mongoTemplate.findDistinct(
+                new Query(Criteria.where("productId").in(productIds)), "productId", StockSnapshot.class, String.class));
+
+        List<StockSnapshot> opening = products.stream()
+                .filter(product -> !known.contains(product.getId()))
+                .filter(product -> product.getStockQuantity() != 0 || product.getReservedQuantity() != 0)
+                .map(product -> new StockSnapshot(product.getId(), 0L,
+                        product.getStockQuantity(), product.getReservedQuantity(), Instant.EPOCH))
+                .collect(Collectors.toList());
+        if (opening.isEmpty()) {
+            return 0;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockSnapshot.class)
+                    .insert(opening)
+                    .execute();
+            return opening.size();
+        } catch (BulkOperationException e) {
+            // Another instance opened some of them first
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            return opening.size() - e.getErrors().size();
+        }
+    }
+
+    private boolean takeSnapshot(String productId) {
+        StockSnapshot previous = latestSnapshot(productId, null);
+        StockLevel level = fold(productId, previous, null);
+        if (previous != null && level.getSeq() == previous.getSeq()) {
+            return false;
+        }
+
+        try {
+            mongoTemplate.insert(new StockSnapshot(productId, level.getSeq(),
+                    level.getStockQuantity(), level.getReservedQuantity(), Instant.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false; // Another instance snapshotted the same sequence
+        }
+    }
+
+    private void append(StockMovement movement) {
+        for (int attempt = 1; attempt <= MAX_APPEND_ATTEMPTS; attempt++) {
+            movement.setSeq(nextSeq(movement.getProductId()));
+            try {
+                mongoTemplate.insert(movement);
+                dirty.add(movement.getProductId());
+                return;
+            } catch (DuplicateKeyException e) {
+                movement.setId(null);
+                resync(movement.getProductId());
+            }
+        }
+        throw new IllegalStateException("Failed to append ledger entry for product "
+                + movement.getProductId() + " after " + MAX_APPEND_ATTEMPTS + " attempts");
+    }
+
+    private long nextSeq(String productId) {
+        return heads.computeIfAbsent(productId, id -> new AtomicLong(loadHead(id))).incrementAndGet();
+    }
+
+    private void resync(String productId) {
+        long stored = loadHead(productId);
+        heads.computeIfAbsent(productId, id -> new AtomicLong()).accumulateAndGet(stored, Math::max);
+    }
+
+    private long loadHead(String productId) {
+        Query query = new Query(Criteria.where("productId").is(productId))
+                .with(Sort.by(Sort.Direction.DESC, "seq"))
+                .limit(1);
+        query.fields().include("seq");
+        StockMovement last = mongoTemplate.findOne(query, StockMovement.class);
+        return last != null ? last.getSeq() : 0L;
+    }
+
+    private StockSnapshot latestSnapshot(String productId, Instant at) {
+        Criteria criteria = Criteria.where("productId").is(productId);
+        if (at != null) {
+            criteria = criteria.and("takenAt").lte(at);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "seq")).limit(1);
+        return mongoTemplate.findOne(query, StockSnapshot.class);
+    }
+
+    /**
+     * Sum the deltas after a snapshot server-side.
+     */
+    private StockLevel fold(String productId, StockSnapshot snapshot, Instant at) {
+        long fromSeq = snapshot != null ? snapshot.getSeq() : 0L;
+        int stock = snapshot != null ? snapshot.getStockQuantity() : 0;
+        int reserved = snapshot != null ? snapshot.getReservedQuantity() : 0;
+
+        // Raw field names: see the @Field mappings on StockMovement
+        Criteria criteria = Criteria.where("p").is(productId).and("s").gt(fromSeq);
+        if (at != null) {
+            criteria = criteria.and("ts").lte(at);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group()
+                        .sum("ds").as("stock")
+                        .sum("dr").as("reserved")
+                        .max("s").as("seq"));
+        List<Document> results = new ArrayList<>(
+                mongoTemplate.aggregate(aggregation, LEDGER, Document.class).getMappedResults());
+
+        long seq = fromSeq;
+        if (!results.isEmpty()) {
+            Document totals = results.get(0);
+            stock += totals.get("stock", Number.class).intValue();
+            reserved += totals.get("reserved", Number.class).intValue();
+            seq = totals.get("seq", Number.class).longValue();
+        }
+        return new StockLevel(productId, seq, stock, reserved, at != null ? at : Instant.now());
+    }
+}
@@ -0,0 +1,50 @@
+package com.orderly.inventory.ledger;
+
+import java.time.Instant;
+
+/**
+ * Stock levels of a product as derived from the ledger.
+ */
+public class StockLevel {
+
+    private String productId;
+    private long seq;
+    private int stockQuantity;
+    private int reservedQuantity;
+    private Instant asOf;
+
+    public StockLevel() {
+    }
+
+    public StockLevel(String productId, long seq, int stockQuantity, int reservedQuantity, Instant asOf) {
+        this.productId = productId;
+        this.seq = seq;
+        this.stockQuantity = stockQuantity;
+        this.reservedQuantity = reservedQuantity;
+        this.asOf = asOf;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public int getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public int getAvailableQuantity() {
+        return stockQuantity - reservedQuantity;
+    }
+
+    public Instant getAsOf() {
+        return asOf;
+    }
+}
@@ -0,0 +1,130 @@
+package com.orderly.inventory.ledger;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * One append-only entry in the inventory ledger.
+ * Field names are kept short on disk because the collection grows with every
+ * stock change. Sequence numbers are dense per product, starting at 1.
+ */
+@Document(collection = "inventory_ledger")
+@CompoundIndex(name = "product_seq", def = "{'p': 1, 's': 1}", unique = true)
+public class StockMovement {
+
+    @Id
+    private String id;
+
+    @Field("p")
+    private String productId;
+
+    @Field("s")
+    private long seq;
+
+    @Field("t")
+    private MovementType type;
+
+    @Field("ds")
+    private int stockDelta;
+
+    @Field("dr")
+    private int reservedDelta;
+
+    @Field("r")
+    private String reference; // Order id or admin action, if any
+
+    @Indexed
+    @Field("ts")
+    private Instant timestamp;
+
+    public StockMovement() {
+    }
+
+    public StockMovement(String productId, MovementType type, int stockDelta, int reservedDelta, String reference) {
+        this.productId = productId;
+        this.type = type;
+        this.stockDelta = stockDelta;
+        this.reservedDelta = reservedDelta;
+        this.reference = reference;
+        this.timestamp = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public MovementType getType() {
+        return type;
+    }
+
+    public void setType(MovementType type) {
+        this.type = type;
+    }
+
+    public int getStockDelta() {
+        return stockDelta;
+    }
+
+    public void setStockDelta(int stockDelta) {
+        this.stockDelta = stockDelta;
+    }
+
+    public int getReservedDelta() {
+        return reservedDelta;
+    }
+
+    public void setReservedDelta(int reservedDelta) {
+        this.reservedDelta = reservedDelta;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public enum MovementType {
+        RECEIVE,   // Initial stock when a product is created
+        SET,       // Stock overwritten by an admin (recorded as the delta)
+        ADJUST,    // Relative stock adjustment
+        RESERVE,
+        RELEASE,
+        DEDUCT     // Reserved stock converted into an actual deduction
+    }
+}
@@ -0,0 +1,84 @@
+package com.orderly.inventory.ledger;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Stock levels of a product folded over all ledger entries up to {@code seq}.
+ */
+@Document(collection = "inventory_snapshots")
+@CompoundIndex(name = "product_seq", def = "{'productId': 1, 'seq': -1}", unique = true)
+public class StockSnapshot {
+
+    @Id
+    private String id;
+
+    private String productId;
+    private long seq;
+    private int stockQuantity;
+    private int reservedQuantity;
+    private Instant takenAt;
+
+    public StockSnapshot() {
+    }
+
+    public StockSnapshot(String productId, long seq, int stockQuantity, int reservedQuantity, Instant takenAt) {
+        this.productId = productId;
+        this.seq = seq;
+        this.stockQuantity = stockQuantity;
+        this.reservedQuantity = reservedQuantity;
+        this.takenAt = takenAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public int getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public void setReservedQuantity(int reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(Instant takenAt) {
+        this.takenAt = takenAt;
+    }
+}
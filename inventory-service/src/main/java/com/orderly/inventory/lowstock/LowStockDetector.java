@@ -0,0 +1,271 @@
+package com.orderly.inventory.lowstock;
+
+import com.orderly.common.constants.KafkaTopics;
+import com.orderly.common.events.InventoryLowStockEvent;
+import com.orderly.inventory.entity.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Evaluates low stock inline on every stock mutation.
+ *
+ * Only threshold crossings produce events: a product goes LOW when available
+ * stock drops to its threshold and RECOVERED once it climbs past the threshold
+ * plus the recovery margin. Crossings are coalesced per product and flushed
+ * to {@link KafkaTopics#INVENTORY_LOW_STOCK} on a short schedule.
+ *
+ * Whether a product is alerted lives on the product ({@code lowStockAlerted}),
+ * so it survives restarts and is shared by all instances. A crossing is
+ * emitted only by the instance whose conditional update flips that flag, and
+ * the same update stores the event on the product until Kafka acknowledges it.
+ */
+@Component
+public class LowStockDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockDetector.class);
+    private static final String OUTBOX = "pendingLowStockAlert";
+    private static final int RESEND_BATCH_SIZE = 500;
+
+    private final LowStockProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    // Latest unsent crossing per product
+    private final Map<String, InventoryLowStockEvent> pending = new ConcurrentHashMap<>();
+
+    // Sent (or cancelled) crossings whose outbox entries the next flush clears
+    private final Queue<InventoryLowStockEvent> acknowledged = new ConcurrentLinkedQueue<>();
+
+    private final Counter lowCounter;
+    private final Counter recoveredCounter;
+    private final Timer emitLatency;
+
+    public LowStockDetector(LowStockProperties properties,
+                            MongoTemplate mongoTemplate,
+                            KafkaTemplate<String, Object> kafkaTemplate,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+
+        Gauge.builder("inventory.low_stock.products", mongoTemplate,
+                        template -> template.count(alerted(), Product.class))
+                .description("Products currently below their low-stock threshold")
+                .register(meterRegistry);
+        this.lowCounter = meterRegistry.counter("inventory.low_stock.events", "state", "low");
+        this.recoveredCounter = meterRegistry.counter("inventory.low_stock.events", "state", "recovered");
+        this.emitLatency = Timer.builder("inventory.low_stock.emit.latency")
+                .description("Time from detecting a threshold crossing to the broker acknowledging it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check a product against its threshold using the state a mutation just wrote.
+     * The flag on that document decides whether a flip is worth attempting, so
+     * products that stay on the same side of the threshold cost no extra write.
+     */
+    public void evaluate(Product product) {
+        if (product == null) {
+            return;
+        }
+        if (!product.isActive()) {
+            if (product.isLowStockAlerted()) {
+                flip(product.getId(), false, null); // Dropped silently, no RECOVERED for an inactive product
+            }
+            return;
+        }
+
+        int threshold = thresholdFor(product);
+        int available = product.getAvailableQuantity();
+        if (available <= threshold) {
+            if (!product.isLowStockAlerted()) {
+                flip(product.getId(), true, crossing(product, threshold, InventoryLowStockEvent.StockState.LOW));
+            }
+        } else if (available > threshold + properties.getRecoveryMargin()) {
+            if (product.isLowStockAlerted()) {
+                flip(product.getId(), false,
+                        crossing(product, threshold, InventoryLowStockEvent.StockState.RECOVERED));
+            }
+        }
+    }
+
+    /**
+     * Re-check products after a mutation that did not return their documents.
+     * Only products currently alerted can change state, so only those are loaded.
+     */
+    public void evaluateRecovery(Collection<String> productIds) {
+        mongoTemplate.find(alerted().addCriteria(Criteria.where("_id").in(productIds)), Product.class)
+                .forEach(this::evaluate);
+    }
+
+    /**
+     * Set the product's alert flag if it is not already set that way, storing
+     * the crossing's event on the product in the same write. That stored event
+     * is the outbox: it is cleared once Kafka acknowledges it, and re-sent by
+     * {@link #resendUnacknowledged} if the instance that queued it goes away.
+     * Only the caller whose write flips the flag queues the event.
+     */
+    private void flip(String productId, boolean alerted, InventoryLowStockEvent event) {
+        Criteria criteria = Criteria.where("_id").is(productId);
+        criteria = alerted ? criteria.and("lowStockAlerted").ne(true) : criteria.and("lowStockAlerted").is(true);
+        Update update = new Update().set("lowStockAlerted", alerted).inc("version", 1);
+        if (event != null) {
+            update.set(OUTBOX, event);
+        } else {
+            update.unset(OUTBOX);
+        }
+        Product previous = mongoTemplate.findAndModify(new Query(criteria), update, Product.class);
+        if (previous == null) {
+            return; // Already flipped by another caller, which owns the crossing
+        }
+
+        InventoryLowStockEvent unsent = previous.getPendingLowStockAlert();
+        boolean withdrawn = unsent != null && withdraw(productId, unsent.getEventId());
+        if (event == null) {
+            return;
+        }
+        if (withdrawn) {
+            // A crossing back before the previous one was sent cancels both out
+            acknowledged.add(event);
+            return;
+        }
+        pending.put(productId, event);
+    }
+
+    /**
+     * Take a crossing out of this instance's queue if it has not been sent yet.
+     */
+    private boolean withdraw(String productId, String eventId) {
+        InventoryLowStockEvent queued = pending.get(productId);
+        return queued != null && queued.getEventId().equals(eventId) && pending.remove(productId, queued);
+    }
+
+    private static Query alerted() {
+        return new Query(Criteria.where("lowStockAlerted").is(true));
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.low-stock.flush-interval:PT1S}")
+    public void flush() {
+        for (String productId : pending.keySet()) {
+            InventoryLowStockEvent event = pending.remove(productId);
+            if (event != null) {
+                publish(event);
+            }
+        }
+        clearAcknowledged();
+    }
+
+    /**
+     * Queue again crossings whose outbox entry outlived the resend delay:
+     * the instance that flipped them stopped before Kafka acknowledged them.
+     * The event keeps its id, so consumers can drop a duplicate.
+     */
+    @Scheduled(fixedDelayString = "${inventory.low-stock.resend-after:PT30S}")
+    public void resendUnacknowledged() {
+        Query query = new Query(Criteria.where(OUTBOX + ".detectedAt")
+                .lt(Instant.now().minus(properties.getResendAfter())))
+                .limit(RESEND_BATCH_SIZE);
+        query.fields().include(OUTBOX);
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            pending.putIfAbsent(product.getId(), product.getPendingLowStockAlert());
+        }
+    }
+
+    /**
+     * Clear the outbox entries of acknowledged (or cancelled) crossings with
+     * one bulk write; an entry replaced by a newer crossing is left alone.
+     */
+    private void clearAcknowledged() {
+        List<InventoryLowStockEvent> done = new ArrayList<>();
+        InventoryLowStockEvent event;
+        while ((event = acknowledged.poll()) != null) {
+            done.add(event);
+        }
+        if (done.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (InventoryLowStockEvent sent : done) {
+            bulk.updateOne(new Query(Criteria.where("_id").is(sent.getProductId())
+                            .and(OUTBOX + ".eventId").is(sent.getEventId())),
+                    new Update().unset(OUTBOX));
+        }
+        bulk.execute();
+    }
+
+    private static InventoryLowStockEvent crossing(Product product, int threshold,
+                                                   InventoryLowStockEvent.StockState state) {
+        InventoryLowStockEvent event = new InventoryLowStockEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setProductId(product.getId());
+        event.setSku(product.getSku());
+        event.setProductName(product.getName());
+        event.setCategory(product.getCategory());
+        event.setAvailableQuantity(product.getAvailableQuantity());
+        event.setThreshold(threshold);
+        event.setState(state);
+        event.setDetectedAt(Instant.now());
+        return event;
+    }
+
+    private void publish(InventoryLowStockEvent event) {
+        event.setTimestamp(Instant.now());
+
+        kafkaTemplate.send(KafkaTopics.INVENTORY_LOW_STOCK, event.getProductId(), event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to publish InventoryLowStockEvent for product {}: {}",
+                                event.getProductId(), ex.getMessage());
+                        pending.putIfAbsent(event.getProductId(), event); // Retry on the next flush
+                        return;
+                    }
+                    acknowledged.add(event);
+                    emitLatency.record(Duration.between(event.getDetectedAt(), Instant.now()));
+                    if (event.getState() == InventoryLowStockEvent.StockState.LOW) {
+                        lowCounter.increment();
+                    } else {
+                        recoveredCounter.increment();
+                    }
+                    log.info("Published {} stock alert for product {} (available={}, threshold={})",
+                            event.getState(), event.getProductId(),
+                            event.getAvailableQuantity(), event.getThreshold());
+                });
+    }
+
+    private int thresholdFor(Product product) {
+        if (product.getLowStockThreshold() != null) {
+            return product.getLowStockThreshold();
+        }
+        if (product.getCategory() != null) {
+            Integer categoryThreshold = properties.getCategories().get(product.getCategory());
+            if (categoryThreshold != null) {
+                return categoryThreshold;
+            }
+        }
+        return properties.getDefaultThreshold();
+    }
+}
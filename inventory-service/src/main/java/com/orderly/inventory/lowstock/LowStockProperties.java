@@ -0,0 +1,59 @@
+package com.orderly.inventory.lowstock;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Low-stock thresholds. A product's own threshold wins over its category's,
+ * which wins over the default.
+ */
+@Component
+@ConfigurationProperties(prefix = "inventory.low-stock")
+public class LowStockProperties {
+
+    private int defaultThreshold = 10;
+
+    // Available stock must rise this far above the threshold before an alert clears
+    private int recoveryMargin = 5;
+
+    // Alerts Kafka has not acknowledged after this long are sent again (e.g. their instance died)
+    private Duration resendAfter = Duration.ofSeconds(30);
+
+    private Map<String, Integer> categories = new HashMap<>();
+
+    public int getDefaultThreshold() {
+        return defaultThreshold;
+    }
+
+    public void setDefaultThreshold(int defaultThreshold) {
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    public int getRecoveryMargin() {
+        return recoveryMargin;
+    }
+
+    public void setRecoveryMargin(int recoveryMargin) {
+        this.recoveryMargin = recoveryMargin;
+    }
+
+    public Duration getResendAfter() {
+        return resendAfter;
+    }
+
+    public void setResendAfter(Duration resendAfter) {
+        this.resendAfter = resendAfter;
+    }
+
+    public Map<String, Integer> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<String, Integer> categories) {
+        this.categories = categories;
+    }
+}
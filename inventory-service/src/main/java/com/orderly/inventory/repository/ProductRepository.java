@@ -4,6 +4,7 @@ import com.orderly.inventory.entity.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +13,8 @@ public interface ProductRepository extends MongoRepository<Product, String> {
 
     Optional<Product> findBySku(String sku);
 
+    List<Product> findBySkuIn(Collection<String> skus);
+
     List<Product> findByCategory(String category);
 
     List<Product> findByActiveTrue();
@@ -0,0 +1,204 @@
+package com.orderly.inventory.reservation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for coarse-grained timeouts.
+ *
+ * Scheduling and cancelling are O(1) and lock-free for callers: both go through
+ * queues that the single wheel thread drains on every tick. All timeouts that
+ * fall due in the same tick are handed to the expiry handler as one batch.
+ */
+public class HashedTimingWheel<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Set<Timeout<T>>> buckets;
+    private final Consumer<List<T>> expiryHandler;
+
+    private final Queue<Timeout<T>> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final ScheduledExecutorService ticker;
+    private long startMillis;
+    private long currentTick;
+
+    public HashedTimingWheel(String name, Duration tickDuration, int wheelSize,
+                             Consumer<List<T>> expiryHandler) {
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = Math.max(1, tickDuration.toMillis());
+        this.mask = wheelSize - 1;
+        this.expiryHandler = expiryHandler;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new LinkedHashSet<>());
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        startMillis = System.currentTimeMillis();
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Schedule a payload to expire at the given deadline.
+     */
+    public Timeout<T> schedule(T payload, Instant deadline) {
+        Timeout<T> timeout = new Timeout<>(this, payload, deadline.toEpochMilli());
+        size.incrementAndGet();
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of live (scheduled and not yet expired or cancelled) timeouts.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void advance() {
+        try {
+            long now = System.currentTimeMillis();
+            long targetTick = (now - startMillis) / tickMillis;
+            List<T> expired = new ArrayList<>();
+
+            // Catch up on every tick we are behind, e.g. after a long expiry batch
+            while (currentTick <= targetTick) {
+                transferCancelled();
+                transferPending();
+                expireBucket(buckets.get((int) (currentTick & mask)), now, expired);
+                currentTick++;
+            }
+
+            if (!expired.isEmpty()) {
+                expiryHandler.accept(expired);
+            }
+        } catch (Exception e) {
+            // Never let an exception kill the ticker thread
+            log.error("Timing wheel tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pendingAdds.poll()) != null) {
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            long deadlineTick = Math.max(currentTick, (timeout.deadlineMillis - startMillis) / tickMillis);
+            timeout.remainingRounds = (deadlineTick - currentTick) / buckets.size();
+            timeout.bucket = buckets.get((int) (deadlineTick & mask));
+            timeout.bucket.add(timeout);
+        }
+    }
+
+    private void transferCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expireBucket(Set<Timeout<T>> bucket, long now, List<T> expired) {
+        Iterator<Timeout<T>> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout<T> timeout = it.next();
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else if (timeout.deadlineMillis <= now + tickMillis) {
+                it.remove();
+                if (timeout.expire()) {
+                    expired.add(timeout.payload);
+                }
+            }
+        }
+    }
+
+    /**
+     * Handle to a scheduled payload.
+     */
+    public static final class Timeout<T> {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedTimingWheel<T> wheel;
+        private final T payload;
+        private final long deadlineMillis;
+
+        private volatile int state = PENDING;
+        // Only touched by the wheel thread
+        private long remainingRounds;
+        private Set<Timeout<T>> bucket;
+
+        private Timeout(HashedTimingWheel<T> wheel, T payload, long deadlineMillis) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * Cancel the timeout. Returns false if it already expired or was cancelled.
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (state != PENDING) {
+                    return false;
+                }
+                state = CANCELLED;
+            }
+            wheel.size.decrementAndGet();
+            wheel.pendingCancels.add(this);
+            return true;
+        }
+
+        private boolean expire() {
+            synchronized (this) {
+                if (state != PENDING) {
+                    return false;
+                }
+                state = EXPIRED;
+            }
+            wheel.size.decrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.orderly.inventory.reservation;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * The one decision inventory made for an order: reserved or failed.
+ * Keyed by order id, so whichever of the direct checkout call and the
+ * ORDER_PLACED saga decides first wins, and the other reuses its outcome.
+ */
+@Document(collection = "order_outcomes")
+public class OrderOutcome {
+
+    @Id
+    private String orderId;
+
+    private boolean reserved;
+    private String failureReason;
+
+    @Indexed(expireAfter = "30d")
+    private Instant decidedAt;
+
+    public OrderOutcome() {
+    }
+
+    public OrderOutcome(String orderId, boolean reserved, String failureReason) {
+        this.orderId = orderId;
+        this.reserved = reserved;
+        this.failureReason = failureReason;
+        this.decidedAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public boolean isReserved() {
+        return reserved;
+    }
+
+    public void setReserved(boolean reserved) {
+        this.reserved = reserved;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public Instant getDecidedAt() {
+        return decidedAt;
+    }
+
+    public void setDecidedAt(Instant decidedAt) {
+        this.decidedAt = decidedAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.orderly.inventory.reservation;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderOutcomeRepository extends MongoRepository<OrderOutcome, String> {
+}
@@ -0,0 +1,145 @@
+package com.orderly.inventory.reservation;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Stock held for a single order line.
+ * The id is derived from the order id and line number, so re-delivered
+ * order events map onto the same record instead of reserving twice.
+ */
+@Document(collection = "reservations")
+@CompoundIndex(name = "status_expiresAt", def = "{'status': 1, 'expiresAt': 1}") // Overdue sweep
+public class Reservation {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String orderId;
+
+    private int line;
+    private String productId;
+    private int quantity;
+    private Map<String, Integer> locations; // Units per warehouse; null when taken from product totals
+
+    @Indexed
+    private ReservationStatus status;
+
+    private Instant expiresAt;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    // Set when a batch claims the record for release/expiry
+    @Indexed(sparse = true)
+    private String claimToken;
+
+    public Reservation() {
+    }
+
+    public static String idFor(String orderId, int line) {
+        return orderId + ":" + line;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Map<String, Integer> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(Map<String, Integer> locations) {
+        this.locations = locations;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public enum ReservationStatus {
+        HELD,       // Stock reserved, expiry timer running
+        CONFIRMED,  // Order confirmed, timer cancelled
+        FULFILLED,  // Shipped; the units were deducted from stock
+        RELEASED,   // Released explicitly (order failed or cancelled)
+        EXPIRED     // Released by the expiry wheel
+    }
+}
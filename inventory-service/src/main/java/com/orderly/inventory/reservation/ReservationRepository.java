@@ -0,0 +1,19 @@
+package com.orderly.inventory.reservation;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ReservationRepository extends MongoRepository<Reservation, String> {
+
+    List<Reservation> findByOrderId(String orderId);
+
+    List<Reservation> findByClaimToken(String claimToken);
+
+    Stream<Reservation> streamByStatus(Reservation.ReservationStatus status);
+
+    long countByStatus(Reservation.ReservationStatus status);
+}
@@ -0,0 +1,803 @@
+package com.orderly.inventory.reservation;
+
+import com.orderly.common.events.OrderPlacedEvent;
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.service.InventoryService;
+import com.orderly.inventory.warehouse.Allocation;
+import com.orderly.inventory.warehouse.WarehouseAllocator;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tracks stock reservations per order line and expires them with a timing wheel.
+ *
+ * Each order gets one recorded outcome (see {@link OrderOutcome}); the direct
+ * checkout call and the ORDER_PLACED saga both reuse it once it exists, so an
+ * order is never both confirmed and failed.
+ *
+ * Every HELD reservation has a timer on the instance that created it (or on every
+ * instance that loaded it at startup). Expired reservations are claimed in one
+ * update, then their stock is released with a single bulk write per batch. A
+ * periodic sweep expires overdue ones whose timer was lost with its instance.
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    private final ReservationRepository reservationRepository;
+    private final OrderOutcomeRepository outcomeRepository;
+    private final InventoryService inventoryService;
+    private final WarehouseAllocator allocator;
+    private final MongoTemplate mongoTemplate;
+    private final Duration ttl;
+    private final Duration sweepInterval;
+    private final HashedTimingWheel<String> wheel;
+
+    // Live timers by reservation id, so confirm/release can cancel them
+    private final Map<String, HashedTimingWheel.Timeout<String>> timers = new ConcurrentHashMap<>();
+
+    private final Counter createdCounter;
+    private final Counter confirmedCounter;
+    private final Counter releasedCounter;
+    private final Counter fulfilledCounter;
+    private final Counter expiredCounter;
+    private final DistributionSummary expiryBatchSize;
+
+    public ReservationService(ReservationRepository reservationRepository,
+                              OrderOutcomeRepository outcomeRepository,
+                              InventoryService inventoryService,
+                              WarehouseAllocator allocator,
+                              MongoTemplate mongoTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.reservation.ttl:15m}") Duration ttl,
+                              @Value("${inventory.reservation.wheel.tick:1s}") Duration tick,
+                              @Value("${inventory.reservation.wheel.size:512}") int wheelSize,
+                              @Value("${inventory.reservation.sweep-interval:PT1M}") Duration sweepInterval) {
+        this.reservationRepository = reservationRepository;
+        this.outcomeRepository = outcomeRepository;
+        this.inventoryService = inventoryService;
+        this.allocator = allocator;
+        this.mongoTemplate = mongoTemplate;
+        this.ttl = ttl;
+        this.sweepInterval = sweepInterval;
+        this.wheel = new HashedTimingWheel<>("reservation-expiry", tick, wheelSize, this::expire);
+
+        Gauge.builder("inventory.reservations.active", wheel, HashedTimingWheel::size)
+                .description("Held reservations with a running expiry timer")
+                .register(meterRegistry);
+        this.createdCounter = meterRegistry.counter("inventory.reservations", "outcome", "created");
+        this.confirmedCounter = meterRegistry.counter("inventory.reservations", "outcome", "confirmed");
+        this.releasedCounter = meterRegistry.counter("inventory.reservations", "outcome", "released");
+        this.expiredCounter = meterRegistry.counter("inventory.reservations", "outcome", "expired");
+        this.fulfilledCounter = meterRegistry.counter("inventory.reservations", "outcome", "fulfilled");
+        this.expiryBatchSize = DistributionSummary.builder("inventory.reservations.expiry.batch")
+                .description("Reservations expired per timing wheel batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load held reservations once at startup so timers survive restarts.
+     * Overdue ones land in the current tick and expire immediately.
+     */
+    @PostConstruct
+    public void start() {
+        wheel.start();
+        try (Stream<Reservation> held = reservationRepository.streamByStatus(Reservation.ReservationStatus.HELD)) {
+            held.forEach(this::scheduleExpiry);
+        }
+        log.info("Reservation expiry wheel started with {} held reservations", wheel.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+    }
+
+    /**
+     * Reserve stock for every line of an order, or return the outcome already
+     * recorded for it. The outcome reached here is recorded unless another
+     * call recorded one first, in which case that one is returned.
+     */
+    public ReservationResult reserve(OrderPlacedEvent event) {
+        String orderId = event.getOrderId();
+        Optional<OrderOutcome> decided = outcomeRepository.findById(orderId);
+        if (decided.isPresent()) {
+            return toResult(decided.get());
+        }
+        ReservationResult result = allocator.isEnabled()
+                ? reserveAllocated(List.of(event)).get(orderId)
+                : reserveLines(event);
+        return settle(Map.of(orderId, result)).get(orderId);
+    }
+
+    /**
+     * Reserve a batch of orders at once, with the same per-order outcome as
+     * calling {@link #reserve} for each in turn. Orders with a recorded outcome
+     * are not reserved again; the rest are reserved together and their
+     * outcomes recorded with one bulk insert.
+     *
+     * @return outcome per order id, in batch order
+     */
+    public Map<String, ReservationResult> reserveAll(List<OrderPlacedEvent> events) {
+        Map<String, ReservationResult> decided = new HashMap<>();
+        outcomeRepository.findAllById(events.stream().map(OrderPlacedEvent::getOrderId).collect(Collectors.toSet()))
+                .forEach(outcome -> decided.put(outcome.getOrderId(), toResult(outcome)));
+        List<OrderPlacedEvent> undecided = events.stream()
+                .filter(event -> !decided.containsKey(event.getOrderId()))
+                .collect(Collectors.toList());
+        Map<String, ReservationResult> settled = undecided.isEmpty() ? Map.of()
+                : settle(allocator.isEnabled() ? reserveAllocated(undecided) : reserveByProduct(undecided));
+
+        Map<String, ReservationResult> results = new LinkedHashMap<>();
+        for (OrderPlacedEvent event : events) {
+            String orderId = event.getOrderId();
+            results.putIfAbsent(orderId, decided.containsKey(orderId) ? decided.get(orderId) : settled.get(orderId));
+        }
+        return results;
+    }
+
+    /**
+     * Record outcomes just reached as the orders' outcomes, with one bulk
+     * insert. Where another call recorded one first, that one stands and is
+     * returned instead; if it failed the order, the reservations this call
+     * made for it are released again.
+     */
+    private Map<String, ReservationResult> settle(Map<String, ReservationResult> results) {
+        List<OrderOutcome> outcomes = new ArrayList<>(results.size());
+        results.forEach((orderId, result) ->
+                outcomes.add(new OrderOutcome(orderId, result.isReserved(), result.getFailureReason())));
+        Set<String> lost = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderOutcome.class)
+                    .insert(outcomes)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                lost.add(outcomes.get(error.getIndex()).getOrderId());
+            }
+        }
+        if (lost.isEmpty()) {
+            return results;
+        }
+
+        Map<String, ReservationResult> settled = new LinkedHashMap<>(results);
+        for (OrderOutcome winner : outcomeRepository.findAllById(lost)) {
+            if (results.get(winner.getOrderId()).isReserved() && !winner.isReserved()) {
+                release(winner.getOrderId());
+            }
+            settled.put(winner.getOrderId(), toResult(winner));
+            log.info("Order {} was already {} by a concurrent reservation; keeping that outcome",
+                    winner.getOrderId(), winner.isReserved() ? "reserved" : "failed");
+        }
+        return settled;
+    }
+
+    private static ReservationResult toResult(OrderOutcome outcome) {
+        return outcome.isReserved() ? ReservationResult.reserved()
+                : ReservationResult.failed(outcome.getFailureReason());
+    }
+
+    /**
+     * Reserve stock for every line of an order.
+     * Safe to repeat for a re-delivered event: a line whose reservation record
+     * already exists is not reserved again and counts as reserved while that
+     * record is active; for a line without one, the stock write is applied at
+     * most once. If any line fails, the lines reserved by this call are
+     * released again.
+     */
+    private ReservationResult reserveLines(OrderPlacedEvent event) {
+        String orderId = event.getOrderId();
+        List<OrderPlacedEvent.OrderItemPayload> items = event.getItems();
+
+        Map<String, Reservation> recorded = recorded(List.of(event));
+
+        List<Reservation> reservedNow = new ArrayList<>();
+        StringBuilder failureReason = new StringBuilder();
+
+        for (int line = 0; line < items.size(); line++) {
+            OrderPlacedEvent.OrderItemPayload item = items.get(line);
+            String id = Reservation.idFor(orderId, line);
+
+            Reservation previous = recorded.get(id);
+            if (previous != null) {
+                if (!isActive(previous)) {
+                    failureReason.append(alreadyInactive(previous, item.getProductName()));
+                    break;
+                }
+                continue; // Reserved by an earlier delivery
+            }
+
+            InventoryService.ClaimResult claim = inventoryService.reserveStockClaims(item.getProductId(),
+                    List.of(new InventoryService.StockClaim(id, item.getQuantity(), orderId))).get(id);
+            if (claim == InventoryService.ClaimResult.REJECTED) {
+                failureReason.append("Insufficient stock for product: ")
+                        .append(item.getProductName())
+                        .append(". ");
+                break;
+            }
+
+            Reservation reservation = newReservation(id, orderId, line, item);
+            try {
+                reservationRepository.insert(reservation);
+                reservedNow.add(reservation);
+            } catch (DuplicateKeyException e) {
+                // Recorded meanwhile by a concurrent delivery, whose stock write holds the line
+                if (claim == InventoryService.ClaimResult.APPLIED) {
+                    inventoryService.undoReservation(item.getProductId(), item.getQuantity(), id, orderId);
+                }
+                previous = reservationRepository.findById(id).orElse(null);
+                if (previous != null && !isActive(previous)) {
+                    failureReason.append(alreadyInactive(previous, item.getProductName()));
+                    break;
+                }
+            }
+        }
+
+        if (failureReason.length() > 0) {
+            releaseReserved(reservedNow);
+            return ReservationResult.failed(failureReason.toString());
+        }
+
+        reservedNow.forEach(this::scheduleExpiry);
+        createdCounter.increment(reservedNow.size());
+        return ReservationResult.reserved();
+    }
+
+    /**
+     * Reserve a batch of orders at once, with the same per-order outcome as
+     * calling {@link #reserveLines} for each in turn.
+     * Lines are grouped by product so each product gets one stock update for
+     * the batch's total (falling back to line by line only when that fails),
+     * and reservation records are written with one bulk insert. Lines that
+     * already have a reservation record are not reserved again. An order that
+     * cannot get every line gives back the lines it did get.
+     *
+     * @return outcome per order id, in batch order
+     */
+    private Map<String, ReservationResult> reserveByProduct(List<OrderPlacedEvent> events) {
+        Map<String, OrderPlacedEvent> orders = new LinkedHashMap<>();
+        for (OrderPlacedEvent event : events) {
+            orders.putIfAbsent(event.getOrderId(), event); // Same order twice in one poll
+        }
+        Map<String, Reservation> recorded = recorded(orders.values());
+
+        Map<String, String> inactive = new HashMap<>();
+        Map<String, InventoryService.ClaimResult> claimed = new HashMap<>();
+        Map<String, List<InventoryService.StockClaim>> claimsByProduct = new LinkedHashMap<>();
+        for (OrderPlacedEvent event : orders.values()) {
+            String failure = inactiveFailure(event, recorded);
+            if (failure != null) {
+                inactive.put(event.getOrderId(), failure);
+                continue;
+            }
+            List<OrderPlacedEvent.OrderItemPayload> items = event.getItems();
+            for (int line = 0; line < items.size(); line++) {
+                OrderPlacedEvent.OrderItemPayload item = items.get(line);
+                String id = Reservation.idFor(event.getOrderId(), line);
+                if (recorded.containsKey(id)) {
+                    claimed.put(id, InventoryService.ClaimResult.ALREADY_APPLIED);
+                    continue;
+                }
+                claimsByProduct.computeIfAbsent(item.getProductId(), productId -> new ArrayList<>())
+                        .add(new InventoryService.StockClaim(id, item.getQuantity(), event.getOrderId()));
+            }
+        }
+
+        claimsByProduct.forEach((productId, claims) ->
+                claimed.putAll(inventoryService.reserveStockClaims(productId, claims)));
+
+        Map<String, ReservationResult> results = new LinkedHashMap<>();
+        List<Reservation> toInsert = new ArrayList<>();
+        for (OrderPlacedEvent event : orders.values()) {
+            if (inactive.containsKey(event.getOrderId())) {
+                results.put(event.getOrderId(), ReservationResult.failed(inactive.get(event.getOrderId())));
+                continue;
+            }
+            String failure = null;
+            List<Reservation> lines = new ArrayList<>();
+            List<OrderPlacedEvent.OrderItemPayload> items = event.getItems();
+            for (int line = 0; line < items.size(); line++) {
+                String id = Reservation.idFor(event.getOrderId(), line);
+                if (claimed.get(id) == InventoryService.ClaimResult.REJECTED) {
+                    failure = failure != null ? failure
+                            : "Insufficient stock for product: " + items.get(line).getProductName() + ". ";
+                }
+                if (!recorded.containsKey(id)) {
+                    lines.add(newReservation(id, event.getOrderId(), line, items.get(line)));
+                }
+            }
+            if (failure != null) {
+                undoApplied(lines, claimed);
+                results.put(event.getOrderId(), ReservationResult.failed(failure));
+            } else {
+                toInsert.addAll(lines);
+                results.put(event.getOrderId(), ReservationResult.reserved());
+            }
+        }
+
+        List<Reservation> inserted = insertNew(toInsert, claimed, results);
+        inserted.forEach(this::scheduleExpiry);
+        createdCounter.increment(inserted.size());
+        return results;
+    }
+
+    /**
+     * Reserve a batch of orders at warehouses chosen for each order's shipping
+     * address. The products' stock is read once for the batch and orders are
+     * allocated against it in turn; then every line is reserved at its
+     * warehouses with one bulk write. An order with a line rejected by that
+     * write (its stock moved meanwhile) fails and gives back its other lines.
+     * Lines that already have a reservation record are not allocated again.
+     */
+    private Map<String, ReservationResult> reserveAllocated(List<OrderPlacedEvent> events) {
+        Map<String, OrderPlacedEvent> orders = new LinkedHashMap<>();
+        Set<String> productIds = new HashSet<>();
+        for (OrderPlacedEvent event : events) {
+            if (orders.putIfAbsent(event.getOrderId(), event) == null) {
+                event.getItems().forEach(item -> productIds.add(item.getProductId()));
+            }
+        }
+        Map<String, Product> stock = inventoryService.loadStock(productIds);
+        Map<String, Reservation> recorded = recorded(orders.values());
+
+        Map<String, ReservationResult> results = new LinkedHashMap<>();
+        Map<String, List<Reservation>> linesByOrder = new LinkedHashMap<>();
+        List<InventoryService.LocationClaim> claims = new ArrayList<>();
+        for (OrderPlacedEvent event : orders.values()) {
+            String failure = inactiveFailure(event, recorded);
+            if (failure != null) {
+                results.put(event.getOrderId(), ReservationResult.failed(failure));
+                continue;
+            }
+            List<OrderPlacedEvent.OrderItemPayload> items = event.getItems();
+            List<Allocation.Line> toAllocate = new ArrayList<>(items.size());
+            List<Integer> lineNumbers = new ArrayList<>(items.size());
+            for (int line = 0; line < items.size(); line++) {
+                OrderPlacedEvent.OrderItemPayload item = items.get(line);
+                String id = Reservation.idFor(event.getOrderId(), line);
+                if (!recorded.containsKey(id)) {
+                    toAllocate.add(new Allocation.Line(id, item.getProductId(), item.getProductName(),
+                            item.getQuantity()));
+                    lineNumbers.add(line);
+                }
+            }
+            if (toAllocate.isEmpty()) {
+                results.put(event.getOrderId(), ReservationResult.reserved()); // Reserved by an earlier delivery
+                continue;
+            }
+            Allocation allocation = allocator.allocate(event.getShippingPostalCode(), toAllocate, stock);
+            if (!allocation.isFilled()) {
+                results.put(event.getOrderId(), ReservationResult.failed(
+                        "Insufficient stock for product: " + allocation.getUnfilledProduct() + ". "));
+                continue;
+            }
+
+            List<Reservation> lines = new ArrayList<>(toAllocate.size());
+            for (int i = 0; i < toAllocate.size(); i++) {
+                int line = lineNumbers.get(i);
+                Reservation reservation = newReservation(toAllocate.get(i).reservationId(),
+                        event.getOrderId(), line, items.get(line));
+                Map<String, Integer> picks = allocation.getPicks(reservation.getId());
+                reservation.setLocations(picks.isEmpty() ? null : picks);
+                lines.add(reservation);
+                claims.add(new InventoryService.LocationClaim(reservation.getId(), reservation.getProductId(),
+                        reservation.getQuantity(), picks, event.getOrderId()));
+            }
+            linesByOrder.put(event.getOrderId(), lines);
+            results.put(event.getOrderId(), ReservationResult.reserved());
+        }
+
+        Map<String, InventoryService.ClaimResult> claimed = inventoryService.reserveAtLocations(claims, stock);
+        List<Reservation> toInsert = new ArrayList<>();
+        linesByOrder.forEach((orderId, lines) -> {
+            Reservation rejected = lines.stream()
+                    .filter(line -> claimed.get(line.getId()) == InventoryService.ClaimResult.REJECTED)
+                    .findFirst()
+                    .orElse(null);
+            if (rejected != null) {
+                undoApplied(lines, claimed);
+                results.put(orderId, ReservationResult.failed(
+                        "Insufficient stock for product: " + stock.get(rejected.getProductId()).getName() + ". "));
+            } else {
+                toInsert.addAll(lines);
+            }
+        });
+
+        List<Reservation> inserted = insertNew(toInsert, claimed, results);
+        inserted.forEach(this::scheduleExpiry);
+        createdCounter.increment(inserted.size());
+        return results;
+    }
+
+    /**
+     * Bulk insert reservation records. Records that already exist were written
+     * by a concurrent delivery, which holds their stock, so this batch's stock
+     * write for those lines is given back. The order stands if those records
+     * are still active, otherwise it fails and its newly applied lines are
+     * given back too. Returns the records that were inserted and kept.
+     */
+    private List<Reservation> insertNew(List<Reservation> reservations,
+                                        Map<String, InventoryService.ClaimResult> claimed,
+                                        Map<String, ReservationResult> results) {
+        if (reservations.isEmpty()) {
+            return List.of();
+        }
+        Set<String> duplicateOrders = new HashSet<>();
+        Set<String> duplicates = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reservation.class)
+                    .insert(reservations)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                Reservation duplicate = reservations.get(error.getIndex());
+                duplicates.add(duplicate.getId());
+                duplicateOrders.add(duplicate.getOrderId());
+            }
+            undoApplied(reservations.stream()
+                    .filter(reservation -> duplicates.contains(reservation.getId()))
+                    .collect(Collectors.toList()), claimed);
+        }
+
+        List<Reservation> kept = new ArrayList<>(reservations.size());
+        Map<String, List<Reservation>> byOrder = reservations.stream()
+                .filter(reservation -> !duplicates.contains(reservation.getId()))
+                .collect(Collectors.groupingBy(Reservation::getOrderId, LinkedHashMap::new, Collectors.toList()));
+        for (String orderId : duplicateOrders) {
+            Reservation inactive = reservationRepository.findByOrderId(orderId).stream()
+                    .filter(reservation -> duplicates.contains(reservation.getId()) && !isActive(reservation))
+                    .findFirst()
+                    .orElse(null);
+            if (inactive != null) {
+                List<Reservation> fresh = byOrder.remove(orderId);
+                if (fresh != null) {
+                    undoApplied(fresh, claimed);
+                    reservationRepository.deleteAll(fresh);
+                }
+                results.put(orderId, ReservationResult.failed("Reservation already "
+                        + inactive.getStatus().name().toLowerCase() + " for product: "
+                        + inactive.getProductId() + ". "));
+            }
+        }
+        byOrder.values().forEach(kept::addAll);
+        return kept;
+    }
+
+    /**
+     * Give back the stock of the lines this batch applied; lines applied by an
+     * earlier delivery are left as they are.
+     */
+    private void undoApplied(List<Reservation> lines, Map<String, InventoryService.ClaimResult> claimed) {
+        for (Reservation line : lines) {
+            if (claimed.get(line.getId()) == InventoryService.ClaimResult.APPLIED) {
+                inventoryService.undoReservation(line.getProductId(), line.getQuantity(), locationsOf(line),
+                        line.getId(), line.getOrderId());
+            }
+        }
+    }
+
+    /**
+     * Mark all held reservations of an order as confirmed and cancel their timers.
+     */
+    public int confirm(String orderId) {
+        return confirmAll(List.of(orderId));
+    }
+
+    /**
+     * Confirm the held reservations of many orders with one update.
+     */
+    public int confirmAll(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where("orderId").in(orderIds)
+                .and("status").is(Reservation.ReservationStatus.HELD));
+        Update update = new Update()
+                .set("status", Reservation.ReservationStatus.CONFIRMED)
+                .set("updatedAt", Instant.now());
+        long confirmed = mongoTemplate.updateMulti(query, update, Reservation.class).getModifiedCount();
+
+        Query ids = new Query(Criteria.where("orderId").in(orderIds));
+        ids.fields().include("_id");
+        cancelTimers(mongoTemplate.find(ids, Reservation.class).stream()
+                .map(Reservation::getId)
+                .collect(Collectors.toList()));
+        confirmedCounter.increment(confirmed);
+        log.info("Confirmed {} reservations for {} orders", confirmed, orderIds.size());
+        return (int) confirmed;
+    }
+
+    /**
+     * Release every held or confirmed reservation of an order (e.g. cancellation).
+     */
+    public int release(String orderId) {
+        Criteria criteria = Criteria.where("orderId").is(orderId)
+                .and("status").in(Reservation.ReservationStatus.HELD, Reservation.ReservationStatus.CONFIRMED);
+        List<Reservation> claimed = claim(criteria, Reservation.ReservationStatus.RELEASED);
+        cancelTimers(claimed.stream().map(Reservation::getId).collect(Collectors.toList()));
+        inventoryService.releaseStockBulk(quantitiesByProduct(claimed), locationQuantities(claimed), orderId);
+        releasedCounter.increment(claimed.size());
+        return claimed.size();
+    }
+
+    /**
+     * Deduct the reserved stock of a pick wave's orders as they ship: their
+     * held or confirmed reservations are claimed as FULFILLED in one update and
+     * the units come off stock with one bulk write. Held ones count too, since
+     * a confirmed order's reservations are marked confirmed only after the
+     * ORDER_CONFIRMED event is out. Safe to repeat for the same orders: orders
+     * fulfilled by an earlier call are reported again without deducting twice.
+     *
+     * @return units shipped per order; orders with nothing left to ship
+     *         (released or expired) are absent
+     */
+    public Map<String, Integer> fulfill(Collection<String> orderIds, String waveId) {
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        Criteria criteria = Criteria.where("orderId").in(orderIds)
+                .and("status").in(Reservation.ReservationStatus.HELD, Reservation.ReservationStatus.CONFIRMED);
+        List<Reservation> claimed = claim(criteria, Reservation.ReservationStatus.FULFILLED);
+        cancelTimers(claimed.stream().map(Reservation::getId).collect(Collectors.toList()));
+        inventoryService.deductStockBulk(quantitiesByProduct(claimed), locationQuantities(claimed), waveId);
+        fulfilledCounter.increment(claimed.size());
+
+        Map<String, Integer> shipped = new LinkedHashMap<>();
+        claimed.forEach(reservation -> shipped.merge(reservation.getOrderId(), reservation.getQuantity(),
+                Integer::sum));
+        Set<String> earlier = new HashSet<>(orderIds);
+        earlier.removeAll(shipped.keySet());
+        if (!earlier.isEmpty()) {
+            Query query = new Query(Criteria.where("orderId").in(earlier)
+                    .and("status").is(Reservation.ReservationStatus.FULFILLED));
+            mongoTemplate.find(query, Reservation.class).forEach(reservation ->
+                    shipped.merge(reservation.getOrderId(), reservation.getQuantity(), Integer::sum));
+        }
+        log.info("Fulfilled {} reservations for {} of {} orders in wave {}",
+                claimed.size(), shipped.size(), orderIds.size(), waveId);
+        return shipped;
+    }
+
+    public List<Reservation> getReservations(String orderId) {
+        return reservationRepository.findByOrderId(orderId);
+    }
+
+    /**
+     * Expiry handler invoked by the wheel thread with all reservations due in a tick.
+     */
+    private void expire(List<String> reservationIds) {
+        reservationIds.forEach(timers::remove);
+
+        // Only records still HELD are claimed; confirmations on other instances win
+        Criteria criteria = Criteria.where("_id").in(reservationIds)
+                .and("status").is(Reservation.ReservationStatus.HELD);
+        List<Reservation> claimed = claim(criteria, Reservation.ReservationStatus.EXPIRED);
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        inventoryService.releaseStockBulk(quantitiesByProduct(claimed), locationQuantities(claimed),
+                "reservation-expiry");
+        expiredCounter.increment(claimed.size());
+        expiryBatchSize.record(claimed.size());
+        log.info("Expired {} reservations", claimed.size());
+    }
+
+    /**
+     * Expire HELD reservations whose timer was lost, e.g. with the instance that
+     * created them. Live timers fire on time, so only reservations overdue by
+     * more than a sweep interval are picked up; expiry claims only records still
+     * HELD, so racing a timer or another instance's sweep is harmless.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval:PT1M}")
+    public void expireOverdue() {
+        Instant overdue = Instant.now().minus(sweepInterval);
+        List<String> ids;
+        do {
+            Query query = new Query(Criteria.where("status").is(Reservation.ReservationStatus.HELD)
+                    .and("expiresAt").lt(overdue))
+                    .limit(SWEEP_BATCH_SIZE);
+            query.fields().include("_id");
+            ids = mongoTemplate.find(query, Reservation.class).stream()
+                    .map(Reservation::getId)
+                    .collect(Collectors.toList());
+            if (!ids.isEmpty()) {
+                log.warn("Sweeping {} overdue held reservations", ids.size());
+                expire(ids);
+            }
+        } while (ids.size() == SWEEP_BATCH_SIZE);
+    }
+
+    /**
+     * Atomically move matching reservations to a terminal status and return
+     * exactly the records this call moved.
+     */
+    private List<Reservation> claim(Criteria criteria, Reservation.ReservationStatus targetStatus) {
+        String token = UUID.randomUUID().toString();
+        Update update = new Update()
+                .set("status", targetStatus)
+                .set("claimToken", token)
+                .set("updatedAt", Instant.now());
+        long modified = mongoTemplate.updateMulti(new Query(criteria), update, Reservation.class)
+                .getModifiedCount();
+        if (modified == 0) {
+            return List.of();
+        }
+        return reservationRepository.findByClaimToken(token);
+    }
+
+    private void releaseReserved(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            inventoryService.undoReservation(reservation.getProductId(), reservation.getQuantity(),
+                    locationsOf(reservation), reservation.getId(), reservation.getOrderId());
+        }
+        reservationRepository.deleteAll(reservations);
+    }
+
+    private void scheduleExpiry(Reservation reservation) {
+        timers.put(reservation.getId(), wheel.schedule(reservation.getId(), reservation.getExpiresAt()));
+    }
+
+    private void cancelTimers(Collection<String> reservationIds) {
+        for (String id : reservationIds) {
+            HashedTimingWheel.Timeout<String> timeout = timers.remove(id);
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    private Reservation newReservation(String id, String orderId, int line,
+                                       OrderPlacedEvent.OrderItemPayload item) {
+        Instant now = Instant.now();
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setOrderId(orderId);
+        reservation.setLine(line);
+        reservation.setProductId(item.getProductId());
+        reservation.setQuantity(item.getQuantity());
+        reservation.setStatus(Reservation.ReservationStatus.HELD);
+        reservation.setCreatedAt(now);
+        reservation.setUpdatedAt(now);
+        reservation.setExpiresAt(now.plus(ttl));
+        return reservation;
+    }
+
+    /**
+     * Existing reservation records for every line of the given orders, by id,
+     * in one query. They are the lasting record of which lines hold stock.
+     */
+    private Map<String, Reservation> recorded(Collection<OrderPlacedEvent> events) {
+        List<String> ids = new ArrayList<>();
+        for (OrderPlacedEvent event : events) {
+            for (int line = 0; line < event.getItems().size(); line++) {
+                ids.add(Reservation.idFor(event.getOrderId(), line));
+            }
+        }
+        Map<String, Reservation> recorded = new HashMap<>();
+        reservationRepository.findAllById(ids).forEach(reservation -> recorded.put(reservation.getId(), reservation));
+        return recorded;
+    }
+
+    /**
+     * Failure reason if a line of the order was reserved before and has since
+     * been released or expired; null otherwise.
+     */
+    private static String inactiveFailure(OrderPlacedEvent event, Map<String, Reservation> recorded) {
+        List<OrderPlacedEvent.OrderItemPayload> items = event.getItems();
+        for (int line = 0; line < items.size(); line++) {
+            Reservation previous = recorded.get(Reservation.idFor(event.getOrderId(), line));
+            if (previous != null && !isActive(previous)) {
+                return alreadyInactive(previous, items.get(line).getProductName());
+            }
+        }
+        return null;
+    }
+
+    private static String alreadyInactive(Reservation previous, String productName) {
+        return "Reservation already " + previous.getStatus().name().toLowerCase()
+                + " for product: " + productName + ". ";
+    }
+
+    private static boolean isActive(Reservation reservation) {
+        return reservation.getStatus() == Reservation.ReservationStatus.HELD
+                || reservation.getStatus() == Reservation.ReservationStatus.CONFIRMED
+                || reservation.getStatus() == Reservation.ReservationStatus.FULFILLED;
+    }
+
+    private static Map<String, Integer> quantitiesByProduct(List<Reservation> reservations) {
+        Map<String, Integer> quantities = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            quantities.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * Units held per product per warehouse, for reservations taken at warehouses.
+     */
+    private static Map<String, Map<String, Integer>> locationQuantities(List<Reservation> reservations) {
+        Map<String, Map<String, Integer>> quantities = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            locationsOf(reservation).forEach((warehouseId, units) ->
+                    quantities.computeIfAbsent(reservation.getProductId(), id -> new HashMap<>())
+                            .merge(warehouseId, units, Integer::sum));
+        }
+        return quantities;
+    }
+
+    private static Map<String, Integer> locationsOf(Reservation reservation) {
+        return reservation.getLocations() != null ? reservation.getLocations() : Map.of();
+    }
+
+    /**
+     * Outcome of reserving an order.
+     */
+    public static class ReservationResult {
+        private final boolean reserved;
+        private final String failureReason;
+
+        private ReservationResult(boolean reserved, String failureReason) {
+            this.reserved = reserved;
+            this.failureReason = failureReason;
+        }
+
+        public static ReservationResult reserved() {
+            return new ReservationResult(true, null);
+        }
+
+        public static ReservationResult failed(String reason) {
+            return new ReservationResult(false, reason);
+        }
+
+        public boolean isReserved() {
+            return reserved;
+        }
+
+        public String getFailureReason() {
+            return failureReason;
+        }
+    }
+}
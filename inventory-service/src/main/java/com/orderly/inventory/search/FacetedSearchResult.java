@@ -0,0 +1,103 @@
+package com.orderly.inventory.search;
+
+import java.util.List;
+
+/**
+ * One page of search hits plus the facets for the whole result set.
+ *
+ * Each facet is counted with every filter applied except its own, so the
+ * category counts show what picking another category would return at the
+ * current price range, and vice versa. Facets are only computed for the
+ * first page; later pages (with a cursor) return them empty.
+ */
+public class FacetedSearchResult {
+
+    private final List<?> items;
+    private final String nextCursor;
+    private final long total;
+    private final List<CategoryFacet> categories;
+    private final List<PriceBucket> prices;
+
+    public FacetedSearchResult(List<?> items, String nextCursor, long total,
+                               List<CategoryFacet> categories, List<PriceBucket> prices) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.categories = categories;
+        this.prices = prices;
+    }
+
+    /**
+     * The same page with its hits replaced, e.g. ids resolved to products.
+     */
+    public FacetedSearchResult withItems(List<?> replacement) {
+        return new FacetedSearchResult(replacement, nextCursor, total, categories, prices);
+    }
+
+    public List<?> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<CategoryFacet> getCategories() {
+        return categories;
+    }
+
+    public List<PriceBucket> getPrices() {
+        return prices;
+    }
+
+    public static class CategoryFacet {
+
+        private final String category;
+        private final long count;
+
+        public CategoryFacet(String category, long count) {
+            this.category = category;
+            this.count = count;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Products priced in [from, to).
+     */
+    public static class PriceBucket {
+
+        private final double from;
+        private final double to;
+        private final long count;
+
+        public PriceBucket(double from, double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public double getFrom() {
+            return from;
+        }
+
+        public double getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package com.orderly.inventory.search;
+
+import com.orderly.inventory.cache.ProductChangedEvent;
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Embedded product search used when Elasticsearch is disabled.
+ *
+ * An inverted index over name and description tokens: each term maps to a
+ * posting list of int doc ids with per-field term frequencies, and the terms
+ * are kept sorted, so the last query token can be expanded as a prefix with
+ * one range lookup. Matches must contain every query token and are ranked by
+ * BM25, with name occurrences weighted above description ones.
+ *
+ * Only active products are indexed. Catalog changes (local or relayed from
+ * other instances) re-read the affected products; an updated product gets a
+ * new doc id and its old one is marked dead until the next compaction.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.elasticsearch.enabled", havingValue = "false", matchIfMissing = true)
+public class LocalSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalSearchIndex.class);
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int NAME_WEIGHT = 2;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+    private static final int MAX_CATEGORY_FACETS = 50;
+
+    private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docByProduct = new HashMap<>();
+    private Doc[] docs = new Doc[1024];
+    private int maxDoc;
+    private int liveDocs;
+    private long totalLength;
+
+    private volatile boolean ready;
+    private final Set<String> changedWhileLoading = new HashSet<>();
+
+    public LocalSearchIndex(ProductRepository productRepository, MongoTemplate mongoTemplate) {
+        this.productRepository = productRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Product ids matching every token of {@code query}, best first.
+     */
+    public List<String> search(String query, String category, Double minPrice, Double maxPrice, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Integer> hits = match(tokenize(query), false, category, minPrice, maxPrice, limit);
+            List<String> productIds = new ArrayList<>(hits.size());
+            for (int doc : hits) {
+                productIds.add(docs[doc].productId);
+            }
+            return productIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products whose name matches {@code prefix} as typed so far, one per distinct name.
+     */
+    public List<ProductSuggestion> suggest(String prefix, String category, int limit) {
+        lock.readLock().lock();
+        try {
+            // Over-fetch, since several products may share a name
+            Map<String, ProductSuggestion> byName = new LinkedHashMap<>();
+            for (int doc : match(tokenize(prefix), true, category, null, null, limit * 4)) {
+                byName.putIfAbsent(docs[doc].name, new ProductSuggestion(docs[doc].productId, docs[doc].name));
+                if (byName.size() == limit) {
+                    break;
+                }
+            }
+            return new ArrayList<>(byName.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One page of product ids with category and price facets, matching the
+     * Elasticsearch variant: each facet ignores its own filter, facets only
+     * come with the first page, and the cursor is the last hit's (score, id).
+     */
+    public FacetedSearchResult facetedSearch(String query, String category, Double minPrice, Double maxPrice,
+                                             String cursor, int limit, double priceInterval) {
+        boolean firstPage = cursor == null || cursor.isBlank();
+        List<Object> after = firstPage ? null : SearchCursor.decode(cursor, 2);
+        float afterScore = firstPage ? 0f : ((Number) after.get(0)).floatValue();
+        String afterId = firstPage ? null : String.valueOf(after.get(1));
+
+        // Weakest hit on top: lower score, then higher product id
+        Comparator<ScoredDoc> weakestFirst = Comparator.comparingDouble(ScoredDoc::score)
+                .thenComparing(hit -> docs[hit.doc].productId, Comparator.reverseOrder());
+        PriorityQueue<ScoredDoc> top = new PriorityQueue<>(limit + 2, weakestFirst);
+        Map<String, Long> categoryCounts = new HashMap<>();
+        TreeMap<Long, Long> priceCounts = new TreeMap<>();
+        long[] total = new long[1];
+
+        lock.readLock().lock();
+        try {
+            forEachMatch(tokenize(query), false, (doc, score) -> {
+                Doc entry = docs[doc];
+                boolean inCategory = entry.matches(category, null, null);
+                boolean inPrice = entry.matches(null, minPrice, maxPrice);
+                if (firstPage && inPrice && entry.category != null) {
+                    categoryCounts.merge(entry.category, 1L, Long::sum);
+                }
+                if (firstPage && inCategory && entry.price != null) {
+                    priceCounts.merge((long) Math.floor(entry.price.doubleValue() / priceInterval), 1L, Long::sum);
+                }
+                if (!inCategory || !inPrice) {
+                    return;
+                }
+                total[0]++;
+                if (!firstPage && (score > afterScore
+                        || (score == afterScore && entry.productId.compareTo(afterId) <= 0))) {
+                    return;
+                }
+                top.add(new ScoredDoc(doc, score));
+                if (top.size() > limit + 1) {
+                    top.poll();
+                }
+            });
+
+            // One extra hit tells whether there is a next page
+            boolean more = top.size() > limit;
+            if (more) {
+                top.poll();
+            }
+            ScoredDoc[] ranked = new ScoredDoc[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = top.poll();
+            }
+            List<String> productIds = new ArrayList<>(ranked.length);
+            for (ScoredDoc hit : ranked) {
+                productIds.add(docs[hit.doc].productId);
+            }
+            String nextCursor = null;
+            if (more && ranked.length > 0) {
+                ScoredDoc last = ranked[ranked.length - 1];
+                nextCursor = SearchCursor.encode(List.of(last.score, docs[last.doc].productId));
+            }
+
+            List<FacetedSearchResult.CategoryFacet> categories = categoryCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(MAX_CATEGORY_FACETS)
+                    .map(e -> new FacetedSearchResult.CategoryFacet(e.getKey(), e.getValue()))
+                    .collect(Collectors.toList());
+            List<FacetedSearchResult.PriceBucket> prices = new ArrayList<>(priceCounts.size());
+            priceCounts.forEach((bucket, count) -> prices.add(new FacetedSearchResult.PriceBucket(
+                    bucket * priceInterval, (bucket + 1) * priceInterval, count)));
+
+            return new FacetedSearchResult(productIds, nextCursor, total[0], categories, prices);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Query query = new Query(Criteria.where("active").is(true)).with(Sort.by("_id"));
+        query.cursorBatchSize(1000);
+        lock.writeLock().lock();
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Set<String> changed;
+        synchronized (changedWhileLoading) {
+            ready = true;
+            changed = new HashSet<>(changedWhileLoading);
+            changedWhileLoading.clear();
+        }
+        refresh(changed);
+        log.info("Loaded local search index: {} products, {} terms", liveDocs, terms.size());
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.ChangeType.CATALOG) {
+            return; // Stock is not searchable
+        }
+        synchronized (changedWhileLoading) {
+            if (!ready) {
+                changedWhileLoading.addAll(event.getProductIds());
+                return;
+            }
+        }
+        refresh(event.getProductIds());
+    }
+
+    private void refresh(Collection<String> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Product> products = productRepository.findAllById(productIds);
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(this::remove);
+            for (Product product : products) {
+                if (product.isActive()) {
+                    add(product);
+                }
+            }
+            int dead = maxDoc - liveDocs;
+            if (dead >= MIN_DEAD_FOR_COMPACTION && dead > liveDocs / 4) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Product product) {
+        Map<String, int[]> frequencies = new HashMap<>(); // term -> {name tf, description tf}
+        int nameLength = count(product.getName(), 0, frequencies);
+        int descriptionLength = count(product.getDescription(), 1, frequencies);
+
+        int doc = maxDoc++;
+        if (doc == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+        }
+        Doc entry = new Doc(product.getId(), product.getName(), product.getDescription(), product.getCategory(),
+                product.getPrice(), NAME_WEIGHT * nameLength + descriptionLength);
+        docs[doc] = entry;
+        docByProduct.put(product.getId(), doc);
+        liveDocs++;
+        totalLength += entry.length;
+
+        frequencies.forEach((term, tf) -> terms.computeIfAbsent(term, t -> new Postings()).add(doc, tf[0], tf[1]));
+    }
+
+    private void remove(String productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc != null) {
+            docs[doc].live = false;
+            liveDocs--;
+            totalLength -= docs[doc].length;
+        }
+    }
+
+    /**
+     * Re-add live documents under dense ids, dropping dead postings.
+     */
+    private void compact() {
+        List<Product> live = new ArrayList<>(liveDocs);
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (docs[doc].live) {
+                live.add(docs[doc].toProduct());
+            }
+        }
+        terms.clear();
+        docByProduct.clear();
+        docs = new Doc[Math.max(1024, Integer.highestOneBit(Math.max(1, live.size())) * 2)];
+        maxDoc = 0;
+        liveDocs = 0;
+        totalLength = 0;
+        live.forEach(this::add);
+        log.debug("Compacted local search index to {} products", liveDocs);
+    }
+
+    /**
+     * Docs containing every token (the last one as a prefix), filtered and
+     * ranked, top {@code limit} first.
+     */
+    private List<Integer> match(List<String> tokens, boolean namesOnly, String category,
+                                Double minPrice, Double maxPrice, int limit) {
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<ScoredDoc> top = new PriorityQueue<>(limit + 1);
+        forEachMatch(tokens, namesOnly, (doc, score) -> {
+            if (docs[doc].matches(category, minPrice, maxPrice)) {
+                top.add(new ScoredDoc(doc, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+
+        Integer[] ranked = new Integer[top.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll().doc;
+        }
+        return Arrays.asList(ranked);
+    }
+
+    /**
+     * Feed every live doc containing all tokens to {@code consumer} with its
+     * BM25 score; with no tokens, every live doc with score 0.
+     */
+    private void forEachMatch(List<String> tokens, boolean namesOnly, MatchConsumer consumer) {
+        if (tokens.isEmpty()) {
+            for (int doc = 0; doc < maxDoc; doc++) {
+                if (docs[doc].live) {
+                    consumer.accept(doc, 0f);
+                }
+            }
+            return;
+        }
+        List<List<Postings>> clauses = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            List<Postings> expansions = i == tokens.size() - 1 ? prefix(tokens.get(i)) : exact(tokens.get(i));
+            if (expansions.isEmpty()) {
+                return;
+            }
+            clauses.add(expansions);
+        }
+        // Intersect starting from the rarest clause
+        clauses.sort((a, c) -> Integer.compare(size(a), size(c)));
+
+        float averageLength = liveDocs == 0 ? 1f : (float) totalLength / liveDocs;
+        for (int doc : union(clauses.get(0), namesOnly)) {
+            Doc entry = docs[doc];
+            if (!entry.live) {
+                continue;
+            }
+            float score = 0f;
+            for (List<Postings> clause : clauses) {
+                float clauseScore = score(clause, doc, entry, namesOnly, averageLength);
+                if (clauseScore == 0f) {
+                    score = 0f;
+                    break;
+                }
+                score += clauseScore;
+            }
+            if (score > 0f) {
+                consumer.accept(doc, score);
+            }
+        }
+    }
+
+    private List<Postings> exact(String token) {
+        Postings postings = terms.get(token);
+        return postings != null ? List.of(postings) : List.of();
+    }
+
+    private List<Postings> prefix(String token) {
+        List<Postings> expansions = new ArrayList<>();
+        for (Postings postings : terms.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+            expansions.add(postings);
+            if (expansions.size() == MAX_PREFIX_TERMS) {
+                break;
+            }
+        }
+        return expansions;
+    }
+
+    private float score(List<Postings> clause, int doc, Doc entry, boolean namesOnly, float averageLength) {
+        float score = 0f;
+        for (Postings postings : clause) {
+            int at = postings.indexOf(doc);
+            if (at < 0) {
+                continue;
+            }
+            int tf = namesOnly ? postings.nameTf[at] : NAME_WEIGHT * postings.nameTf[at] + postings.descriptionTf[at];
+            if (tf == 0) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+            float norm = K1 * (1 - B + B * entry.length / averageLength);
+            score += idf * tf * (K1 + 1) / (tf + norm);
+        }
+        return score;
+    }
+
+    /**
+     * Sorted, distinct doc ids across a clause's posting lists.
+     */
+    private static int[] union(List<Postings> clause, boolean namesOnly) {
+        if (clause.size() == 1 && !namesOnly) {
+            Postings only = clause.get(0);
+            return Arrays.copyOf(only.docs, only.size);
+        }
+        int[] merged = new int[size(clause)];
+        int count = 0;
+        for (Postings postings : clause) {
+            for (int i = 0; i < postings.size; i++) {
+                if (!namesOnly || postings.nameTf[i] > 0) {
+                    merged[count++] = postings.docs[i];
+                }
+            }
+        }
+        Arrays.sort(merged, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || merged[distinct - 1] != merged[i]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+
+    private static int size(List<Postings> clause) {
+        int size = 0;
+        for (Postings postings : clause) {
+            size += postings.size;
+        }
+        return size;
+    }
+
+    /**
+     * Tokenize {@code text} into {@code frequencies[term][field]}; returns the token count.
+     */
+    private static int count(String text, int field, Map<String, int[]> frequencies) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.computeIfAbsent(token, t -> new int[2])[field]++;
+        }
+        return tokens.size();
+    }
+
+    /**
+     * Lower-cased runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Doc ids in ascending order with parallel per-field term frequencies.
+     * New docs always get the highest id so far, so appends keep it sorted.
+     */
+    private static final class Postings {
+
+        int[] docs = new int[4];
+        int[] nameTf = new int[4];
+        int[] descriptionTf = new int[4];
+        int size;
+
+        void add(int doc, int name, int description) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                nameTf = Arrays.copyOf(nameTf, size * 2);
+                descriptionTf = Arrays.copyOf(descriptionTf, size * 2);
+            }
+            docs[size] = doc;
+            nameTf[size] = name;
+            descriptionTf[size] = description;
+            size++;
+        }
+
+        int indexOf(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc);
+        }
+    }
+
+    private static final class Doc {
+
+        final String productId;
+        final String name;
+        final String description;
+        final String category;
+        final BigDecimal price;
+        final int length; // Weighted token count
+        boolean live = true;
+
+        Doc(String productId, String name, String description, String category, BigDecimal price, int length) {
+            this.productId = productId;
+            this.name = name;
+            this.description = description;
+            this.category = category;
+            this.price = price;
+            this.length = length;
+        }
+
+        boolean matches(String categoryFilter, Double minPrice, Double maxPrice) {
+            if (categoryFilter != null && !categoryFilter.isBlank() && !categoryFilter.equals(category)) {
+                return false;
+            }
+            if (minPrice != null && (price == null || price.doubleValue() < minPrice)) {
+                return false;
+            }
+            return maxPrice == null || (price != null && price.doubleValue() <= maxPrice);
+        }
+
+        Product toProduct() {
+            Product product = new Product();
+            product.setId(productId);
+            product.setName(name);
+            product.setDescription(description);
+            product.setCategory(category);
+            product.setPrice(price);
+            return product;
+        }
+    }
+
+    @FunctionalInterface
+    private interface MatchConsumer {
+        void accept(int doc, float score);
+    }
+
+    private record ScoredDoc(int doc, float score) implements Comparable<ScoredDoc> {
+
+        @Override
+        public int compareTo(ScoredDoc other) {
+            return Float.compare(score, other.score); // Min-heap: weakest hit on top
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package com.orderly.inventory.search;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.CompletionContext;
+import org.springframework.data.elasticsearch.annotations.CompletionField;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
 
 import java.math.BigDecimal;
 
 @Document(indexName = "products")
 public class ProductDocument {
 
+    static final String SUGGEST_SCOPE = "scope";
+
     @Id
     private String id;
 
@@ -37,6 +42,12 @@ public class ProductDocument {
     @Field(type = FieldType.Boolean)
     private boolean active;
 
+    // Autocomplete on the name; see ProductSearchService#suggest
+    @CompletionField(maxInputLength = 100, contexts = {
+            @CompletionContext(name = ProductDocument.SUGGEST_SCOPE, type = CompletionContext.ContextMappingType.CATEGORY)
+    })
+    private Completion suggest;
+
     public ProductDocument() {
     }
 
@@ -112,4 +123,12 @@ public class ProductDocument {
     public void setActive(boolean active) {
         this.active = active;
     }
+
+    public Completion getSuggest() {
+        return suggest;
+    }
+
+    public void setSuggest(Completion suggest) {
+        this.suggest = suggest;
+    }
 }
@@ -0,0 +1,189 @@
+package com.orderly.inventory.search;
+
+import com.orderly.inventory.cache.ProductChangedEvent;
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the search index in step with product writes, off the write path.
+ *
+ * Every local product change is queued by id; changes to the same product
+ * within one flush interval collapse into a single update. Each flush loads
+ * the current state of queued products in one query and sends it as one bulk
+ * request: stock-only changes as partial updates, catalog changes as whole
+ * documents. Rejected items go back on the queue with exponential backoff.
+ * Changes made on other instances are indexed by those instances.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.elasticsearch.enabled", havingValue = "true", matchIfMissing = false)
+public class ProductIndexQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIndexQueue.class);
+
+    private final ProductSearchService searchService;
+    private final ProductRepository productRepository;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    private final Map<String, PendingIndex> pending = new ConcurrentHashMap<>();
+
+    private final Timer lag;
+    private final Counter failures;
+
+    public ProductIndexQueue(ProductSearchService searchService,
+                             ProductRepository productRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${inventory.search.index.batch-size:500}") int batchSize,
+                             @Value("${inventory.search.index.retry-backoff:1s}") Duration retryBackoff,
+                             @Value("${inventory.search.index.max-retry-backoff:1m}") Duration maxRetryBackoff) {
+        this.searchService = searchService;
+        this.productRepository = productRepository;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+
+        Gauge.builder("inventory.search.index.pending", pending, Map::size)
+                .description("Products waiting to be indexed")
+                .register(meterRegistry);
+        Gauge.builder("inventory.search.index.oldest_pending_age", this, ProductIndexQueue::oldestPendingSeconds)
+                .description("Seconds the longest-waiting product change has been queued")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.lag = Timer.builder("inventory.search.index.lag")
+                .description("Time from a product write to Elasticsearch accepting it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failures = meterRegistry.counter("inventory.search.index.failures");
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        boolean catalog = event.getType() == ProductChangedEvent.ChangeType.CATALOG;
+        Instant now = Instant.now();
+        for (String productId : event.getProductIds()) {
+            pending.merge(productId, new PendingIndex(catalog, now, 0, now), PendingIndex::merge);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.search.index.flush-interval:PT0.5S}")
+    public void flush() {
+        Instant now = Instant.now();
+        List<String> ready = pending.entrySet().stream()
+                .filter(entry -> !entry.getValue().notBefore().isAfter(now))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        for (int from = 0; from < ready.size(); from += batchSize) {
+            Map<String, PendingIndex> batch = new HashMap<>();
+            for (String productId : ready.subList(from, Math.min(from + batchSize, ready.size()))) {
+                PendingIndex entry = pending.remove(productId);
+                if (entry != null) {
+                    batch.put(productId, entry);
+                }
+            }
+            if (!batch.isEmpty()) {
+                index(batch);
+            }
+        }
+    }
+
+    private void index(Map<String, PendingIndex> batch) {
+        Map<String, String> failed = new HashMap<>();
+        try {
+            List<Product> products = productRepository.findAllById(batch.keySet());
+            Set<String> stockOnly = new HashSet<>();
+            Set<String> missing = new HashSet<>(batch.keySet());
+            for (Product product : products) {
+                missing.remove(product.getId());
+                if (!batch.get(product.getId()).catalog()) {
+                    stockOnly.add(product.getId());
+                }
+            }
+            if (!products.isEmpty()) {
+                failed.putAll(searchService.bulkUpdate(products, stockOnly));
+            }
+            for (String productId : missing) {
+                try {
+                    searchService.removeFromIndex(productId);
+                } catch (Exception e) {
+                    failed.put(productId, String.valueOf(e.getMessage()));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to index {} products: {}", batch.size(), e.getMessage());
+            batch.keySet().forEach(productId -> failed.put(productId, String.valueOf(e.getMessage())));
+        }
+
+        Instant now = Instant.now();
+        batch.forEach((productId, entry) -> {
+            String reason = failed.get(productId);
+            if (reason == null) {
+                lag.record(Duration.between(entry.queuedAt(), now));
+            } else {
+                retry(productId, entry, reason, now);
+            }
+        });
+    }
+
+    private void retry(String productId, PendingIndex entry, String reason, Instant now) {
+        failures.increment();
+        int attempts = entry.attempts() + 1;
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 16));
+        if (backoff.compareTo(maxRetryBackoff) > 0) {
+            backoff = maxRetryBackoff;
+        }
+        log.debug("Indexing product {} failed (attempt {}), retrying in {}: {}", productId, attempts, backoff, reason);
+        PendingIndex retried = new PendingIndex(entry.catalog(), entry.queuedAt(), attempts, now.plus(backoff));
+        // A change queued meanwhile is folded in but waits out the backoff
+        pending.merge(productId, retried, (newer, failedEntry) -> failedEntry.merge(newer));
+    }
+
+    private double oldestPendingSeconds() {
+        Instant now = Instant.now();
+        return pending.values().stream()
+                .map(PendingIndex::queuedAt)
+                .min(Instant::compareTo)
+                .map(oldest -> Duration.between(oldest, now).toMillis() / 1000.0)
+                .orElse(0.0);
+    }
+
+    /**
+     * @param catalog    whether any coalesced change touched more than stock
+     * @param queuedAt   when the oldest coalesced change was queued
+     * @param notBefore  earliest next attempt, after a failure
+     */
+    private record PendingIndex(boolean catalog, Instant queuedAt, int attempts, Instant notBefore) {
+
+        /**
+         * Combine with a later change to the same product, keeping this entry's retry state.
+         */
+        PendingIndex merge(PendingIndex later) {
+            Instant first = queuedAt.isBefore(later.queuedAt) ? queuedAt : later.queuedAt;
+            return new PendingIndex(catalog || later.catalog, first, attempts, notBefore);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.orderly.inventory.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.orderly.inventory.catalog.CatalogSequence;
+import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.ledger.StockMovement;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the search index without searches ever seeing a partial one.
+ *
+ * Searches go through the {@code products} alias. A reindex creates a new
+ * versioned index with refresh and replicas off, splits the products
+ * collection into {@code _id} ranges of one batch each, and loads the ranges
+ * in parallel. Live changes are written to the new index as well while it
+ * loads, and products that changed since the job started are re-read once the
+ * load is done. Only then are refresh and replicas restored and the alias
+ * moved over in one atomic request.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.elasticsearch.enabled", havingValue = "true", matchIfMissing = false)
+public class ProductReindexService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReindexService.class);
+    private static final DateTimeFormatter VERSION = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long CATCH_UP_OVERLAP_SECONDS = 5;
+
+    private final ProductSearchService searchService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final MongoTemplate mongoTemplate;
+    private final CatalogSequence catalogSequence;
+    private final int batchSize;
+    private final int replicas;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+
+    private final AtomicReference<ReindexJob> current = new AtomicReference<>();
+
+    public ProductReindexService(ProductSearchService searchService,
+                                 ElasticsearchOperations elasticsearchOperations,
+                                 ElasticsearchClient elasticsearchClient,
+                                 MongoTemplate mongoTemplate,
+                                 CatalogSequence catalogSequence,
+                                 @Value("${inventory.search.reindex.batch-size:1000}") int batchSize,
+                                 @Value("${inventory.search.reindex.workers:4}") int workerCount,
+                                 @Value("${inventory.search.reindex.replicas:1}") int replicas) {
+        this.searchService = searchService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.mongoTemplate = mongoTemplate;
+        this.catalogSequence = catalogSequence;
+        this.batchSize = batchSize;
+        this.replicas = replicas;
+
+        this.coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "product-reindex-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Start a reindex in the background.
+     *
+     * @throws IllegalStateException if one is already running on this instance
+     */
+    public ReindexJob start() {
+        String index = alias() + "_v" + VERSION.format(Instant.now());
+        ReindexJob job = new ReindexJob(index, mongoTemplate.estimatedCount(Product.class));
+        ReindexJob previous = current.get();
+        if (previous != null && previous.isRunning() || !current.compareAndSet(previous, job)) {
+            throw new IllegalStateException("A reindex is already running");
+        }
+        coordinator.execute(() -> run(job));
+        log.info("Started reindex into {} (~{} products)", index, job.getEstimatedTotal());
+        return job;
+    }
+
+    /**
+     * The running or most recently finished job on this instance.
+     */
+    public Optional<ReindexJob> getCurrentJob() {
+        return Optional.ofNullable(current.get());
+    }
+
+    private void run(ReindexJob job) {
+        IndexCoordinates target = IndexCoordinates.of(job.getIndex());
+        Instant startedAt = job.getStartedAt();
+        long startSeq = catalogSequence.current();
+        try {
+            IndexOperations indexOps = elasticsearchOperations.indexOps(target);
+            indexOps.create(Map.of(), elasticsearchOperations.indexOps(ProductDocument.class).createMapping());
+            putSettings(job.getIndex(), "-1", 0);
+            searchService.setBuildingIndex(target);
+
+            load(job, target);
+            if (job.getFailed() > 0) {
+                throw new IllegalStateException(job.getFailed() + " products could not be indexed");
+            }
+
+            job.setPhase(ReindexJob.Phase.CATCHING_UP);
+            job.setCaughtUp(catchUp(job, target, startSeq, startedAt));
+
+            putSettings(job.getIndex(), "1s", replicas);
+            indexOps.refresh();
+
+            job.setPhase(ReindexJob.Phase.SWAPPING);
+            List<String> previous = swapAlias(job.getIndex());
+            searchService.setBuildingIndex(null);
+            for (String old : previous) {
+                elasticsearchOperations.indexOps(IndexCoordinates.of(old)).delete();
+            }
+
+            job.complete();
+            log.info("Reindex into {} completed: {} products at {} docs/s, {} caught up, replaced {}",
+                    job.getIndex(), job.getIndexed(), Math.round(job.getDocsPerSecond()), job.getCaughtUp(), previous);
+        } catch (Exception e) {
+            searchService.setBuildingIndex(null);
+            job.fail(e.getMessage());
+            log.error("Reindex into {} failed: {}", job.getIndex(), e.getMessage(), e);
+            try {
+                elasticsearchOperations.indexOps(target).delete();
+            } catch (Exception cleanup) {
+                log.warn("Failed to delete abandoned index {}: {}", job.getIndex(), cleanup.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Walk the _id index one batch at a time to find range boundaries, handing
+     * each range to the worker pool as soon as it is known.
+     */
+    private void load(ReindexJob job, IndexCoordinates target) throws InterruptedException, ExecutionException {
+        List<Future<?>> ranges = new ArrayList<>();
+        String lower = null;
+        while (true) {
+            Query boundary = new Query(lower == null ? new Criteria() : Criteria.where("_id").gt(lower))
+                    .with(Sort.by("_id"))
+                    .skip(batchSize - 1L);
+            boundary.fields().include("_id");
+            Product last = mongoTemplate.findOne(boundary, Product.class);
+            String upper = last != null ? last.getId() : null;
+
+            String from = lower;
+            ranges.add(workers.submit(() -> loadRange(job, target, from, upper)));
+            if (upper == null) {
+                break;
+            }
+            lower = upper;
+        }
+
+        int logEvery = Math.max(1, ranges.size() / 10);
+        for (int i = 0; i < ranges.size(); i++) {
+            ranges.get(i).get();
+            if ((i + 1) % logEvery == 0) {
+                log.info("Reindex into {}: {} products indexed ({}%, {} docs/s)", job.getIndex(), job.getIndexed(),
+                        Math.round(job.getPercentComplete()), Math.round(job.getDocsPerSecond()));
+            }
+        }
+    }
+
+    /**
+     * Index products with ids in (lower, upper]; null bounds are open.
+     */
+    private void loadRange(ReindexJob job, IndexCoordinates target, String lower, String upper) {
+        Criteria range = Criteria.where("_id");
+        if (lower != null) {
+            range = range.gt(lower);
+        }
+        if (upper != null) {
+            range = range.lte(upper);
+        }
+        Query query = new Query(lower == null && upper == null ? new Criteria() : range).with(Sort.by("_id"));
+        index(job, target, mongoTemplate.find(query, Product.class));
+    }
+
+    /**
+     * Re-read products written since the job started: catalog writes by
+     * sequence, stock writes from the ledger.
+     */
+    private long catchUp(ReindexJob job, IndexCoordinates target, long startSeq, Instant startedAt) {
+        Set<String> changed = new HashSet<>();
+        Query catalogWrites = new Query(Criteria.where("changeSeq").gt(startSeq));
+        catalogWrites.fields().include("_id");
+        mongoTemplate.find(catalogWrites, Product.class).forEach(product -> changed.add(product.getId()));
+        changed.addAll(mongoTemplate.findDistinct(
+                new Query(Criteria.where("timestamp").gte(startedAt.minusSeconds(CATCH_UP_OVERLAP_SECONDS))),
+                "productId", StockMovement.class, String.class));
+
+        List<String> ids = new ArrayList<>(changed);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            index(job, target, mongoTemplate.find(new Query(Criteria.where("_id").in(batch)), Product.class));
+        }
+        return ids.size();
+    }
+
+    private void index(ReindexJob job, IndexCoordinates target, List<Product> products) {
+        Collection<Product> remaining = products;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+            Map<String, String> failed = searchService.bulkIndex(remaining, target);
+            job.addIndexed(remaining.size() - failed.size());
+            if (!failed.isEmpty()) {
+                log.debug("Reindex batch attempt {}: {} products rejected, e.g. {}", attempt, failed.size(),
+                        failed.values().iterator().next());
+            }
+            remaining = remaining.stream()
+                    .filter(product -> failed.containsKey(product.getId()))
+                    .collect(Collectors.toList());
+        }
+        job.addFailed(remaining.size());
+    }
+
+    /**
+     * Point the alias at the new index in one request, detaching it from
+     * whatever it pointed at. A plain index still holding the alias name from
+     * before aliases were used is removed in the same request.
+     *
+     * @return the indices the alias was moved away from
+     */
+    private List<String> swapAlias(String index) {
+        String alias = alias();
+        IndexOperations aliasOps = elasticsearchOperations.indexOps(IndexCoordinates.of(alias));
+        Map<String, Set<AliasData>> holders;
+        try {
+            holders = aliasOps.getAliases(alias);
+        } catch (Exception e) {
+            holders = Map.of(); // No index holds the alias yet
+        }
+
+        AliasActions actions = new AliasActions();
+        List<String> previous = new ArrayList<>(holders.keySet());
+        if (previous.isEmpty() && aliasOps.exists()) {
+            actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(alias).build()));
+        } else if (!previous.isEmpty()) {
+            actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                    .withIndices(previous.toArray(String[]::new)).withAliases(alias).build()));
+        }
+        actions.add(new AliasAction.Add(AliasActionParameters.builder().withIndices(index).withAliases(alias).build()));
+        aliasOps.alias(actions);
+        return previous;
+    }
+
+    private void putSettings(String index, String refreshInterval, int replicaCount) throws IOException {
+        elasticsearchClient.indices().putSettings(request -> request
+                .index(index)
+                .settings(settings -> settings
+                        .refreshInterval(time -> time.time(refreshInterval))
+                        .numberOfReplicas(String.valueOf(replicaCount))));
+    }
+
+    private String alias() {
+        return elasticsearchOperations.getIndexCoordinatesFor(ProductDocument.class).getIndexName();
+    }
+}
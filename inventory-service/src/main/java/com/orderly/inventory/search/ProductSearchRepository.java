@@ -16,6 +16,4 @@ public interface ProductSearchRepository extends ElasticsearchRepository<Product
     List<ProductDocument> findByCategory(String category);
 
     List<ProductDocument> findByActiveTrue();
-
-    List<ProductDocument> findByNameContainingIgnoreCaseAndActiveTrue(String name);
 }
@@ -1,19 +1,47 @@
 package com.orderly.inventory.search;
 
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.search.CompletionContext;
+import co.elastic.clients.elasticsearch.core.search.Suggester;
+import co.elastic.clients.json.JsonData;
 import com.orderly.inventory.entity.Product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 import org.springframework.data.elasticsearch.core.query.Criteria;
 import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
+import org.springframework.data.elasticsearch.core.suggest.response.CompletionSuggestion;
+import org.springframework.data.elasticsearch.core.suggest.response.Suggest;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,9 +49,16 @@ import java.util.stream.Collectors;
 public class ProductSearchService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+    private static final String NAME_SUGGESTION = "names";
+    private static final String ACTIVE_SCOPE = "active";
+    private static final String CATEGORY_FACET = "categories";
+    private static final String PRICE_FACET = "prices";
+    private static final String FACET_VALUES = "values";
+    private static final int MAX_CATEGORY_FACETS = 50;
 
     private final ProductSearchRepository searchRepository;
     private final ElasticsearchOperations elasticsearchOperations;
+    private volatile IndexCoordinates buildingIndex; // Set while a reindex is loading a new index
 
     @Autowired
     public ProductSearchService(ProductSearchRepository searchRepository,
@@ -100,29 +135,196 @@ public class ProductSearchService {
     }
 
     /**
-     * Get autocomplete suggestions
+     * One page of hits plus category and price facets, in one round trip.
+     * Filters go in post_filter so each facet can be counted without its own
+     * filter; pages continue with search_after on (score, sku).
      */
-    public List<String> getSuggestions(String prefix) {
-        List<ProductDocument> results = searchRepository
-                .findByNameContainingIgnoreCaseAndActiveTrue(prefix);
-
-        return results.stream()
-                .map(ProductDocument::getName)
-                .distinct()
-                .limit(10)
+    public FacetedSearchResult facetedSearch(String text, String category, Double minPrice, Double maxPrice,
+                                             String cursor, int limit, double priceInterval) {
+        Query match = text == null || text.isBlank()
+                ? Query.of(q -> q.matchAll(m -> m))
+                : Query.of(q -> q.multiMatch(m -> m
+                        .query(text)
+                        .fields("name^2", "description")
+                        .type(TextQueryType.BoolPrefix)
+                        .operator(Operator.And)));
+        Query categoryFilter = category == null || category.isBlank()
+                ? null
+                : Query.of(q -> q.term(t -> t.field("category").value(category)));
+        Query priceFilter = minPrice == null && maxPrice == null
+                ? null
+                : Query.of(q -> q.range(r -> {
+                    r.field("price");
+                    if (minPrice != null) {
+                        r.gte(JsonData.of(minPrice));
+                    }
+                    if (maxPrice != null) {
+                        r.lte(JsonData.of(maxPrice));
+                    }
+                    return r;
+                }));
+
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> b.must(match).filter(f -> f.term(t -> t.field("active").value(true)))))
+                .withSort(List.of(
+                        SortOptions.of(o -> o.score(sc -> sc.order(SortOrder.Desc))),
+                        SortOptions.of(o -> o.field(f -> f.field("sku").order(SortOrder.Asc)))))
+                .withMaxResults(limit + 1);
+        List<Query> postFilters = new ArrayList<>();
+        if (categoryFilter != null) {
+            postFilters.add(categoryFilter);
+        }
+        if (priceFilter != null) {
+            postFilters.add(priceFilter);
+        }
+        if (!postFilters.isEmpty()) {
+            builder.withFilter(q -> q.bool(b -> b.filter(postFilters)));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            builder.withSearchAfter(SearchCursor.decode(cursor, 2));
+        } else {
+            // Facets do not change between pages, so only the first page asks for them
+            builder.withAggregation(CATEGORY_FACET, Aggregation.of(a -> a
+                    .filter(orMatchAll(priceFilter))
+                    .aggregations(FACET_VALUES, v -> v.terms(t -> t.field("category").size(MAX_CATEGORY_FACETS)))));
+            builder.withAggregation(PRICE_FACET, Aggregation.of(a -> a
+                    .filter(orMatchAll(categoryFilter))
+                    .aggregations(FACET_VALUES, v -> v.histogram(h -> h
+                            .field("price").interval(priceInterval).minDocCount(1)))));
+        }
+
+        SearchHits<ProductDocument> hits = elasticsearchOperations.search(builder.build(), ProductDocument.class);
+        List<SearchHit<ProductDocument>> page = hits.getSearchHits();
+        String nextCursor = null;
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            nextCursor = SearchCursor.encode(page.get(limit - 1).getSortValues());
+        }
+
+        List<FacetedSearchResult.CategoryFacet> categories = new ArrayList<>();
+        List<FacetedSearchResult.PriceBucket> prices = new ArrayList<>();
+        if (hits.getAggregations() instanceof ElasticsearchAggregations aggregations) {
+            aggregations.get(CATEGORY_FACET).aggregation().getAggregate().filter().aggregations()
+                    .get(FACET_VALUES).sterms().buckets().array()
+                    .forEach(bucket -> categories.add(new FacetedSearchResult.CategoryFacet(
+                            bucket.key().stringValue(), bucket.docCount())));
+            aggregations.get(PRICE_FACET).aggregation().getAggregate().filter().aggregations()
+                    .get(FACET_VALUES).histogram().buckets().array()
+                    .forEach(bucket -> prices.add(new FacetedSearchResult.PriceBucket(
+                            bucket.key(), bucket.key() + priceInterval, bucket.docCount())));
+        }
+
+        return new FacetedSearchResult(page.stream().map(SearchHit::getContent).collect(Collectors.toList()),
+                nextCursor, hits.getTotalHits(), categories, prices);
+    }
+
+    /**
+     * Autocomplete from the completion field: active products whose name has a
+     * word starting with {@code prefix}, optionally within one category. Only
+     * the name is fetched from each hit.
+     */
+    public List<ProductSuggestion> suggest(String prefix, String category, int limit) {
+        String scope = category == null || category.isBlank() ? ACTIVE_SCOPE : ACTIVE_SCOPE + ":" + category;
+        // A product can match on several of its words, so ask for extra
+        Suggester suggester = Suggester.of(s -> s.suggesters(NAME_SUGGESTION, f -> f
+                .prefix(prefix)
+                .completion(c -> c
+                        .field("suggest")
+                        .size(limit * 2)
+                        .contexts(ProductDocument.SUGGEST_SCOPE,
+                                List.of(CompletionContext.of(cc -> cc.context(ctx -> ctx.category(scope))))))));
+        NativeQuery query = NativeQuery.builder()
+                .withSuggester(suggester)
+                .withSourceFilter(new FetchSourceFilter(new String[]{"name"}, null))
+                .withMaxResults(0)
+                .build();
+
+        Suggest suggest = elasticsearchOperations.search(query, ProductDocument.class).getSuggest();
+        Map<String, ProductSuggestion> suggestions = new LinkedHashMap<>();
+        if (suggest == null || suggest.getSuggestion(NAME_SUGGESTION) == null) {
+            return List.of();
+        }
+        for (Suggest.Suggestion.Entry<?> entry : suggest.getSuggestion(NAME_SUGGESTION).getEntries()) {
+            for (Object option : entry.getOptions()) {
+                if (option instanceof CompletionSuggestion.Entry.Option<?> completion
+                        && completion.getSearchHit() != null && suggestions.size() < limit) {
+                    SearchHit<?> hit = completion.getSearchHit();
+                    ProductDocument document = (ProductDocument) hit.getContent();
+                    suggestions.putIfAbsent(hit.getId(), new ProductSuggestion(hit.getId(), document.getName()));
+                }
+            }
+        }
+        return new ArrayList<>(suggestions.values());
+    }
+
+    /**
+     * Apply a batch of changes in one bulk request. Catalog changes send the
+     * whole document; stock-only changes send just the stock quantity, with the
+     * whole document as upsert in case the product was never indexed.
+     *
+     * @return failure reasons for the items that were rejected, by product id
+     */
+    public Map<String, String> bulkUpdate(Collection<Product> products, Set<String> stockOnly) {
+        List<UpdateQuery> updates = products.stream()
+                .map(product -> {
+                    Document source = elasticsearchOperations.getElasticsearchConverter()
+                            .mapObject(toDocument(product));
+                    if (!stockOnly.contains(product.getId())) {
+                        return UpdateQuery.builder(product.getId()).withDocument(source).withDocAsUpsert(true).build();
+                    }
+                    Document stock = Document.create();
+                    stock.put("stockQuantity", product.getStockQuantity());
+                    return UpdateQuery.builder(product.getId()).withDocument(stock).withUpsert(source).build();
+                })
                 .collect(Collectors.toList());
+        Map<String, String> failed = new HashMap<>();
+        bulkUpdate(updates, elasticsearchOperations.getIndexCoordinatesFor(ProductDocument.class), failed);
+        IndexCoordinates building = buildingIndex;
+        if (building != null) {
+            bulkUpdate(updates, building, failed);
+        }
+        return failed;
     }
 
     /**
-     * Reindex all products (useful for initial sync)
+     * Index whole documents into a specific index, for bulk loads.
+     *
+     * @return failure reasons for the items that were rejected, by product id
      */
-    public void reindexAll(List<Product> products) {
-        List<ProductDocument> documents = products.stream()
-                .map(this::toDocument)
+    public Map<String, String> bulkIndex(Collection<Product> products, IndexCoordinates index) {
+        List<IndexQuery> queries = products.stream()
+                .map(product -> new IndexQueryBuilder()
+                        .withId(product.getId())
+                        .withObject(toDocument(product))
+                        .build())
                 .collect(Collectors.toList());
+        try {
+            elasticsearchOperations.bulkIndex(queries, index);
+            return Map.of();
+        } catch (BulkFailureException e) {
+            return failures(e);
+        }
+    }
+
+    /**
+     * While a reindex builds a new index, live changes are written to it as well.
+     */
+    void setBuildingIndex(IndexCoordinates index) {
+        this.buildingIndex = index;
+    }
+
+    private void bulkUpdate(List<UpdateQuery> updates, IndexCoordinates index, Map<String, String> failed) {
+        try {
+            elasticsearchOperations.bulkUpdate(updates, index);
+        } catch (BulkFailureException e) {
+            failed.putAll(failures(e));
+        }
+    }
 
-        searchRepository.saveAll(documents);
-        log.info("Reindexed {} products", products.size());
+    private static Map<String, String> failures(BulkFailureException e) {
+        Map<String, String> failed = new HashMap<>();
+        e.getFailedDocuments().forEach((id, details) -> failed.put(id, details.errorMessage()));
+        return failed;
     }
 
     private ProductDocument toDocument(Product product) {
@@ -136,6 +338,41 @@ public class ProductSearchService {
         doc.setStockQuantity(product.getStockQuantity());
         doc.setImageUrl(product.getImageUrl());
         doc.setActive(product.isActive());
+        doc.setSuggest(completion(product));
         return doc;
     }
+
+    /**
+     * The name from each word on, so "Wireless Mouse" also completes "mou".
+     * Contexts combine active and category into one value, so a suggest query
+     * can require both at once.
+     */
+    private static Completion completion(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return null;
+        }
+        List<String> inputs = new ArrayList<>();
+        String name = product.getName().trim();
+        for (int i = 0; i < name.length(); i++) {
+            if (i == 0 || name.charAt(i - 1) == ' ' && name.charAt(i) != ' ') {
+                inputs.add(name.substring(i));
+            }
+        }
+        Completion completion = new Completion(inputs);
+        List<String> scopes = new ArrayList<>();
+        if (product.isActive()) {
+            scopes.add(ACTIVE_SCOPE);
+            if (product.getCategory() != null) {
+                scopes.add(ACTIVE_SCOPE + ":" + product.getCategory());
+            }
+        } else {
+            scopes.add("inactive");
+        }
+        completion.setContexts(Map.of(ProductDocument.SUGGEST_SCOPE, scopes));
+        return completion;
+    }
+
+    private static Query orMatchAll(Query filter) {
+        return filter != null ? filter : Query.of(q -> q.matchAll(m -> m));
+    }
 }
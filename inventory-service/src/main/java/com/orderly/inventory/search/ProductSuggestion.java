@@ -0,0 +1,23 @@
+package com.orderly.inventory.search;
+
+/**
+ * One autocomplete entry: just enough to show the name and link to the product.
+ */
+public class ProductSuggestion {
+
+    private final String id;
+    private final String name;
+
+    public ProductSuggestion(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
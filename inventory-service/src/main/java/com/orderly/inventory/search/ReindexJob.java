@@ -0,0 +1,115 @@
+package com.orderly.inventory.search;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one reindex into a new versioned index. Held in memory by the
+ * instance running it; counters are updated by the load workers as they go.
+ */
+public class ReindexJob {
+
+    private final String index;
+    private final long estimatedTotal;
+    private final Instant startedAt;
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Phase phase = Phase.LOADING;
+    private volatile long caughtUp;
+    private volatile String failureReason;
+    private volatile Instant finishedAt;
+
+    ReindexJob(String index, long estimatedTotal) {
+        this.index = index;
+        this.estimatedTotal = estimatedTotal;
+        this.startedAt = Instant.now();
+    }
+
+    void addIndexed(long count) {
+        indexed.addAndGet(count);
+    }
+
+    void addFailed(long count) {
+        failed.addAndGet(count);
+    }
+
+    void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+
+    void setCaughtUp(long caughtUp) {
+        this.caughtUp = caughtUp;
+    }
+
+    void complete() {
+        this.phase = Phase.COMPLETED;
+        this.finishedAt = Instant.now();
+    }
+
+    void fail(String reason) {
+        this.phase = Phase.FAILED;
+        this.failureReason = reason;
+        this.finishedAt = Instant.now();
+    }
+
+    public boolean isRunning() {
+        return finishedAt == null;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public long getEstimatedTotal() {
+        return estimatedTotal;
+    }
+
+    public long getIndexed() {
+        return indexed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Products re-read after the load because they changed while it ran.
+     */
+    public long getCaughtUp() {
+        return caughtUp;
+    }
+
+    public double getPercentComplete() {
+        return estimatedTotal == 0 ? 100.0 : Math.min(100.0, 100.0 * indexed.get() / estimatedTotal);
+    }
+
+    public double getDocsPerSecond() {
+        long millis = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+        return millis == 0 ? 0.0 : indexed.get() * 1000.0 / millis;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public enum Phase {
+        LOADING,
+        CATCHING_UP,
+        SWAPPING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,160 @@
+package com.orderly.inventory.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.orderly.inventory.cache.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of search results, keyed on the normalized query text,
+ * category and price range.
+ *
+ * Concurrent misses for the same key wait on one backend call. Catalog writes
+ * drop the entries they can affect: unfiltered ones and those for the changed
+ * categories. Because the search index applies writes asynchronously, the same
+ * entries are dropped once more a little later, so a refill that raced the
+ * indexer does not live out the whole TTL.
+ */
+@Component
+public class SearchResultCache {
+
+    private final Cache<SearchKey, List<ProductDocument>> results;
+    private final Duration reinvalidateAfter;
+    private final Queue<PendingInvalidation> pending = new ConcurrentLinkedQueue<>();
+    private final Map<QueryClass, Counter> hits = new EnumMap<>(QueryClass.class);
+    private final Map<QueryClass, Counter> misses = new EnumMap<>(QueryClass.class);
+
+    public SearchResultCache(MeterRegistry meterRegistry,
+                             @Value("${inventory.search.cache.max-size:16MB}") DataSize maxSize,
+                             @Value("${inventory.search.cache.ttl:10s}") Duration ttl,
+                             @Value("${inventory.search.cache.reinvalidate-after:2s}") Duration reinvalidateAfter) {
+        this.results = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((SearchKey key, List<ProductDocument> value) -> weigh(key, value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.reinvalidateAfter = reinvalidateAfter;
+
+        for (QueryClass queryClass : QueryClass.values()) {
+            String tag = queryClass.name().toLowerCase(Locale.ROOT);
+            Counter hit = meterRegistry.counter("inventory.search.cache.requests", "class", tag, "result", "hit");
+            Counter miss = meterRegistry.counter("inventory.search.cache.requests", "class", tag, "result", "miss");
+            hits.put(queryClass, hit);
+            misses.put(queryClass, miss);
+            Gauge.builder("inventory.search.cache.hit.ratio", () -> {
+                        double total = hit.count() + miss.count();
+                        return total == 0 ? 0.0 : hit.count() / total;
+                    })
+                    .tag("class", tag)
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("inventory.search.cache.evictions", results, cache -> cache.stats().evictionCount())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached results for the search, running {@code search} on the normalized
+     * query text at most once per key however many callers miss at the same time.
+     */
+    public List<ProductDocument> get(String query, String category, Double minPrice, Double maxPrice,
+                                     Function<String, List<ProductDocument>> search) {
+        SearchKey key = SearchKey.of(query, category, minPrice, maxPrice);
+        List<ProductDocument> cached = results.getIfPresent(key);
+        if (cached != null) {
+            hits.get(key.queryClass()).increment();
+            return cached;
+        }
+        misses.get(key.queryClass()).increment();
+        return results.get(key, k -> List.copyOf(search.apply(k.query())));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.ChangeType.CATALOG) {
+            return; // Stock in results is bounded by the TTL
+        }
+        invalidate(event.getCategories());
+        pending.add(new PendingInvalidation(Instant.now().plus(reinvalidateAfter), event.getCategories()));
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.search.cache.reinvalidate-interval:PT0.5S}")
+    public void reinvalidate() {
+        Instant now = Instant.now();
+        PendingInvalidation next;
+        while ((next = pending.peek()) != null && !next.due().isAfter(now)) {
+            pending.poll();
+            invalidate(next.categories());
+        }
+    }
+
+    private void invalidate(Set<String> categories) {
+        results.asMap().keySet().removeIf(key -> key.category() == null || categories.contains(key.category()));
+    }
+
+    /**
+     * Rough heap estimate: key strings plus each document's strings.
+     */
+    private static int weigh(SearchKey key, List<ProductDocument> documents) {
+        int weight = 96 + chars(key.query()) + chars(key.category());
+        for (ProductDocument document : documents) {
+            weight += 120 + chars(document.getId()) + chars(document.getName()) + chars(document.getDescription())
+                    + chars(document.getCategory()) + chars(document.getSku()) + chars(document.getImageUrl());
+        }
+        return weight;
+    }
+
+    private static int chars(String value) {
+        return value != null ? 40 + 2 * value.length() : 0;
+    }
+
+    enum QueryClass {
+        TEXT,
+        TEXT_CATEGORY,
+        TEXT_PRICE,
+        TEXT_CATEGORY_PRICE
+    }
+
+    /**
+     * Query text lower-cased with whitespace collapsed; blank filters are absent.
+     */
+    record SearchKey(String query, String category, Double minPrice, Double maxPrice) {
+
+        static SearchKey of(String query, String category, Double minPrice, Double maxPrice) {
+            String normalized = query == null ? "" : String.join(" ",
+                    query.trim().toLowerCase(Locale.ROOT).split("\\s+"));
+            return new SearchKey(normalized, category == null || category.isBlank() ? null : category,
+                    minPrice, maxPrice);
+        }
+
+        QueryClass queryClass() {
+            boolean priced = minPrice != null || maxPrice != null;
+            if (category != null) {
+                return priced ? QueryClass.TEXT_CATEGORY_PRICE : QueryClass.TEXT_CATEGORY;
+            }
+            return priced ? QueryClass.TEXT_PRICE : QueryClass.TEXT;
+        }
+    }
+
+    private record PendingInvalidation(Instant due, Set<String> categories) {
+    }
+}
@@ -1,134 +1,630 @@
 package com.orderly.inventory.service;
 
+import com.orderly.inventory.cache.ProductCache;
+import com.orderly.inventory.cache.ProductChangedEvent;
+import com.orderly.inventory.catalog.CatalogSequence;
+import com.orderly.inventory.catalog.MappedCatalogService;
+import com.orderly.inventory.entity.LocationStock;
 import com.orderly.inventory.entity.Product;
+import com.orderly.inventory.ledger.StockLedger;
+import com.orderly.inventory.ledger.StockMovement;
+import com.orderly.inventory.lowstock.LowStockDetector;
 import com.orderly.inventory.repository.ProductRepository;
-import com.orderly.inventory.search.ProductSearchService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class InventoryService {
 
     private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
-    private static final int MAX_RETRY_ATTEMPTS = 3;
+    private static final int MAX_LOCATION_ATTEMPTS = 5;
 
     private final ProductRepository productRepository;
-    private final ProductSearchService searchService;
+    private final MongoTemplate mongoTemplate;
+    private final StockLedger stockLedger;
+    private final LowStockDetector lowStockDetector;
+    private final ProductCache productCache;
+    private final MappedCatalogService mappedCatalog;
+    private final CatalogSequence catalogSequence;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int appliedReservationsWindow;
 
     @Autowired
-    public InventoryService(ProductRepository productRepository, 
-                           @Autowired(required = false) ProductSearchService searchService) {
+    public InventoryService(ProductRepository productRepository,
+                           MongoTemplate mongoTemplate,
+                           StockLedger stockLedger,
+                           LowStockDetector lowStockDetector,
+                           ProductCache productCache,
+                           MappedCatalogService mappedCatalog,
+                           CatalogSequence catalogSequence,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${inventory.reservation.applied-window:1024}") int appliedReservationsWindow,
+                           @Value("${inventory.orders.batch-size:200}") int batchSize,
+                           @Value("${inventory.orders.concurrency:3}") int concurrency) {
+        // Ids must stay in the window from their stock write until the reservation records are inserted
+        if (appliedReservationsWindow < batchSize * concurrency) {
+            throw new IllegalStateException("inventory.reservation.applied-window (" + appliedReservationsWindow
+                    + ") must be at least inventory.orders.batch-size x concurrency (" + batchSize * concurrency + ")");
+        }
         this.productRepository = productRepository;
-        this.searchService = searchService;
+        this.mongoTemplate = mongoTemplate;
+        this.stockLedger = stockLedger;
+        this.lowStockDetector = lowStockDetector;
+        this.productCache = productCache;
+        this.mappedCatalog = mappedCatalog;
+        this.catalogSequence = catalogSequence;
+        this.eventPublisher = eventPublisher;
+        this.appliedReservationsWindow = appliedReservationsWindow;
     }
 
-    private void indexProduct(Product product) {
-        if (searchService == null) {
-            return; // Elasticsearch not configured
-        }
-        try {
-            searchService.indexProduct(product);
-        } catch (Exception e) {
-            log.warn("Failed to index product in Elasticsearch: {}", e.getMessage());
-        }
+    private void stockChanged(Collection<String> productIds) {
+        eventPublisher.publishEvent(ProductChangedEvent.stock(productIds));
+    }
+
+    private void catalogChanged(Product product, String previousCategory) {
+        Set<String> categories = new HashSet<>();
+        categories.add(product.getCategory());
+        categories.add(previousCategory);
+        eventPublisher.publishEvent(ProductChangedEvent.catalog(List.of(product.getId()), categories));
     }
 
     /**
      * Reserve stock for an order item.
-     * Uses optimistic locking to handle concurrent updates.
+     * The availability check and the increment happen in one atomic update,
+     * so concurrent reservations never need optimistic-lock retries.
      */
     public boolean reserveStock(String productId, int quantity) {
-        int attempts = 0;
+        return reserveStock(productId, quantity, null);
+    }
+
+    public boolean reserveStock(String productId, int quantity, String reference) {
+        Query query = new Query(Criteria.where("_id").is(productId)
+                .andOperator(Criteria.expr(MongoExpression.create(
+                        "{ $gte: [ { $subtract: [ '$stockQuantity', '$reservedQuantity' ] }, ?0 ] }", quantity))));
+        Update update = new Update().inc("reservedQuantity", quantity).inc("version", 1);
+
+        Product product = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            if (!productRepository.existsById(productId)) {
+                log.warn("Product not found: {}", productId);
+            } else {
+                log.warn("Insufficient stock for product {}: requested={}", productId, quantity);
+            }
+            return false;
+        }
+
+        stockLedger.record(productId, StockMovement.MovementType.RESERVE, 0, quantity, reference);
+        stockChanged(List.of(productId));
+        lowStockDetector.evaluate(product);
+        log.info("Reserved {} units of product {}. Remaining available: {}",
+                quantity, productId, product.getAvailableQuantity());
+        return true;
+    }
+
+    /**
+     * Reserve stock for one order line at most once.
+     * The reservation id is pushed onto a list of recent ids on the product in
+     * the same update, so a redelivered order event finds it there and the
+     * stock is not reserved again. The list only covers lines whose
+     * reservation record is not written yet; once it is, callers check the
+     * record first. Returns true if this or an earlier call reserved it.
+     */
+    public boolean reserveStockOnce(String productId, int quantity, String reservationId, String reference) {
+        return reserveStockClaims(productId, List.of(new StockClaim(reservationId, quantity, reference)))
+                .get(reservationId) != ClaimResult.REJECTED;
+    }
+
+    /**
+     * Reserve stock for several order lines of one product, each at most once.
+     * All claims are first tried together as a single update for their total;
+     * only if that fails (short on stock, or some claim was applied before)
+     * are they tried one by one, in order, so earlier claims win.
+     */
+    public Map<String, ClaimResult> reserveStockClaims(String productId, List<StockClaim> claims) {
+        Map<String, ClaimResult> results = new LinkedHashMap<>();
+        if (claims.size() > 1) {
+            List<String> ids = claims.stream().map(StockClaim::reservationId).collect(Collectors.toList());
+            int total = claims.stream().mapToInt(StockClaim::quantity).sum();
+            Product product = applyClaims(productId, ids, total,
+                    Criteria.where("appliedReservations").nin(ids));
+            if (product != null) {
+                claims.forEach(claim -> results.put(claim.reservationId(), ClaimResult.APPLIED));
+                claimsApplied(product, claims);
+                return results;
+            }
+        }
 
-        while (attempts < MAX_RETRY_ATTEMPTS) {
-            try {
-                Product product = productRepository.findById(productId).orElse(null);
-                if (product == null) {
+        List<StockClaim> applied = new ArrayList<>();
+        Product latest = null;
+        for (StockClaim claim : claims) {
+            Product product = applyClaims(productId, List.of(claim.reservationId()), claim.quantity(),
+                    Criteria.where("appliedReservations").ne(claim.reservationId()));
+            if (product != null) {
+                applied.add(claim);
+                latest = product;
+                results.put(claim.reservationId(), ClaimResult.APPLIED);
+            } else if (mongoTemplate.exists(new Query(Criteria.where("_id").is(productId)
+                    .and("appliedReservations").is(claim.reservationId())), Product.class)) {
+                log.debug("Reservation {} already applied to product {}", claim.reservationId(), productId);
+                results.put(claim.reservationId(), ClaimResult.ALREADY_APPLIED);
+            } else {
+                if (!productRepository.existsById(productId)) {
                     log.warn("Product not found: {}", productId);
-                    return false;
+                } else {
+                    log.warn("Insufficient stock for product {}: requested={}", productId, claim.quantity());
                 }
+                results.put(claim.reservationId(), ClaimResult.REJECTED);
+            }
+        }
+        if (latest != null) {
+            claimsApplied(latest, applied);
+        }
+        return results;
+    }
 
-                if (!product.hasAvailableStock(quantity)) {
-                    log.warn("Insufficient stock for product {}: requested={}, available={}",
-                            productId, quantity, product.getAvailableQuantity());
-                    return false;
-                }
+    private Product applyClaims(String productId, List<String> reservationIds, int quantity, Criteria notApplied) {
+        Query query = new Query(Criteria.where("_id").is(productId)
+                .andOperator(notApplied, Criteria.expr(MongoExpression.create(
+                        "{ $gte: [ { $subtract: [ '$stockQuantity', '$reservedQuantity' ] }, ?0 ] }", quantity))));
+        Update update = new Update().inc("reservedQuantity", quantity).inc("version", 1);
+        update.push("appliedReservations").slice(-appliedReservationsWindow).each(reservationIds.toArray());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
 
-                product.setReservedQuantity(product.getReservedQuantity() + quantity);
-                productRepository.save(product);
+    private void claimsApplied(Product product, List<StockClaim> claims) {
+        List<StockMovement> movements = new ArrayList<>(claims.size());
+        int total = 0;
+        for (StockClaim claim : claims) {
+            movements.add(new StockMovement(product.getId(), StockMovement.MovementType.RESERVE,
+                    0, claim.quantity(), claim.reference()));
+            total += claim.quantity();
+        }
+        stockLedger.recordAll(movements);
+        stockChanged(List.of(product.getId()));
+        lowStockDetector.evaluate(product);
+        log.info("Reserved {} units of product {} for {} lines. Remaining available: {}",
+                total, product.getId(), claims.size(), product.getAvailableQuantity());
+    }
 
-                log.info("Reserved {} units of product {}. Remaining available: {}",
-                        quantity, productId, product.getAvailableQuantity());
-                return true;
+    /**
+     * Current stock of the given products with their per-warehouse split,
+     * in one query, for allocating orders against.
+     */
+    public Map<String, Product> loadStock(Collection<String> productIds) {
+        Query query = new Query(Criteria.where("_id").in(productIds));
+        query.fields().include("name", "stockQuantity", "reservedQuantity", "locations", "appliedReservations");
+        return mongoTemplate.find(query, Product.class).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+    }
 
-            } catch (OptimisticLockingFailureException e) {
-                attempts++;
-                log.warn("Optimistic lock conflict for product {}, attempt {}/{}",
-                        productId, attempts, MAX_RETRY_ATTEMPTS);
-                if (attempts >= MAX_RETRY_ATTEMPTS) {
-                    log.error("Failed to reserve stock after {} attempts", MAX_RETRY_ATTEMPTS);
-                    return false;
-                }
+    /**
+     * Reserve order lines at the warehouses chosen for them, each at most
+     * once, with one bulk write. Each line's update checks the product total
+     * and every warehouse it takes from, so a line whose stock moved since it
+     * was allocated is rejected rather than overdrawn.
+     *
+     * @param stock the snapshot the lines were allocated from; lines already in
+     *              its applied reservations are reported as ALREADY_APPLIED
+     */
+    public Map<String, ClaimResult> reserveAtLocations(List<LocationClaim> claims, Map<String, Product> stock) {
+        Map<String, ClaimResult> results = new LinkedHashMap<>();
+        List<LocationClaim> pending = new ArrayList<>();
+        for (LocationClaim claim : claims) {
+            Product product = stock.get(claim.productId());
+            if (product != null && product.getAppliedReservations() != null
+                    && product.getAppliedReservations().contains(claim.reservationId())) {
+                results.put(claim.reservationId(), ClaimResult.ALREADY_APPLIED);
+            } else {
+                pending.add(claim);
             }
         }
-        return false;
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (LocationClaim claim : pending) {
+            List<Object> args = new ArrayList<>();
+            args.add(claim.quantity());
+            StringBuilder available = new StringBuilder(
+                    "{ $and: [ { $gte: [ { $subtract: [ '$stockQuantity', '$reservedQuantity' ] }, ?0 ] }");
+            claim.locations().forEach((warehouseId, units) -> {
+                available.append(", { $gte: [ { $let: { vars: { l: { $arrayElemAt: [ { $filter: {")
+                        .append(" input: '$locations', cond: { $eq: [ '$$this.warehouseId', ?").append(args.size())
+                        .append(" ] } } }, 0 ] } }, in: { $subtract: [ '$$l.stockQuantity', '$$l.reservedQuantity' ] }")
+                        .append(" } }, ?").append(args.size() + 1).append(" ] }");
+                args.add(warehouseId);
+                args.add(units);
+            });
+            available.append(" ] }");
+
+            Query query = new Query(Criteria.where("_id").is(claim.productId())
+                    .and("appliedReservations").ne(claim.reservationId())
+                    .andOperator(Criteria.expr(MongoExpression.create(available.toString(), args.toArray()))));
+            Update update = new Update().inc("reservedQuantity", claim.quantity()).inc("version", 1);
+            update.push("appliedReservations").slice(-appliedReservationsWindow).each(claim.reservationId());
+            incLocations(update, claim.locations(), 1);
+            bulk.updateOne(query, update);
+        }
+        int modified = bulk.execute().getModifiedCount();
+
+        // Read back which lines landed; every one did if the count says so
+        Map<String, Product> after = productRepository.findAllById(
+                        pending.stream().map(LocationClaim::productId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        Map<String, List<StockClaim>> appliedByProduct = new LinkedHashMap<>();
+        for (LocationClaim claim : pending) {
+            Product product = after.get(claim.productId());
+            boolean applied = modified == pending.size() || (product != null
+                    && product.getAppliedReservations() != null
+                    && product.getAppliedReservations().contains(claim.reservationId()));
+            results.put(claim.reservationId(), applied ? ClaimResult.APPLIED : ClaimResult.REJECTED);
+            if (applied) {
+                appliedByProduct.computeIfAbsent(claim.productId(), id -> new ArrayList<>())
+                        .add(new StockClaim(claim.reservationId(), claim.quantity(), claim.reference()));
+            } else {
+                log.warn("Stock for product {} moved since allocation: requested={} at {}",
+                        claim.productId(), claim.quantity(), claim.locations());
+            }
+        }
+        appliedByProduct.forEach((productId, applied) -> claimsApplied(after.get(productId), applied));
+        return results;
+    }
+
+    /**
+     * Set a product's stock at one warehouse, adding the warehouse if the
+     * product has none recorded there; the product total moves by the difference
+     * in the same write. A product's first warehouse takes over the stock and
+     * reservations it held before locations were tracked, so the total still
+     * equals the sum over its locations. Stock at a warehouse cannot go below
+     * what is reserved there.
+     *
+     * @throws IllegalStateException if reservations kept moving the product's
+     *         stock and every attempt lost the race
+     */
+    public Product setLocationStock(String productId, String warehouseId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        for (int attempt = 1; attempt <= MAX_LOCATION_ATTEMPTS; attempt++) {
+            Product product = trySetLocationStock(productId, warehouseId, quantity);
+            if (product != null) {
+                return product;
+            }
+        }
+        throw new IllegalStateException("Stock for product " + productId + " kept changing; not set at "
+                + warehouseId + " after " + MAX_LOCATION_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * One read and guarded write of {@link #setLocationStock}.
+     *
+     * @return the updated product, or null if its stock moved since it was read
+     */
+    private Product trySetLocationStock(String productId, String warehouseId, int quantity) {
+        Product current = productRepository.findById(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
+        LocationStock location = current.getLocation(warehouseId);
+        boolean first = !tracksLocations(current);
+        int reserved = location != null ? location.getReservedQuantity()
+                : first ? current.getReservedQuantity() : 0;
+        if (quantity < reserved) {
+            throw new IllegalArgumentException("Stock at " + warehouseId + " cannot go below its "
+                    + reserved + " reserved units");
+        }
+
+        Criteria criteria = Criteria.where("_id").is(productId);
+        Update update = new Update().inc("version", 1);
+        int delta;
+        if (location != null) {
+            delta = quantity - location.getStockQuantity();
+            criteria = criteria.and("locations").elemMatch(Criteria.where("warehouseId").is(warehouseId)
+                    .and("stockQuantity").is(location.getStockQuantity())
+                    .and("reservedQuantity").lte(quantity));
+            update.set("locations.$.stockQuantity", quantity).inc("stockQuantity", delta);
+        } else if (first) {
+            delta = quantity - current.getStockQuantity();
+            criteria = criteria.and("locations.0").exists(false)
+                    .and("stockQuantity").is(current.getStockQuantity())
+                    .and("reservedQuantity").is(reserved);
+            // Gaining locations changes the product's shape, so it counts as a catalog write
+            update.set("locations", List.of(new LocationStock(warehouseId, quantity, reserved)))
+                    .set("stockQuantity", quantity)
+                    .set("changeSeq", catalogSequence.next());
+        } else {
+            delta = quantity;
+            criteria = criteria.and("locations.0").exists(true).and("locations.warehouseId").ne(warehouseId);
+            update.push("locations", new LocationStock(warehouseId, quantity, 0)).inc("stockQuantity", quantity);
+        }
+        Product product = mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            return null;
+        }
+
+        stockLedger.record(productId, StockMovement.MovementType.ADJUST, delta, 0, "warehouse:" + warehouseId);
+        if (first) {
+            catalogChanged(product, null);
+        } else {
+            stockChanged(List.of(productId));
+        }
+        lowStockDetector.evaluate(product);
+        log.info("Set stock for product {} at {} to {}: total stock = {}",
+                productId, warehouseId, quantity, product.getStockQuantity());
+        return product;
+    }
+
+    /**
+     * Whether stock for the product is kept per warehouse. Its total then only
+     * moves through {@link #setLocationStock}, never on its own.
+     */
+    public static boolean tracksLocations(Product product) {
+        return product.getLocations() != null && !product.getLocations().isEmpty();
+    }
+
+    /**
+     * Explain why a total-level stock write matched nothing: the product is
+     * missing, its stock is kept per warehouse, or else {@code reason}.
+     */
+    private IllegalArgumentException totalWriteRejected(String productId, String reason) {
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty()) {
+            return new IllegalArgumentException("Product not found: " + productId);
+        }
+        if (tracksLocations(product.get())) {
+            return new IllegalArgumentException("Product " + productId
+                    + " keeps stock per warehouse; set it at a warehouse instead");
+        }
+        return new IllegalArgumentException(reason);
+    }
+
+    private static void incLocations(Update update, Map<String, Integer> locations, int sign) {
+        int index = 0;
+        for (Map.Entry<String, Integer> location : locations.entrySet()) {
+            String filter = "w" + index++;
+            update.inc("locations.$[" + filter + "].reservedQuantity", sign * location.getValue());
+            update.filterArray(filter + ".warehouseId", location.getKey());
+        }
+    }
+
+    /**
+     * Take back a reservation made by {@link #reserveStockOnce} and forget its
+     * id, so the same line can be reserved again later. Does not consult the
+     * recent-id list, which may no longer hold the id: callers undo only lines
+     * they know are applied (this call's APPLIED claims, or lines with a
+     * reservation record), and each at most once.
+     */
+    public void undoReservation(String productId, int quantity, String reservationId, String reference) {
+        undoReservation(productId, quantity, Map.of(), reservationId, reference);
+    }
+
+    /**
+     * As {@link #undoReservation(String, int, String, String)}, also giving
+     * back the units held at each warehouse in {@code locations}.
+     */
+    public void undoReservation(String productId, int quantity, Map<String, Integer> locations,
+                                String reservationId, String reference) {
+        Query query = new Query(Criteria.where("_id").is(productId));
+        Update update = new Update()
+                .inc("reservedQuantity", -quantity)
+                .inc("version", 1)
+                .pull("appliedReservations", reservationId);
+        incLocations(update, locations, -1);
+        Product product = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            return;
+        }
+
+        stockLedger.record(productId, StockMovement.MovementType.RELEASE, 0, -quantity, reference);
+        stockChanged(List.of(productId));
+        lowStockDetector.evaluate(product);
+        log.info("Undid reservation {} of {} units of product {}", reservationId, quantity, productId);
     }
 
     /**
      * Release reserved stock (e.g., when order is cancelled).
      */
     public void releaseStock(String productId, int quantity) {
-        Product product = productRepository.findById(productId).orElse(null);
-        if (product != null) {
-            int newReserved = Math.max(0, product.getReservedQuantity() - quantity);
-            product.setReservedQuantity(newReserved);
-            productRepository.save(product);
-            log.info("Released {} units of product {}", quantity, productId);
+        releaseStock(productId, quantity, null);
+    }
+
+    public void releaseStock(String productId, int quantity, String reference) {
+        Query query = new Query(Criteria.where("_id").is(productId).and("reservedQuantity").gte(quantity));
+        Update update = new Update().inc("reservedQuantity", -quantity).inc("version", 1);
+        int released = quantity;
+
+        Product product = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            // Less reserved than requested: clamp at zero and record what was actually released
+            Product previous = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("_id").is(productId)),
+                    new Update().set("reservedQuantity", 0).inc("version", 1),
+                    Product.class);
+            if (previous == null) {
+                return;
+            }
+            released = previous.getReservedQuantity();
+            product = previous;
+            product.setReservedQuantity(0);
+        }
+
+        stockLedger.record(productId, StockMovement.MovementType.RELEASE, 0, -released, reference);
+        stockChanged(List.of(productId));
+        lowStockDetector.evaluate(product);
+        log.info("Released {} units of product {}", released, productId);
+    }
+
+    /**
+     * Release reserved stock for many products with one bulk write.
+     * Version is bumped so concurrent optimistic updates see the change.
+     */
+    public void releaseStockBulk(Map<String, Integer> quantitiesByProduct, String reference) {
+        releaseStockBulk(quantitiesByProduct, Map.of(), reference);
+    }
+
+    /**
+     * As {@link #releaseStockBulk(Map, String)}, also releasing the units held
+     * at each warehouse: {@code locationQuantities} maps product id to
+     * warehouse id to units.
+     */
+    public void releaseStockBulk(Map<String, Integer> quantitiesByProduct,
+                                 Map<String, Map<String, Integer>> locationQuantities, String reference) {
+        if (quantitiesByProduct.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        List<StockMovement> movements = new ArrayList<>(quantitiesByProduct.size());
+        quantitiesByProduct.forEach((productId, quantity) -> {
+            Update update = new Update().inc("reservedQuantity", -quantity).inc("version", 1);
+            incLocations(update, locationQuantities.getOrDefault(productId, Map.of()), -1);
+            bulk.updateOne(new Query(Criteria.where("_id").is(productId)), update);
+            movements.add(new StockMovement(productId, StockMovement.MovementType.RELEASE, 0, -quantity, reference));
+        });
+        bulk.execute();
+
+        // Clamp drifted counters the same way releaseStock does; the ledger keeps
+        // the quantities the reservations actually held
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(quantitiesByProduct.keySet()).and("reservedQuantity").lt(0)),
+                new Update().set("reservedQuantity", 0),
+                Product.class);
+        if (!locationQuantities.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("_id").in(locationQuantities.keySet())
+                            .and("locations.reservedQuantity").lt(0)),
+                    new Update().set("locations.$[negative].reservedQuantity", 0)
+                            .filterArray(Criteria.where("negative.reservedQuantity").lt(0)),
+                    Product.class);
         }
+
+        stockLedger.recordAll(movements);
+        stockChanged(quantitiesByProduct.keySet());
+        lowStockDetector.evaluateRecovery(quantitiesByProduct.keySet());
+        log.info("Released reserved stock for {} products in bulk", quantitiesByProduct.size());
     }
 
     /**
      * Confirm stock deduction (convert reserved to actual deduction).
      */
     public void confirmStockDeduction(String productId, int quantity) {
-        Product product = productRepository.findById(productId).orElse(null);
+        Update update = new Update()
+                .inc("stockQuantity", -quantity)
+                .inc("reservedQuantity", -quantity)
+                .inc("version", 1);
+        Product product = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(productId)), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
         if (product != null) {
-            product.setStockQuantity(product.getStockQuantity() - quantity);
-            product.setReservedQuantity(product.getReservedQuantity() - quantity);
-            productRepository.save(product);
+            stockLedger.record(productId, StockMovement.MovementType.DEDUCT, -quantity, -quantity, null);
+            stockChanged(List.of(productId));
+            lowStockDetector.evaluate(product);
             log.info("Confirmed stock deduction of {} units for product {}", quantity, productId);
         }
     }
 
+    /**
+     * Deduct shipped units for many products with one bulk write: each
+     * product's stock and reserved counters drop by the same amount, as do
+     * those of the warehouses in {@code locationQuantities} (product id to
+     * warehouse id to units). Available stock is unchanged, so no low-stock
+     * check is needed.
+     */
+    public void deductStockBulk(Map<String, Integer> quantitiesByProduct,
+                                Map<String, Map<String, Integer>> locationQuantities, String reference) {
+        if (quantitiesByProduct.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        List<StockMovement> movements = new ArrayList<>(quantitiesByProduct.size());
+        quantitiesByProduct.forEach((productId, quantity) -> {
+            Update update = new Update()
+                    .inc("stockQuantity", -quantity)
+                    .inc("reservedQuantity", -quantity)
+                    .inc("version", 1);
+            int index = 0;
+            for (Map.Entry<String, Integer> location
+                    : locationQuantities.getOrDefault(productId, Map.of()).entrySet()) {
+                String filter = "w" + index++;
+                update.inc("locations.$[" + filter + "].stockQuantity", -location.getValue());
+                update.inc("locations.$[" + filter + "].reservedQuantity", -location.getValue());
+                update.filterArray(filter + ".warehouseId", location.getKey());
+            }
+            bulk.updateOne(new Query(Criteria.where("_id").is(productId)), update);
+            movements.add(new StockMovement(productId, StockMovement.MovementType.DEDUCT, -quantity, -quantity,
+                    reference));
+        });
+        bulk.execute();
+
+        stockLedger.recordAll(movements);
+        stockChanged(quantitiesByProduct.keySet());
+        log.info("Deducted shipped stock for {} products in bulk", quantitiesByProduct.size());
+    }
+
     public Optional<Product> getProduct(String productId) {
-        return productRepository.findById(productId);
+        return productCache.getProduct(productId,
+                id -> mappedCatalog.find(id).or(() -> productRepository.findById(id)));
     }
 
     public List<Product> getAllProducts() {
-        return productRepository.findByActiveTrue();
+        return productCache.getActiveProducts(productRepository::findByActiveTrue);
     }
 
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+        return productCache.getCategory(category, productRepository::findByCategory);
     }
 
     public Product createProduct(Product product) {
+        product.setChangeSeq(catalogSequence.next());
         Product saved = productRepository.save(product);
-        indexProduct(saved);
+        stockLedger.record(saved.getId(), StockMovement.MovementType.RECEIVE,
+                saved.getStockQuantity(), saved.getReservedQuantity(), null);
+        catalogChanged(saved, null);
+        lowStockDetector.evaluate(saved);
         return saved;
     }
 
     public Product updateStock(String productId, int newQuantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
-        product.setStockQuantity(newQuantity);
-        return productRepository.save(product);
+        Product previous = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(productId).and("locations.0").exists(false)),
+                new Update().set("stockQuantity", newQuantity).inc("version", 1),
+                Product.class);
+        if (previous == null) {
+            throw totalWriteRejected(productId, "Product not found: " + productId);
+        }
+
+        stockLedger.record(productId, StockMovement.MovementType.SET,
+                newQuantity - previous.getStockQuantity(), 0, null);
+        previous.setStockQuantity(newQuantity);
+        previous.setVersion(previous.getVersion() + 1);
+        stockChanged(List.of(productId));
+        lowStockDetector.evaluate(previous);
+        return previous;
     }
 
     public List<Product> getAllProductsIncludingInactive() {
@@ -138,6 +634,7 @@ public class InventoryService {
     public Product updateProduct(String productId, Product productUpdate) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
+        String previousCategory = product.getCategory();
 
         if (productUpdate.getName() != null) {
             product.setName(productUpdate.getName());
@@ -157,10 +654,15 @@ public class InventoryService {
         if (productUpdate.getSku() != null) {
             product.setSku(productUpdate.getSku());
         }
+        if (productUpdate.getLowStockThreshold() != null) {
+            product.setLowStockThreshold(productUpdate.getLowStockThreshold());
+        }
 
+        product.setChangeSeq(catalogSequence.next());
         log.info("Updated product: {}", productId);
         Product saved = productRepository.save(product);
-        indexProduct(saved);
+        catalogChanged(saved, previousCategory);
+        lowStockDetector.evaluate(saved);
         return saved;
     }
 
@@ -168,22 +670,31 @@ public class InventoryService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
         product.setPrice(newPrice);
+        product.setChangeSeq(catalogSequence.next());
         log.info("Updated price for product {}: {}", productId, newPrice);
         Product saved = productRepository.save(product);
-        indexProduct(saved);
+        catalogChanged(saved, null);
         return saved;
     }
 
     public Product adjustStock(String productId, int adjustment) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
-        int newStock = product.getStockQuantity() + adjustment;
-        if (newStock < 0) {
-            throw new IllegalArgumentException("Stock cannot be negative");
+        Criteria criteria = Criteria.where("_id").is(productId).and("locations.0").exists(false);
+        if (adjustment < 0) {
+            criteria = criteria.and("stockQuantity").gte(-adjustment);
         }
-        product.setStockQuantity(newStock);
-        log.info("Adjusted stock for product {} by {}: new stock = {}", productId, adjustment, newStock);
-        return productRepository.save(product);
+        Product product = mongoTemplate.findAndModify(new Query(criteria),
+                new Update().inc("stockQuantity", adjustment).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            throw totalWriteRejected(productId, "Stock cannot be negative");
+        }
+
+        stockLedger.record(productId, StockMovement.MovementType.ADJUST, adjustment, 0, null);
+        stockChanged(List.of(productId));
+        lowStockDetector.evaluate(product);
+        log.info("Adjusted stock for product {} by {}: new stock = {}",
+                productId, adjustment, product.getStockQuantity());
+        return product;
     }
 
     public void deleteProduct(String productId) {
@@ -191,7 +702,10 @@ public class InventoryService {
                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
         // Soft delete - just deactivate
         product.setActive(false);
+        product.setChangeSeq(catalogSequence.next());
         productRepository.save(product);
+        catalogChanged(product, null);
+        lowStockDetector.evaluate(product);
         log.info("Deleted (deactivated) product: {}", productId);
     }
 
@@ -199,7 +713,32 @@ public class InventoryService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
         product.setActive(active);
+        product.setChangeSeq(catalogSequence.next());
         log.info("Set product {} active status to: {}", productId, active);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogChanged(saved, null);
+        lowStockDetector.evaluate(saved);
+        return saved;
+    }
+
+    /**
+     * One order line's claim on a product's stock, identified by its reservation id.
+     */
+    public record StockClaim(String reservationId, int quantity, String reference) {
+    }
+
+    /**
+     * One order line's claim on stock at specific warehouses: {@code locations}
+     * maps warehouse id to units and sums to {@code quantity}, or is empty for
+     * products whose stock is not tracked by location.
+     */
+    public record LocationClaim(String reservationId, String productId, int quantity,
+                                Map<String, Integer> locations, String reference) {
+    }
+
+    public enum ClaimResult {
+        APPLIED,
+        ALREADY_APPLIED, // By an earlier delivery of the same order
+        REJECTED
     }
 }
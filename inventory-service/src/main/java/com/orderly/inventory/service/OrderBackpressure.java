@@ -0,0 +1,157 @@
+package com.orderly.inventory.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * AIMD limit on order events in flight across the order consumer threads,
+ * driven by how long reservations take against MongoDB.
+ *
+ * A batch that finishes within the target latency raises the limit by a
+ * fixed step; a slow or failing batch halves it (at most once per target
+ * interval, so batches finishing together count as one signal). While the
+ * events in flight reach the limit, the listener container is paused: its
+ * consumers keep polling, so they stay in the group and are not rebalanced,
+ * but fetch nothing. When one batch alone is larger than the limit, the
+ * pause is stretched after it so throughput matches the limit.
+ */
+@Component
+public class OrderBackpressure {
+
+    static final String CONTAINER_ID = "inventory-order-placed";
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBackpressure.class);
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final boolean enabled;
+    private final Duration targetLatency;
+    private final double minLimit;
+    private final double maxLimit;
+    private final double increase;
+    private final double decreaseFactor;
+
+    private double limit;
+    private int inFlight;
+    private Instant lastDecrease = Instant.EPOCH;
+    private Instant resumeAt = Instant.EPOCH;
+    private Instant pausedSince;
+    private long pausedNanos;
+
+    public OrderBackpressure(KafkaListenerEndpointRegistry registry,
+                             MeterRegistry meterRegistry,
+                             @Value("${inventory.orders.backpressure.enabled:true}") boolean enabled,
+                             @Value("${inventory.orders.backpressure.target-latency:2s}") Duration targetLatency,
+                             @Value("${inventory.orders.backpressure.min-limit:20}") int minLimit,
+                             @Value("${inventory.orders.backpressure.increase:20}") int increase,
+                             @Value("${inventory.orders.backpressure.decrease-factor:0.5}") double decreaseFactor,
+                             @Value("${inventory.orders.batch-size:200}") int batchSize,
+                             @Value("${inventory.orders.concurrency:3}") int concurrency) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.targetLatency = targetLatency;
+        this.maxLimit = (double) batchSize * concurrency;
+        this.minLimit = Math.min(minLimit, maxLimit);
+        this.increase = increase;
+        this.decreaseFactor = decreaseFactor;
+        this.limit = maxLimit;
+
+        Gauge.builder("inventory.orders.backpressure.limit", this, OrderBackpressure::getLimit)
+                .description("Order events allowed in flight before the consumers are paused")
+                .register(meterRegistry);
+        Gauge.builder("inventory.orders.backpressure.paused", this, b -> b.isPaused() ? 1 : 0)
+                .description("1 while the order consumers are paused")
+                .register(meterRegistry);
+        FunctionCounter.builder("inventory.orders.backpressure.paused.time", this, OrderBackpressure::pausedSeconds)
+                .description("Total time the order consumers have spent paused")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A batch of {@code events} is starting.
+     */
+    public synchronized void begin(int events) {
+        inFlight += events;
+        evaluate(Instant.now());
+    }
+
+    /**
+     * A batch started with {@link #begin} has finished.
+     *
+     * @param elapsed time spent reserving the batch
+     * @param healthy false if the batch, or any order in it, failed
+     */
+    public synchronized void end(int events, Duration elapsed, boolean healthy) {
+        inFlight -= events;
+        Instant now = Instant.now();
+        if (!healthy || elapsed.compareTo(targetLatency) > 0) {
+            if (Duration.between(lastDecrease, now).compareTo(targetLatency) >= 0) {
+                limit = Math.max(minLimit, limit * decreaseFactor);
+                lastDecrease = now;
+                log.info("Order consumer limit lowered to {} ({} events took {} ms{})", (int) limit, events,
+                        elapsed.toMillis(), healthy ? "" : ", with failures");
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + increase);
+        }
+        if (events > limit) {
+            // Hold off long enough that this batch counts as no more than the limit
+            long holdNanos = (long) (elapsed.toNanos() * (events - limit) / limit);
+            Instant hold = now.plusNanos(holdNanos);
+            if (hold.isAfter(resumeAt)) {
+                resumeAt = hold;
+            }
+        }
+        evaluate(now);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.orders.backpressure.check-interval:PT0.2S}")
+    public synchronized void check() {
+        evaluate(Instant.now());
+    }
+
+    private void evaluate(Instant now) {
+        if (!enabled) {
+            return;
+        }
+        MessageListenerContainer container = registry.getListenerContainer(CONTAINER_ID);
+        if (container == null) {
+            return;
+        }
+        boolean overLimit = inFlight >= limit || now.isBefore(resumeAt);
+        if (overLimit && pausedSince == null) {
+            container.pause();
+            pausedSince = now;
+            log.debug("Pausing order consumers: {} events in flight, limit {}", inFlight, (int) limit);
+        } else if (!overLimit && pausedSince != null) {
+            container.resume();
+            pausedNanos += Duration.between(pausedSince, now).toNanos();
+            pausedSince = null;
+            log.debug("Resuming order consumers: {} events in flight, limit {}", inFlight, (int) limit);
+        }
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized boolean isPaused() {
+        return pausedSince != null;
+    }
+
+    private synchronized double pausedSeconds() {
+        long nanos = pausedNanos + (pausedSince != null ? Duration.between(pausedSince, Instant.now()).toNanos() : 0);
+        return nanos / 1e9;
+    }
+}
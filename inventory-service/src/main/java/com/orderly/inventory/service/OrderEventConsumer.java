@@ -4,90 +4,324 @@ import com.orderly.common.constants.KafkaTopics;
 import com.orderly.common.events.OrderConfirmedEvent;
 import com.orderly.common.events.OrderFailedEvent;
 import com.orderly.common.events.OrderPlacedEvent;
+import com.orderly.inventory.reservation.ReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Consumes order events from Kafka and manages inventory.
+ *
+ * Each poll is handled as one batch inside a Kafka transaction, so the
+ * outcome events and the consumed offsets are committed together. A batch
+ * that fails or is cut short by a crash is delivered again as a whole;
+ * reservations are idempotent per order line, so repeating it is safe and
+ * no per-event dedup lookup is needed.
+ *
+ * By default the batch is reserved grouped by product (one stock update per
+ * product, one bulk insert of reservation records). Setting
+ * {@code inventory.orders.aggregate-by-product=false} reserves order by order
+ * instead; the {@code mode} tag on the metrics below compares the two.
+ * With {@code inventory.orders.workers} above 1, the poll is further split
+ * into lanes run in parallel (see {@link OrderLaneExecutor}). How long the
+ * reservations take feeds {@link OrderBackpressure}, which pauses the
+ * consumers while MongoDB is slow.
+ *
+ * Events whose batch or lane fails are retried one by one; any that still
+ * fail are parked on {@link KafkaTopics#ORDER_PLACED_RETRY} with the failure
+ * in the standard dead-letter headers, so one bad event never holds back its
+ * partition. That topic is retried with growing delays through its own retry
+ * topics and ends in {@code order.placed.inventory-retry-dlt}, which the DLQ
+ * admin endpoints inspect and replay.
  */
 @Service
 public class OrderEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(OrderEventConsumer.class);
 
-    private final InventoryService inventoryService;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private static final String DEAD_LETTER_TOPIC = KafkaTopics.ORDER_PLACED_RETRY + "-dlt";
+    private static final LogAccessor HEADER_LOG = new LogAccessor(OrderEventConsumer.class);
 
-    // Simple in-memory idempotency check (use Redis in production)
-    private final Set<String> processedEvents = new HashSet<>();
+    private final ReservationService reservationService;
+    private final OrderLaneExecutor laneExecutor;
+    private final OrderBackpressure backpressure;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean aggregateByProduct;
+    private final String mode;
+    private final DistributionSummary batchSize;
+    private final Counter processed;
+    private final Counter parked;
+    private final Counter deadLettered;
 
-    public OrderEventConsumer(InventoryService inventoryService, KafkaTemplate<String, Object> kafkaTemplate) {
-        this.inventoryService = inventoryService;
+    public OrderEventConsumer(ReservationService reservationService,
+                              OrderLaneExecutor laneExecutor,
+                              OrderBackpressure backpressure,
+                              KafkaTemplate<String, Object> kafkaTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.orders.aggregate-by-product:true}") boolean aggregateByProduct) {
+        this.reservationService = reservationService;
+        this.laneExecutor = laneExecutor;
+        this.backpressure = backpressure;
         this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.aggregateByProduct = aggregateByProduct;
+        this.mode = (aggregateByProduct ? "by_product" : "by_order") + (laneExecutor.isParallel() ? "_lanes" : "");
+        this.batchSize = DistributionSummary.builder("inventory.orders.transaction.size")
+                .description("Order events handled per Kafka transaction")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.processed = Counter.builder("inventory.orders.processed")
+                .description("Order events handled; its rate is the consumer's throughput")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.parked = Counter.builder("inventory.orders.parked")
+                .description("Order events moved to the retry topic after failing in their batch")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("inventory.orders.dead_lettered")
+                .description("Order events that exhausted their retries")
+                .register(meterRegistry);
     }
 
-    @KafkaListener(topics = KafkaTopics.ORDER_PLACED, groupId = "inventory-service-group")
-    public void handleOrderPlaced(OrderPlacedEvent event) {
-        String eventId = event.getEventId();
+    @KafkaListener(id = OrderBackpressure.CONTAINER_ID, topics = KafkaTopics.ORDER_PLACED,
+            groupId = "inventory-service-group")
+    public void handleOrderPlaced(List<ConsumerRecord<String, OrderPlacedEvent>> records) {
+        Timer.Sample transaction = Timer.start(meterRegistry);
+        batchSize.record(records.size());
+        log.info("Processing {} OrderPlacedEvents", records.size());
 
-        // Idempotency check
-        if (processedEvents.contains(eventId)) {
-            log.info("Event {} already processed, skipping", eventId);
-            return;
+        List<ConsumerRecord<String, OrderPlacedEvent>> valid = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, OrderPlacedEvent> record : records) {
+            if (record.value() != null) {
+                valid.add(record);
+            } else {
+                park(record, DEAD_LETTER_TOPIC, undeserializable(record));
+            }
         }
 
-        log.info("Processing OrderPlacedEvent for order: {}", event.getOrderId());
-
-        boolean allReserved = true;
-        StringBuilder failureReason = new StringBuilder();
+        // Reserve stock for all items; partial reservations are rolled back
+        Map<String, ReservationService.ReservationResult> results = new LinkedHashMap<>();
+        List<Integer> failed = List.of();
+        boolean healthy = false;
+        long started = System.nanoTime();
+        backpressure.begin(valid.size());
+        try {
+            if (laneExecutor.isParallel()) {
+                OrderLaneExecutor.LaneResults lanes = laneExecutor.run(valid, this::reserve);
+                results.putAll(lanes.results());
+                failed = lanes.failed();
+            } else {
+                try {
+                    results.putAll(reserve(valid.stream().map(ConsumerRecord::value).collect(Collectors.toList())));
+                } catch (RuntimeException e) {
+                    log.warn("Batch of {} OrderPlacedEvents failed, retrying one by one: {}",
+                            valid.size(), e.getMessage());
+                    failed = IntStream.range(0, valid.size()).boxed().collect(Collectors.toList());
+                }
+            }
+            healthy = failed.isEmpty();
 
-        // Try to reserve stock for all items
-        for (OrderPlacedEvent.OrderItemPayload item : event.getItems()) {
-            boolean reserved = inventoryService.reserveStock(item.getProductId(), item.getQuantity());
-            if (!reserved) {
-                allReserved = false;
-                failureReason.append("Insufficient stock for product: ")
-                        .append(item.getProductName())
-                        .append(". ");
+            // Retry what failed order by order, so one bad event cannot hold back the rest
+            for (int index : failed) {
+                ConsumerRecord<String, OrderPlacedEvent> record = valid.get(index);
+                String orderId = record.value().getOrderId();
+                if (results.containsKey(orderId)) {
+                    continue;
+                }
+                try {
+                    results.put(orderId, reservationService.reserve(record.value()));
+                } catch (RuntimeException e) {
+                    log.warn("Order {} failed again, parking it on {}: {}", orderId,
+                            KafkaTopics.ORDER_PLACED_RETRY, e.getMessage());
+                    park(record, KafkaTopics.ORDER_PLACED_RETRY, e);
+                }
             }
+        } finally {
+            backpressure.end(valid.size(), Duration.ofNanos(System.nanoTime() - started), healthy);
         }
 
-        if (allReserved) {
-            // All items reserved successfully
-            publishOrderConfirmed(event);
-            log.info("Order {} confirmed - all items reserved", event.getOrderId());
+        Map<String, OrderPlacedEvent> byOrderId = new HashMap<>();
+        valid.forEach(record -> byOrderId.putIfAbsent(record.value().getOrderId(), record.value()));
+        List<String> confirmed = new ArrayList<>();
+        results.forEach((orderId, result) -> {
+            publishOutcome(byOrderId.get(orderId), result);
+            if (result.isReserved()) {
+                confirmed.add(orderId);
+            }
+        });
+        processed.increment(records.size());
+
+        // Confirmed before the offsets commit: if this transaction rolls back, the redelivered
+        // batch reuses the recorded outcomes and confirming again is a no-op
+        reservationService.confirmAll(confirmed);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    transaction.stop(meterRegistry.timer("inventory.orders.transaction", "mode", mode,
+                            "outcome", status == STATUS_COMMITTED ? "committed" : "rolled_back"));
+                }
+            });
         } else {
-            // Release any reserved items and publish failure
-            for (OrderPlacedEvent.OrderItemPayload item : event.getItems()) {
-                inventoryService.releaseStock(item.getProductId(), item.getQuantity());
+            transaction.stop(meterRegistry.timer("inventory.orders.transaction", "mode", mode, "outcome", "untracked"));
+        }
+    }
+
+    /**
+     * Events parked by the batch listener, one at a time with exponential
+     * backoff between attempts. Runs outside Kafka transactions: the retry
+     * topics forward failures themselves, and a repeated reservation is a
+     * no-op, so an outcome is at worst published twice.
+     */
+    @RetryableTopic(attempts = "${inventory.orders.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${inventory.orders.retry.delay:1000}",
+                    multiplierExpression = "${inventory.orders.retry.multiplier:5}",
+                    maxDelayExpression = "${inventory.orders.retry.max-delay:300000}"),
+            retryTopicSuffix = "-backoff",
+            dltTopicSuffix = "-dlt",
+            kafkaTemplate = "kafkaTemplate",
+            listenerContainerFactory = "orderRetryListenerContainerFactory")
+    @KafkaListener(topics = KafkaTopics.ORDER_PLACED_RETRY, groupId = "inventory-service-group",
+            containerFactory = "orderRetryListenerContainerFactory")
+    public void retryOrderPlaced(OrderPlacedEvent event) {
+        ReservationService.ReservationResult result = reservationService.reserve(event);
+        publishOutcome(event, result).join();
+        if (result.isReserved()) {
+            reservationService.confirmAll(List.of(event.getOrderId()));
+        }
+    }
+
+    /**
+     * Reserve an order on the caller's thread, for order-service's synchronous
+     * checkout path. The outcome event is still published (without waiting for
+     * it) so other consumers see the same events as for the saga. The outcome
+     * is recorded per order: if order-service timed out and fell back to
+     * ORDER_PLACED, the saga reuses it instead of reserving again, and if the
+     * saga decided first, its outcome is returned here.
+     */
+    public ReservationService.ReservationResult reserveDirect(OrderPlacedEvent event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ReservationService.ReservationResult result = reservationService.reserve(event);
+        publishOutcome(event, result).whenComplete((sent, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to publish outcome of direct reservation for order {}: {}",
+                        event.getOrderId(), ex.getMessage());
             }
-            publishOrderFailed(event, failureReason.toString());
-            log.warn("Order {} failed - {}", event.getOrderId(), failureReason);
+        });
+        if (result.isReserved()) {
+            reservationService.confirmAll(List.of(event.getOrderId()));
         }
+        sample.stop(meterRegistry.timer("inventory.orders.direct",
+                "outcome", result.isReserved() ? "reserved" : "rejected"));
+        return result;
+    }
 
-        // Mark as processed
-        processedEvents.add(eventId);
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, OrderPlacedEvent> record) {
+        deadLettered.increment();
+        log.error("Order event {} exhausted its retries and is on {} at offset {}: {}",
+                record.key(), record.topic(), record.offset(),
+                header(record.headers(), KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+    }
+
+    private CompletableFuture<SendResult<String, Object>> publishOutcome(OrderPlacedEvent event,
+                                                                        ReservationService.ReservationResult result) {
+        if (result.isReserved()) {
+            log.info("Order {} confirmed - all items reserved", event.getOrderId());
+            return publishOrderConfirmed(event);
+        }
+        log.warn("Order {} failed - {}", event.getOrderId(), result.getFailureReason());
+        return publishOrderFailed(event, result.getFailureReason());
+    }
+
+    /**
+     * Forward a record to {@code topic}, keeping its key, value and headers
+     * and adding the dead-letter headers describing the failure.
+     */
+    private void park(ConsumerRecord<String, OrderPlacedEvent> record, String topic, Exception cause) {
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION,
+                ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array());
+        headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET,
+                ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+                String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(new ProducerRecord<>(topic, null, record.key(), record.value(), headers));
+        parked.increment();
+    }
+
+    private static Exception undeserializable(ConsumerRecord<String, OrderPlacedEvent> record) {
+        DeserializationException cause = SerializationUtils.getExceptionFromHeader(record,
+                SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, HEADER_LOG);
+        return cause != null ? cause : new IllegalStateException("Order event has no value");
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private Map<String, ReservationService.ReservationResult> reserve(List<OrderPlacedEvent> events) {
+        if (aggregateByProduct) {
+            return reservationService.reserveAll(events);
+        }
+        Map<String, ReservationService.ReservationResult> results = new LinkedHashMap<>();
+        for (OrderPlacedEvent event : events) {
+            results.putIfAbsent(event.getOrderId(), reservationService.reserve(event));
+        }
+        return results;
     }
 
-    private void publishOrderConfirmed(OrderPlacedEvent sourceEvent) {
+    private CompletableFuture<SendResult<String, Object>> publishOrderConfirmed(OrderPlacedEvent sourceEvent) {
         OrderConfirmedEvent event = new OrderConfirmedEvent();
         event.setEventId(UUID.randomUUID().toString());
         event.setOrderId(sourceEvent.getOrderId());
         event.setUserId(sourceEvent.getUserId());
         event.setTimestamp(Instant.now());
 
-        kafkaTemplate.send(KafkaTopics.ORDER_CONFIRMED, sourceEvent.getOrderId(), event);
+        return kafkaTemplate.send(KafkaTopics.ORDER_CONFIRMED, sourceEvent.getOrderId(), event);
     }
 
-    private void publishOrderFailed(OrderPlacedEvent sourceEvent, String reason) {
+    private CompletableFuture<SendResult<String, Object>> publishOrderFailed(OrderPlacedEvent sourceEvent,
+                                                                           String reason) {
         OrderFailedEvent event = new OrderFailedEvent();
         event.setEventId(UUID.randomUUID().toString());
         event.setOrderId(sourceEvent.getOrderId());
@@ -96,6 +330,6 @@ public class OrderEventConsumer {
         event.setFailureType(OrderFailedEvent.FailureType.INSUFFICIENT_STOCK);
         event.setTimestamp(Instant.now());
 
-        kafkaTemplate.send(KafkaTopics.ORDER_FAILED, sourceEvent.getOrderId(), event);
+        return kafkaTemplate.send(KafkaTopics.ORDER_FAILED, sourceEvent.getOrderId(), event);
     }
 }
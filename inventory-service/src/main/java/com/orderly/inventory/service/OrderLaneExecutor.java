@@ -0,0 +1,183 @@
+package com.orderly.inventory.service;
+
+import com.orderly.common.events.OrderPlacedEvent;
+import com.orderly.inventory.reservation.ReservationService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fans one poll of order events out to a worker pool, so reservation work
+ * scales with cores rather than with the topic's partition count.
+ *
+ * The poll is split into lanes. With the default {@code product} key, records
+ * whose orders share a product (or an order id) land in the same lane, so
+ * each product's orders are still reserved in offset order and lanes never
+ * contend for the same stock. With the {@code order} key, lanes only keep
+ * records of the same order together. Lanes run concurrently; records within
+ * a lane run in order.
+ *
+ * A failed lane does not fail the poll: its records are handed back in
+ * {@link LaneResults#failed()} for the caller to retry one by one.
+ */
+@Component
+public class OrderLaneExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderLaneExecutor.class);
+
+    private final int workerCount;
+    private final LaneKey laneKey;
+    private final ExecutorService workers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger activeLanes = new AtomicInteger();
+
+    public OrderLaneExecutor(MeterRegistry meterRegistry,
+                             @Value("${inventory.orders.workers:1}") int workerCount,
+                             @Value("${inventory.orders.lane-key:product}") String laneKey) {
+        this.workerCount = workerCount;
+        this.laneKey = LaneKey.valueOf(laneKey.toUpperCase(Locale.ROOT));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), runnable -> {
+            Thread thread = new Thread(runnable, "order-lane-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("inventory.orders.inflight", inFlight, AtomicInteger::get)
+                .description("Order events handed to lanes and not yet finished")
+                .register(meterRegistry);
+        Gauge.builder("inventory.orders.lanes.active", activeLanes, AtomicInteger::get)
+                .description("Lanes currently running on the worker pool")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    public boolean isParallel() {
+        return workerCount > 1;
+    }
+
+    /**
+     * Run {@code reserve} once per lane, concurrently, and collect the outcomes.
+     */
+    public LaneResults run(List<ConsumerRecord<String, OrderPlacedEvent>> records,
+                           Function<List<OrderPlacedEvent>, Map<String, ReservationService.ReservationResult>> reserve) {
+        List<List<Integer>> lanes = lanes(records);
+        Map<String, ReservationService.ReservationResult> results = new HashMap<>();
+        List<Integer> failed = new ArrayList<>();
+
+        List<CompletableFuture<Void>> running = new ArrayList<>(lanes.size());
+        for (List<Integer> lane : lanes) {
+            List<OrderPlacedEvent> events = new ArrayList<>(lane.size());
+            lane.forEach(index -> events.add(records.get(index).value()));
+            inFlight.addAndGet(lane.size());
+            running.add(CompletableFuture.supplyAsync(() -> {
+                activeLanes.incrementAndGet();
+                try {
+                    return reserve.apply(events);
+                } finally {
+                    activeLanes.decrementAndGet();
+                    inFlight.addAndGet(-lane.size());
+                }
+            }, workers).handle((laneResults, ex) -> {
+                synchronized (results) {
+                    if (ex != null) {
+                        log.warn("Order lane of {} events failed: {}", lane.size(), ex.getMessage());
+                        failed.addAll(lane);
+                    } else {
+                        results.putAll(laneResults);
+                    }
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+
+        // Outcomes in record order
+        Map<String, ReservationService.ReservationResult> ordered = new LinkedHashMap<>();
+        for (ConsumerRecord<String, OrderPlacedEvent> record : records) {
+            String orderId = record.value().getOrderId();
+            ReservationService.ReservationResult result = results.get(orderId);
+            if (result != null) {
+                ordered.putIfAbsent(orderId, result);
+            }
+        }
+        failed.sort(null);
+        return new LaneResults(ordered, failed, lanes.size());
+    }
+
+    /**
+     * Record indexes grouped into lanes, each in record order: connected
+     * components of records linked by a shared key.
+     */
+    private List<List<Integer>> lanes(List<ConsumerRecord<String, OrderPlacedEvent>> records) {
+        int[] parent = new int[records.size()];
+        Map<String, Integer> firstByKey = new HashMap<>();
+        for (int index = 0; index < records.size(); index++) {
+            parent[index] = index;
+            OrderPlacedEvent event = records.get(index).value();
+            link(parent, firstByKey, "order:" + event.getOrderId(), index);
+            if (laneKey == LaneKey.PRODUCT) {
+                for (OrderPlacedEvent.OrderItemPayload item : event.getItems()) {
+                    link(parent, firstByKey, "product:" + item.getProductId(), index);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> byRoot = new LinkedHashMap<>();
+        for (int index = 0; index < records.size(); index++) {
+            byRoot.computeIfAbsent(find(parent, index), root -> new ArrayList<>()).add(index);
+        }
+        return new ArrayList<>(byRoot.values());
+    }
+
+    private static void link(int[] parent, Map<String, Integer> firstByKey, String key, int index) {
+        Integer first = firstByKey.putIfAbsent(key, index);
+        if (first != null) {
+            int a = find(parent, first);
+            int b = find(parent, index);
+            parent[Math.max(a, b)] = Math.min(a, b);
+        }
+    }
+
+    private static int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    enum LaneKey {
+        PRODUCT,
+        ORDER
+    }
+
+    /**
+     * @param results outcome per order id, in record order, for lanes that completed
+     * @param failed  indexes of the records in lanes that threw, ascending
+     */
+    public record LaneResults(Map<String, ReservationService.ReservationResult> results,
+                              List<Integer> failed, int laneCount) {
+    }
+}
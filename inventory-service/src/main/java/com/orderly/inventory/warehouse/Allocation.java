@@ -0,0 +1,58 @@
+package com.orderly.inventory.warehouse;
+
+import java.util.Map;
+
+/**
+ * Where an order's lines are to be reserved: per line (by reservation id),
+ * the quantity to take from each warehouse. Lines of products whose stock is
+ * not tracked by location map to an empty map and are reserved from the
+ * product totals.
+ */
+public class Allocation {
+
+    private final Map<String, Map<String, Integer>> picks;
+    private final int shipments;
+    private final String unfilledProduct;
+
+    private Allocation(Map<String, Map<String, Integer>> picks, int shipments, String unfilledProduct) {
+        this.picks = picks;
+        this.shipments = shipments;
+        this.unfilledProduct = unfilledProduct;
+    }
+
+    static Allocation filled(Map<String, Map<String, Integer>> picks, int shipments) {
+        return new Allocation(picks, shipments, null);
+    }
+
+    static Allocation unfilled(String productName) {
+        return new Allocation(Map.of(), 0, productName);
+    }
+
+    public boolean isFilled() {
+        return unfilledProduct == null;
+    }
+
+    /**
+     * Name of a product the order could not get enough of, if not filled.
+     */
+    public String getUnfilledProduct() {
+        return unfilledProduct;
+    }
+
+    public Map<String, Integer> getPicks(String reservationId) {
+        return picks.getOrDefault(reservationId, Map.of());
+    }
+
+    /**
+     * Distinct warehouses the order ships from.
+     */
+    public int getShipments() {
+        return shipments;
+    }
+
+    /**
+     * One order line to allocate.
+     */
+    public record Line(String reservationId, String productId, String productName, int quantity) {
+    }
+}
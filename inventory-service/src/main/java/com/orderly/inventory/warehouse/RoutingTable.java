@@ -0,0 +1,166 @@
+package com.orderly.inventory.warehouse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Warehouses ranked by shipping cost for every three-digit postal prefix,
+ * computed once at startup and held in memory, so routing an order is an
+ * array lookup.
+ *
+ * A site's cost for a prefix is its handling cost plus one unit per hundred
+ * between the prefix and the site's own: ZIP prefixes run roughly east to
+ * west, so that tracks shipping zones. Configured routes reorder the sites
+ * for the prefixes they cover (longer prefixes win) and take over the
+ * computed costs in rank order.
+ */
+@Component
+public class RoutingTable {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingTable.class);
+
+    private static final int PREFIXES = 1000;
+
+    private final List<String> warehouseIds;
+    private final Route[] routes = new Route[PREFIXES];
+    private final Route fallback;
+
+    public RoutingTable(WarehouseProperties properties) {
+        List<WarehouseProperties.Site> sites = properties.getSites();
+        this.warehouseIds = sites.stream().map(WarehouseProperties.Site::getId).collect(Collectors.toList());
+
+        String[] inOrder = warehouseIds.toArray(new String[0]);
+        double[] handling = sites.stream().mapToDouble(WarehouseProperties.Site::getHandlingCost).toArray();
+        this.fallback = new Route(inOrder, handling);
+
+        List<Map.Entry<String, List<String>>> overrides = properties.getRoutes().entrySet().stream()
+                .sorted(Comparator.comparingInt(entry -> entry.getKey().length()))
+                .collect(Collectors.toList());
+        for (int prefix = 0; prefix < PREFIXES; prefix++) {
+            routes[prefix] = computed(sites, prefix);
+            String key = String.format("%03d", prefix);
+            for (Map.Entry<String, List<String>> override : overrides) {
+                if (key.startsWith(override.getKey())) {
+                    routes[prefix] = reordered(routes[prefix], override.getValue());
+                }
+            }
+        }
+        if (!sites.isEmpty()) {
+            log.info("Routing table built for {} warehouses, {} route overrides", sites.size(), overrides.size());
+        }
+    }
+
+    public boolean isEmpty() {
+        return warehouseIds.isEmpty();
+    }
+
+    public boolean contains(String warehouseId) {
+        return warehouseIds.contains(warehouseId);
+    }
+
+    public List<String> getWarehouseIds() {
+        return warehouseIds;
+    }
+
+    /**
+     * Ranked warehouses for a postal code; codes without three leading
+     * digits get the sites in configured order.
+     */
+    public Route route(String postalCode) {
+        int prefix = prefixOf(postalCode);
+        return prefix < 0 ? fallback : routes[prefix];
+    }
+
+    private static int prefixOf(String postalCode) {
+        if (postalCode == null) {
+            return -1;
+        }
+        String trimmed = postalCode.trim();
+        if (trimmed.length() < 3) {
+            return -1;
+        }
+        int prefix = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = trimmed.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            prefix = prefix * 10 + (c - '0');
+        }
+        return prefix;
+    }
+
+    private static Route computed(List<WarehouseProperties.Site> sites, int prefix) {
+        List<String> ids = new ArrayList<>(sites.size());
+        List<Double> costs = new ArrayList<>(sites.size());
+        sites.stream()
+                .sorted(Comparator.comparingDouble(site -> cost(site, prefix)))
+                .forEach(site -> {
+                    ids.add(site.getId());
+                    costs.add(cost(site, prefix));
+                });
+        return new Route(ids.toArray(new String[0]), costs.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    private static double cost(WarehouseProperties.Site site, int prefix) {
+        int home = prefixOf(site.getPostalPrefix());
+        return site.getHandlingCost() + (home < 0 ? 0 : Math.abs(prefix - home) / 100.0);
+    }
+
+    private static Route reordered(Route route, List<String> preferred) {
+        List<String> ids = new ArrayList<>(route.size());
+        for (String id : preferred) {
+            if (route.indexOf(id) >= 0 && !ids.contains(id)) {
+                ids.add(id);
+            }
+        }
+        for (int rank = 0; rank < route.size(); rank++) {
+            if (!ids.contains(route.warehouse(rank))) {
+                ids.add(route.warehouse(rank));
+            }
+        }
+        return new Route(ids.toArray(new String[0]), route.costs);
+    }
+
+    /**
+     * Warehouses cheapest first, with the cost of shipping from each.
+     */
+    public static final class Route {
+
+        private final String[] warehouses;
+        private final double[] costs;
+
+        private Route(String[] warehouses, double[] costs) {
+            this.warehouses = warehouses;
+            this.costs = costs;
+        }
+
+        public int size() {
+            return warehouses.length;
+        }
+
+        public String warehouse(int rank) {
+            return warehouses[rank];
+        }
+
+        public double cost(int rank) {
+            return costs[rank];
+        }
+
+        public int indexOf(String warehouseId) {
+            for (int rank = 0; rank < warehouses.length; rank++) {
+                if (warehouses[rank].equals(warehouseId)) {
+                    return rank;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.orderly.inventory.warehouse;
+
+import com.orderly.inventory.entity.LocationStock;
+import com.orderly.inventory.entity.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Picks the warehouses an order is reserved at.
+ *
+ * Two plans are built from the order's route: nearest-first (each line from
+ * the cheapest warehouse that has all of it) and fewest-shipments (greedily
+ * the warehouse that can fill the most remaining lines). A line no single
+ * warehouse can fill is split across warehouses in route order. The plan
+ * with the lower cost wins, counting each shipment's site cost plus the
+ * split penalty for every shipment beyond the first.
+ */
+@Component
+public class WarehouseAllocator {
+
+    private final RoutingTable routingTable;
+    private final double splitPenalty;
+    private final Timer latency;
+    private final Counter single;
+    private final Counter split;
+    private final Counter unfilled;
+    private final DistributionSummary shipments;
+
+    public WarehouseAllocator(RoutingTable routingTable, WarehouseProperties properties, MeterRegistry meterRegistry) {
+        this.routingTable = routingTable;
+        this.splitPenalty = properties.getSplitPenalty();
+        this.latency = Timer.builder("inventory.allocation.latency")
+                .description("Time to choose warehouses for one order")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.single = meterRegistry.counter("inventory.allocation.orders", "result", "single");
+        this.split = meterRegistry.counter("inventory.allocation.orders", "result", "split");
+        this.unfilled = meterRegistry.counter("inventory.allocation.orders", "result", "unfilled");
+        this.shipments = DistributionSummary.builder("inventory.allocation.shipments")
+                .description("Warehouses each allocated order ships from")
+                .register(meterRegistry);
+        Gauge.builder("inventory.allocation.split.ratio", () -> {
+                    double total = single.count() + split.count();
+                    return total == 0 ? 0.0 : split.count() / total;
+                })
+                .description("Share of allocated orders shipped from more than one warehouse")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return !routingTable.isEmpty();
+    }
+
+    /**
+     * Allocate an order's lines against {@code products}, a snapshot of their
+     * stock keyed by id. A filled allocation is taken out of the snapshot, so
+     * later orders allocated from it see only what is left.
+     */
+    public Allocation allocate(String postalCode, List<Allocation.Line> lines, Map<String, Product> products) {
+        Timer.Sample sample = Timer.start();
+        try {
+            Allocation allocation = choose(routingTable.route(postalCode), lines, products);
+            if (!allocation.isFilled()) {
+                unfilled.increment();
+            } else if (allocation.getShipments() > 1) {
+                split.increment();
+            } else {
+                single.increment();
+            }
+            if (allocation.isFilled()) {
+                shipments.record(allocation.getShipments());
+            }
+            return allocation;
+        } finally {
+            sample.stop(latency);
+        }
+    }
+
+    private Allocation choose(RoutingTable.Route route, List<Allocation.Line> lines, Map<String, Product> products) {
+        List<Allocation.Line> tracked = new ArrayList<>();
+        Map<String, Integer> untracked = new LinkedHashMap<>();
+        for (Allocation.Line line : lines) {
+            Product product = products.get(line.productId());
+            if (product == null) {
+                return Allocation.unfilled(line.productName());
+            }
+            if (product.getLocations() == null || product.getLocations().isEmpty()) {
+                int total = untracked.merge(line.productId(), line.quantity(), Integer::sum);
+                if (product.getAvailableQuantity() < total) {
+                    return Allocation.unfilled(line.productName());
+                }
+            } else {
+                tracked.add(line);
+            }
+        }
+
+        Plan plan = cheaper(route, nearestFirst(route, tracked, products), fewestShipments(route, tracked, products));
+        if (plan == null) {
+            return Allocation.unfilled(tracked.get(0).productName());
+        }
+
+        Map<String, Map<String, Integer>> picks = new LinkedHashMap<>(plan.picks);
+        for (Allocation.Line line : lines) {
+            Product product = products.get(line.productId());
+            int quantity = line.quantity();
+            product.setReservedQuantity(product.getReservedQuantity() + quantity);
+            Map<String, Integer> taken = picks.computeIfAbsent(line.reservationId(), id -> Map.of());
+            taken.forEach((warehouseId, units) -> {
+                LocationStock location = product.getLocation(warehouseId);
+                location.setReservedQuantity(location.getReservedQuantity() + units);
+            });
+        }
+        return Allocation.filled(picks, Math.max(1, plan.warehouses.size()));
+    }
+
+    private Plan nearestFirst(RoutingTable.Route route, List<Allocation.Line> lines, Map<String, Product> products) {
+        Plan plan = new Plan();
+        for (Allocation.Line line : lines) {
+            String whole = null;
+            for (int rank = 0; rank < route.size() && whole == null; rank++) {
+                if (plan.available(products, line.productId(), route.warehouse(rank)) >= line.quantity()) {
+                    whole = route.warehouse(rank);
+                }
+            }
+            if (whole != null) {
+                plan.take(line, whole, line.quantity());
+            } else if (!plan.split(route, products, line)) {
+                return null;
+            }
+        }
+        return plan;
+    }
+
+    private Plan fewestShipments(RoutingTable.Route route, List<Allocation.Line> lines, Map<String, Product> products) {
+        Plan plan = new Plan();
+        List<Allocation.Line> remaining = new ArrayList<>(lines);
+        while (!remaining.isEmpty()) {
+            String best = null;
+            List<Allocation.Line> bestLines = List.of();
+            for (int rank = 0; rank < route.size(); rank++) {
+                List<Allocation.Line> fits = plan.fits(products, remaining, route.warehouse(rank));
+                if (fits.size() > bestLines.size()) {
+                    best = route.warehouse(rank);
+                    bestLines = fits;
+                }
+            }
+            if (best == null) {
+                for (Allocation.Line line : remaining) {
+                    if (!plan.split(route, products, line)) {
+                        return null;
+                    }
+                }
+                break;
+            }
+            for (Allocation.Line line : bestLines) {
+                plan.take(line, best, line.quantity());
+            }
+            remaining.removeAll(bestLines);
+        }
+        return plan;
+    }
+
+    private Plan cheaper(RoutingTable.Route route, Plan a, Plan b) {
+        if (a == null || b == null) {
+            return a != null ? a : b;
+        }
+        return cost(route, b) < cost(route, a) ? b : a;
+    }
+
+    private double cost(RoutingTable.Route route, Plan plan) {
+        double cost = splitPenalty * Math.max(0, plan.warehouses.size() - 1);
+        for (String warehouseId : plan.warehouses) {
+            cost += route.cost(route.indexOf(warehouseId));
+        }
+        return cost;
+    }
+
+    /**
+     * Tentative picks, with the units they use so far per product and warehouse.
+     */
+    private static final class Plan {
+
+        private final Map<String, Map<String, Integer>> picks = new LinkedHashMap<>();
+        private final Set<String> warehouses = new LinkedHashSet<>();
+        private final Map<String, Integer> used = new HashMap<>();
+
+        int available(Map<String, Product> products, String productId, String warehouseId) {
+            LocationStock location = products.get(productId).getLocation(warehouseId);
+            if (location == null) {
+                return 0;
+            }
+            return location.getAvailableQuantity() - used.getOrDefault(productId + "|" + warehouseId, 0);
+        }
+
+        void take(Allocation.Line line, String warehouseId, int quantity) {
+            picks.computeIfAbsent(line.reservationId(), id -> new LinkedHashMap<>())
+                    .merge(warehouseId, quantity, Integer::sum);
+            warehouses.add(warehouseId);
+            used.merge(line.productId() + "|" + warehouseId, quantity, Integer::sum);
+        }
+
+        /**
+         * The lines, in order, that {@code warehouseId} can fill whole together.
+         */
+        List<Allocation.Line> fits(Map<String, Product> products, List<Allocation.Line> lines, String warehouseId) {
+            Map<String, Integer> pending = new HashMap<>();
+            List<Allocation.Line> fits = new ArrayList<>();
+            for (Allocation.Line line : lines) {
+                int already = pending.getOrDefault(line.productId(), 0);
+                if (available(products, line.productId(), warehouseId) - already >= line.quantity()) {
+                    pending.put(line.productId(), already + line.quantity());
+                    fits.add(line);
+                }
+            }
+            return fits;
+        }
+
+        /**
+         * Fill a line from as many warehouses as it takes, in route order.
+         */
+        boolean split(RoutingTable.Route route, Map<String, Product> products, Allocation.Line line) {
+            int needed = line.quantity();
+            Map<String, Integer> parts = new LinkedHashMap<>();
+            for (int rank = 0; rank < route.size() && needed > 0; rank++) {
+                int units = Math.min(needed, available(products, line.productId(), route.warehouse(rank)));
+                if (units > 0) {
+                    parts.put(route.warehouse(rank), units);
+                    needed -= units;
+                }
+            }
+            if (needed > 0) {
+                return false;
+            }
+            parts.forEach((warehouseId, units) -> take(line, warehouseId, units));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.orderly.inventory.warehouse;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fulfillment centers and how orders are routed to them. With no sites
+ * configured, stock is only tracked as product totals.
+ */
+@Component
+@ConfigurationProperties(prefix = "inventory.warehouses")
+public class WarehouseProperties {
+
+    private List<Site> sites = new ArrayList<>();
+
+    // Cost of each shipment beyond the first, in the same units as a site's cost
+    private double splitPenalty = 4.0;
+
+    // Postal-code prefix -> warehouse ids in preference order; overrides the computed ranking
+    private Map<String, List<String>> routes = new HashMap<>();
+
+    public List<Site> getSites() {
+        return sites;
+    }
+
+    public void setSites(List<Site> sites) {
+        this.sites = sites;
+    }
+
+    public double getSplitPenalty() {
+        return splitPenalty;
+    }
+
+    public void setSplitPenalty(double splitPenalty) {
+        this.splitPenalty = splitPenalty;
+    }
+
+    public Map<String, List<String>> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, List<String>> routes) {
+        this.routes = routes;
+    }
+
+    public static class Site {
+
+        private String id;
+
+        // Three-digit postal prefix of the site's own area
+        private String postalPrefix;
+
+        // Fixed cost of shipping anything from this site
+        private double handlingCost = 1.0;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getPostalPrefix() {
+            return postalPrefix;
+        }
+
+        public void setPostalPrefix(String postalPrefix) {
+            this.postalPrefix = postalPrefix;
+        }
+
+        public double getHandlingCost() {
+            return handlingCost;
+        }
+
+        public void setHandlingCost(double handlingCost) {
+            this.handlingCost = handlingCost;
+        }
+    }
+}
@@ -4,13 +4,24 @@ import com.orderly.common.constants.KafkaTopics;
 import com.orderly.common.events.OrderConfirmedEvent;
 import com.orderly.common.events.OrderFailedEvent;
 import com.orderly.notification.entity.Notification;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Listens to order events and sends appropriate notifications.
+ *
+ * A failed send is retried on delayed retry topics and finally parked on
+ * the event's {@code -notification-service-dlt} topic.
  */
 @Service
 public class OrderEventListener {
@@ -23,6 +34,13 @@ public class OrderEventListener {
         this.notificationService = notificationService;
     }
 
+    @RetryableTopic(attempts = "${notification.events.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${notification.events.retry.delay:1000}",
+                    multiplierExpression = "${notification.events.retry.multiplier:5}",
+                    maxDelayExpression = "${notification.events.retry.max-delay:300000}"),
+            retryTopicSuffix = "-notification-service-retry",
+            dltTopicSuffix = "-notification-service-dlt",
+            listenerContainerFactory = "confirmedListenerFactory")
     @KafkaListener(topics = KafkaTopics.ORDER_CONFIRMED, containerFactory = "confirmedListenerFactory")
     public void handleOrderConfirmed(OrderConfirmedEvent event) {
         log.info("Received OrderConfirmedEvent for order: {}", event.getOrderId());
@@ -44,6 +62,13 @@ public class OrderEventListener {
         );
     }
 
+    @RetryableTopic(attempts = "${notification.events.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${notification.events.retry.delay:1000}",
+                    multiplierExpression = "${notification.events.retry.multiplier:5}",
+                    maxDelayExpression = "${notification.events.retry.max-delay:300000}"),
+            retryTopicSuffix = "-notification-service-retry",
+            dltTopicSuffix = "-notification-service-dlt",
+            listenerContainerFactory = "failedListenerFactory")
     @KafkaListener(topics = KafkaTopics.ORDER_FAILED, containerFactory = "failedListenerFactory")
     public void handleOrderFailed(OrderFailedEvent event) {
         log.info("Received OrderFailedEvent for order: {}", event.getOrderId());
@@ -65,4 +90,12 @@ public class OrderEventListener {
                 message
         );
     }
+
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, ?> record) {
+        Header cause = record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE);
+        log.error("Event for order {} exhausted its retries and is on {} at offset {}: {}",
+                record.key(), record.topic(), record.offset(),
+                cause != null ? new String(cause.value(), StandardCharsets.UTF_8) : null);
+    }
 }
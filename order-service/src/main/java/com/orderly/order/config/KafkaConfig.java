@@ -1,7 +1,10 @@
 package com.orderly.order.config;
 
 import com.orderly.common.events.OrderConfirmedEvent;
+import com.orderly.common.events.OrderCancelledEvent;
+import com.orderly.common.events.OrderDeliveredEvent;
 import com.orderly.common.events.OrderFailedEvent;
+import com.orderly.common.events.OrderShippedEvent;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -12,6 +15,7 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
@@ -64,11 +68,13 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"); // Skip aborted inventory transactions
 
         JsonDeserializer<OrderConfirmedEvent> deserializer = new JsonDeserializer<>(OrderConfirmedEvent.class, false);
         deserializer.addTrustedPackages("com.orderly.common.events");
 
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
     }
 
     @Bean
@@ -86,11 +92,13 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"); // Skip aborted inventory transactions
 
         JsonDeserializer<OrderFailedEvent> deserializer = new JsonDeserializer<>(OrderFailedEvent.class, false);
         deserializer.addTrustedPackages("com.orderly.common.events");
 
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
     }
 
     @Bean
@@ -100,4 +108,75 @@ public class KafkaConfig {
         factory.setConsumerFactory(failedConsumerFactory());
         return factory;
     }
+
+    // Consumer factory for OrderShippedEvent
+    @Bean
+    public ConsumerFactory<String, OrderShippedEvent> shippedConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        JsonDeserializer<OrderShippedEvent> deserializer = new JsonDeserializer<>(OrderShippedEvent.class, false);
+        deserializer.addTrustedPackages("com.orderly.common.events");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderShippedEvent> shippedListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderShippedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(shippedConsumerFactory());
+        return factory;
+    }
+
+    // Consumer factory for OrderDeliveredEvent
+    @Bean
+    public ConsumerFactory<String, OrderDeliveredEvent> deliveredConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        JsonDeserializer<OrderDeliveredEvent> deserializer =
+                new JsonDeserializer<>(OrderDeliveredEvent.class, false);
+        deserializer.addTrustedPackages("com.orderly.common.events");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderDeliveredEvent> deliveredListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderDeliveredEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(deliveredConsumerFactory());
+        return factory;
+    }
+
+    // Consumer factory for OrderCancelledEvent
+    @Bean
+    public ConsumerFactory<String, OrderCancelledEvent> cancelledConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        JsonDeserializer<OrderCancelledEvent> deserializer =
+                new JsonDeserializer<>(OrderCancelledEvent.class, false);
+        deserializer.addTrustedPackages("com.orderly.common.events");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderCancelledEvent> cancelledListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderCancelledEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(cancelledConsumerFactory());
+        return factory;
+    }
 }
@@ -0,0 +1,33 @@
+package com.orderly.order.controller;
+
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.order.waitingroom.WaitingRoomService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin endpoints for putting products behind a waiting room and taking them out.
+ * These endpoints require ADMIN role (enforced by API Gateway/Auth).
+ */
+@RestController
+@RequestMapping("/api/admin/waiting-room")
+public class AdminWaitingRoomController {
+
+    private final WaitingRoomService waitingRoomService;
+
+    public AdminWaitingRoomController(WaitingRoomService waitingRoomService) {
+        this.waitingRoomService = waitingRoomService;
+    }
+
+    @PutMapping("/{productId}")
+    public ResponseEntity<ApiResponse<Void>> designate(@PathVariable String productId) {
+        waitingRoomService.designate(productId);
+        return ResponseEntity.ok(ApiResponse.success("Waiting room enabled", null));
+    }
+
+    @DeleteMapping("/{productId}")
+    public ResponseEntity<ApiResponse<Void>> release(@PathVariable String productId) {
+        waitingRoomService.release(productId);
+        return ResponseEntity.ok(ApiResponse.success("Waiting room removed", null));
+    }
+}
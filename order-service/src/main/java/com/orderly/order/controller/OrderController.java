@@ -3,6 +3,7 @@ package com.orderly.order.controller;
 import com.orderly.common.dto.ApiResponse;
 import com.orderly.order.entity.Order;
 import com.orderly.order.service.OrderService;
+import com.orderly.order.waitingroom.AdmissionRequiredException;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,16 +23,21 @@ public class OrderController {
 
     /**
      * Create a new order from the user's cart.
+     * Carts with waiting-room products need their admission tokens, comma-separated.
      */
     @PostMapping
     public ResponseEntity<ApiResponse<Order>> createOrder(
             @RequestHeader("X-User-Id") String userId,
+            @RequestHeader(value = "X-Admission-Token", required = false) String admissionToken,
             @Valid @RequestBody CreateOrderRequest request) {
 
         try {
-            Order order = orderService.createOrder(userId, request.getShippingAddress());
+            Order order = orderService.createOrder(userId, request.getShippingAddress(), admissionToken);
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(ApiResponse.success("Order created successfully", order));
+        } catch (AdmissionRequiredException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error(e.getMessage(), "ADMISSION_REQUIRED"));
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
@@ -0,0 +1,57 @@
+package com.orderly.order.controller;
+
+import com.orderly.common.dto.ApiResponse;
+import com.orderly.order.waitingroom.WaitingRoomService;
+import com.orderly.order.waitingroom.WaitingRoomStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+/**
+ * Waiting rooms for flash-sale products. Clients join, then poll their status
+ * until it carries an admission token, and send that token with the order in
+ * the {@code X-Admission-Token} header. Products are put behind a waiting
+ * room through {@link AdminWaitingRoomController}.
+ */
+@RestController
+@RequestMapping("/api/waiting-room")
+public class WaitingRoomController {
+
+    private final WaitingRoomService waitingRoomService;
+
+    public WaitingRoomController(WaitingRoomService waitingRoomService) {
+        this.waitingRoomService = waitingRoomService;
+    }
+
+    @PostMapping("/{productId}/join")
+    public ResponseEntity<ApiResponse<WaitingRoomStatus>> join(
+            @RequestHeader("X-User-Id") String userId,
+            @PathVariable String productId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(waitingRoomService.join(productId, userId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{productId}")
+    public ResponseEntity<ApiResponse<WaitingRoomStatus>> getStatus(
+            @RequestHeader("X-User-Id") String userId,
+            @PathVariable String productId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(waitingRoomService.status(productId, userId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Products currently behind a waiting room.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Set<String>>> getProducts() {
+        return ResponseEntity.ok(ApiResponse.success(waitingRoomService.getDesignated()));
+    }
+}
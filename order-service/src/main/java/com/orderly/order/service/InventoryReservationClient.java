@@ -0,0 +1,80 @@
+package com.orderly.order.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orderly.common.events.OrderPlacedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Synchronous checkout path: asks the inventory service to reserve an order
+ * directly, with a strict timeout. An empty result (disabled, timed out or
+ * failed) means the caller should fall back to the ORDER_PLACED saga; the
+ * inventory side reserves each order line at most once, so a reservation
+ * that completed after the timeout is not repeated by the saga.
+ */
+@Component
+public class InventoryReservationClient {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationClient.class);
+
+    private final RestClient restClient;
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+
+    public InventoryReservationClient(RestClient.Builder builder,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${checkout.fast-path.enabled:false}") boolean enabled,
+                                      @Value("${checkout.fast-path.inventory-url:http://localhost:8082}") String inventoryUrl,
+                                      @Value("${checkout.fast-path.timeout:300ms}") Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+        this.restClient = builder.baseUrl(inventoryUrl).requestFactory(requestFactory).build();
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Optional<Outcome> tryReserve(OrderPlacedEvent event) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<Outcome> outcome = Optional.empty();
+        try {
+            JsonNode response = restClient.post()
+                    .uri("/api/reservations")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(event)
+                    .retrieve()
+                    .body(JsonNode.class);
+            JsonNode data = response != null ? response.path("data") : null;
+            if (data != null && data.has("reserved")) {
+                outcome = Optional.of(new Outcome(data.path("reserved").asBoolean(),
+                        data.path("failureReason").isTextual() ? data.path("failureReason").asText() : null));
+            }
+        } catch (RestClientException e) {
+            log.warn("Direct reservation of order {} failed, falling back to the saga: {}",
+                    event.getOrderId(), e.getMessage());
+        }
+        String result = outcome.map(o -> o.reserved() ? "confirmed" : "rejected").orElse("fallback");
+        sample.stop(meterRegistry.timer("orders.reservation.fast_path", "outcome", result));
+        return outcome;
+    }
+
+    /**
+     * The inventory service's answer for an order.
+     */
+    public record Outcome(boolean reserved, String failureReason) {
+    }
+}
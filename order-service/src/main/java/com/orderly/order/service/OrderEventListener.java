@@ -2,15 +2,29 @@ package com.orderly.order.service;
 
 import com.orderly.common.constants.KafkaTopics;
 import com.orderly.common.constants.OrderStatus;
+import com.orderly.common.events.OrderCancelledEvent;
 import com.orderly.common.events.OrderConfirmedEvent;
+import com.orderly.common.events.OrderDeliveredEvent;
 import com.orderly.common.events.OrderFailedEvent;
+import com.orderly.common.events.OrderShippedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Listens for order status update events from Kafka.
+ *
+ * A failed update is retried on delayed retry topics and finally parked on
+ * the event's {@code -order-service-dlt} topic instead of being dropped.
  */
 @Service
 public class OrderEventListener {
@@ -23,27 +37,84 @@ public class OrderEventListener {
         this.orderService = orderService;
     }
 
+    @RetryableTopic(attempts = "${order.events.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${order.events.retry.delay:1000}",
+                    multiplierExpression = "${order.events.retry.multiplier:5}",
+                    maxDelayExpression = "${order.events.retry.max-delay:300000}"),
+            retryTopicSuffix = "-order-service-retry",
+            dltTopicSuffix = "-order-service-dlt",
+            listenerContainerFactory = "confirmedListenerFactory")
     @KafkaListener(topics = KafkaTopics.ORDER_CONFIRMED, containerFactory = "confirmedListenerFactory")
     public void handleOrderConfirmed(OrderConfirmedEvent event) {
         log.info("Received OrderConfirmedEvent for order: {}", event.getOrderId());
 
-        try {
-            orderService.updateStatus(event.getOrderId(), OrderStatus.CONFIRMED, null);
-            log.info("Order {} status updated to CONFIRMED", event.getOrderId());
-        } catch (Exception e) {
-            log.error("Failed to update order {} status: {}", event.getOrderId(), e.getMessage());
-        }
+        orderService.advanceStatus(event.getOrderId(), OrderStatus.CONFIRMED);
+        log.info("Order {} status updated to CONFIRMED", event.getOrderId());
     }
 
+    @RetryableTopic(attempts = "${order.events.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${order.events.retry.delay:1000}",
+                    multiplierExpression = "${order.events.retry.multiplier:5}",
+                    maxDelayExpression = "${order.events.retry.max-delay:300000}"),
+            retryTopicSuffix = "-order-service-retry",
+            dltTopicSuffix = "-order-service-dlt",
+            listenerContainerFactory = "failedListenerFactory")
     @KafkaListener(topics = KafkaTopics.ORDER_FAILED, containerFactory = "failedListenerFactory")
     public void handleOrderFailed(OrderFailedEvent event) {
         log.info("Received OrderFailedEvent for order: {}", event.getOrderId());
 
-        try {
-            orderService.updateStatus(event.getOrderId(), OrderStatus.FAILED, event.getReason());
-            log.info("Order {} status updated to FAILED: {}", event.getOrderId(), event.getReason());
-        } catch (Exception e) {
-            log.error("Failed to update order {} status: {}", event.getOrderId(), e.getMessage());
-        }
+        orderService.failOrder(event.getOrderId(), event.getReason());
+    }
+
+    @RetryableTopic(attempts = "${order.events.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${order.events.retry.delay:1000}",
+                    multiplierExpression = "${order.events.retry.multiplier:5}",
+                    maxDelayExpression = "${order.events.retry.max-delay:300000}"),
+            retryTopicSuffix = "-order-service-retry",
+            dltTopicSuffix = "-order-service-dlt",
+            listenerContainerFactory = "shippedListenerFactory")
+    @KafkaListener(topics = KafkaTopics.ORDER_SHIPPED, containerFactory = "shippedListenerFactory")
+    public void handleOrderShipped(OrderShippedEvent event) {
+        log.info("Received OrderShippedEvent for order: {}", event.getOrderId());
+
+        orderService.advanceStatus(event.getOrderId(), OrderStatus.SHIPPED);
+        log.info("Order {} shipped with tracking number {}", event.getOrderId(), event.getTrackingNumber());
+    }
+
+    @RetryableTopic(attempts = "${order.events.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${order.events.retry.delay:1000}",
+                    multiplierExpression = "${order.events.retry.multiplier:5}",
+                    maxDelayExpression = "${order.events.retry.max-delay:300000}"),
+            retryTopicSuffix = "-order-service-retry",
+            dltTopicSuffix = "-order-service-dlt",
+            listenerContainerFactory = "deliveredListenerFactory")
+    @KafkaListener(topics = KafkaTopics.ORDER_DELIVERED, containerFactory = "deliveredListenerFactory")
+    public void handleOrderDelivered(OrderDeliveredEvent event) {
+        log.info("Received OrderDeliveredEvent for order: {}", event.getOrderId());
+
+        orderService.advanceStatus(event.getOrderId(), OrderStatus.DELIVERED);
+        log.info("Order {} status updated to DELIVERED", event.getOrderId());
+    }
+
+    @RetryableTopic(attempts = "${order.events.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${order.events.retry.delay:1000}",
+                    multiplierExpression = "${order.events.retry.multiplier:5}",
+                    maxDelayExpression = "${order.events.retry.max-delay:300000}"),
+            retryTopicSuffix = "-order-service-retry",
+            dltTopicSuffix = "-order-service-dlt",
+            listenerContainerFactory = "cancelledListenerFactory")
+    @KafkaListener(topics = KafkaTopics.ORDER_CANCELLED, containerFactory = "cancelledListenerFactory")
+    public void handleOrderCancelled(OrderCancelledEvent event) {
+        log.info("Received OrderCancelledEvent for order: {}", event.getOrderId());
+
+        orderService.cancelOrder(event.getOrderId(), event.getReason());
+    }
+
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, ?> record) {
+        Header cause = record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE);
+        log.error("Event for order {} exhausted its retries and is on {} at offset {}: {}",
+                record.key(), record.topic(), record.offset(),
+                cause != null ? new String(cause.value(), StandardCharsets.UTF_8) : null);
     }
 }
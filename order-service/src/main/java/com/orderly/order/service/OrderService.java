@@ -5,6 +5,7 @@ import com.orderly.common.dto.CartItemDto;
 import com.orderly.common.events.OrderPlacedEvent;
 import com.orderly.order.entity.Order;
 import com.orderly.order.repository.OrderRepository;
+import com.orderly.order.waitingroom.WaitingRoomService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -14,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -29,23 +31,31 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final CartService cartService;
     private final OrderEventPublisher eventPublisher;
+    private final WaitingRoomService waitingRoomService;
+    private final InventoryReservationClient reservationClient;
 
-    public OrderService(OrderRepository orderRepository, CartService cartService, OrderEventPublisher eventPublisher) {
+    public OrderService(OrderRepository orderRepository, CartService cartService, OrderEventPublisher eventPublisher,
+                        WaitingRoomService waitingRoomService, InventoryReservationClient reservationClient) {
         this.orderRepository = orderRepository;
         this.cartService = cartService;
         this.eventPublisher = eventPublisher;
+        this.waitingRoomService = waitingRoomService;
+        this.reservationClient = reservationClient;
     }
 
     /**
      * Create order from cart.
      * 1. Fetch cart items
-     * 2. Calculate totals
-     * 3. Save order with PENDING status
-     * 4. Publish OrderPlacedEvent
-     * 5. Clear cart
+     * 2. Use up waiting-room admissions for gated products (given back if
+     *    the order fails before it reaches inventory)
+     * 3. Calculate totals
+     * 4. Save order with PENDING status
+     * 5. Reserve stock directly if the fast path is on and answers in time
+     *    (order becomes CONFIRMED or FAILED); otherwise publish OrderPlacedEvent
+     * 6. Clear cart
      */
     @Transactional
-    public Order createOrder(String userId, Order.ShippingAddress shippingAddress) {
+    public Order createOrder(String userId, Order.ShippingAddress shippingAddress, String admissionTokens) {
         log.info("Creating order for user: {}", userId);
 
         // Get cart items
@@ -53,7 +63,27 @@ public class OrderService {
         if (cartItems.isEmpty()) {
             throw new IllegalStateException("Cannot create order: cart is empty");
         }
+        Set<String> admitted = waitingRoomService.consumeAdmissions(userId, cartItems, admissionTokens);
+        Order savedOrder;
+        try {
+            savedOrder = placeOrder(userId, shippingAddress, cartItems);
+        } catch (RuntimeException e) {
+            // The order never went through, so its admissions are not used up
+            waitingRoomService.releaseAdmissions(userId, admitted);
+            throw e;
+        }
+
+        // Clear cart
+        cartService.clearCart(userId);
 
+        return savedOrder;
+    }
+
+    /**
+     * Save the order and hand it to inventory: reserved directly if the fast
+     * path answers in time, otherwise through OrderPlacedEvent.
+     */
+    private Order placeOrder(String userId, Order.ShippingAddress shippingAddress, List<CartItemDto> cartItems) {
         // Convert cart items to order items
         List<Order.OrderItem> orderItems = cartItems.stream()
                 .map(this::toOrderItem)
@@ -83,12 +113,19 @@ public class OrderService {
         Order savedOrder = orderRepository.save(order);
         log.info("Order created with ID: {}", savedOrder.getId());
 
-        // Publish event
         OrderPlacedEvent event = buildOrderPlacedEvent(savedOrder);
-        eventPublisher.publishOrderPlaced(event);
-
-        // Clear cart
-        cartService.clearCart(userId);
+        Optional<InventoryReservationClient.Outcome> reserved = reservationClient.tryReserve(event);
+        if (reserved.isPresent()) {
+            // Inventory has already published the outcome event for the rest of the system
+            InventoryReservationClient.Outcome outcome = reserved.get();
+            savedOrder.setStatus(outcome.reserved() ? OrderStatus.CONFIRMED : OrderStatus.FAILED);
+            savedOrder.setFailureReason(outcome.failureReason());
+            savedOrder = orderRepository.save(savedOrder);
+            log.info("Order {} {} by direct reservation", savedOrder.getId(),
+                    outcome.reserved() ? "confirmed" : "failed");
+        } else {
+            eventPublisher.publishOrderPlaced(event);
+        }
 
         return savedOrder;
     }
@@ -122,6 +159,63 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    /**
+     * Move an order forward through PENDING, CONFIRMED, SHIPPED and DELIVERED.
+     * Lifecycle events arrive on separate topics, so a late one (e.g. CONFIRMED
+     * after SHIPPED) is ignored rather than moving the order back; cancelled
+     * and failed orders stay as they are.
+     */
+    public Order advanceStatus(String orderId, OrderStatus newStatus) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+
+        OrderStatus current = order.getStatus();
+        if (current == OrderStatus.CANCELLED || current == OrderStatus.FAILED
+                || (current != null && current.ordinal() >= newStatus.ordinal())) {
+            log.info("Order {} is {}, not moving it to {}", orderId, current, newStatus);
+            return order;
+        }
+        order.setStatus(newStatus);
+        return orderRepository.save(order);
+    }
+
+    /**
+     * Mark a pending order as failed. Orders already confirmed (or further
+     * along) keep their status: inventory decides each order once, so a
+     * failure arriving after a confirmation is stale.
+     */
+    public Order failOrder(String orderId, String reason) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+
+        if (order.getStatus() != null && order.getStatus() != OrderStatus.PENDING) {
+            log.info("Order {} is {}, not marking it FAILED", orderId, order.getStatus());
+            return order;
+        }
+        order.setStatus(OrderStatus.FAILED);
+        order.setFailureReason(reason);
+        return orderRepository.save(order);
+    }
+
+    /**
+     * Cancel an order that can no longer ship. Orders already shipped,
+     * delivered, failed or cancelled keep their status.
+     */
+    public Order cancelOrder(String orderId, String reason) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+
+        OrderStatus current = order.getStatus();
+        if (current == OrderStatus.SHIPPED || current == OrderStatus.DELIVERED
+                || current == OrderStatus.FAILED || current == OrderStatus.CANCELLED) {
+            log.info("Order {} is {}, not cancelling it", orderId, current);
+            return order;
+        }
+        order.setStatus(OrderStatus.CANCELLED);
+        order.setFailureReason(reason);
+        return orderRepository.save(order);
+    }
+
     private Order.OrderItem toOrderItem(CartItemDto cartItem) {
         return Order.OrderItem.builder()
                 .productId(cartItem.getProductId())
@@ -155,6 +249,8 @@ public class OrderService {
                 .userId(order.getUserId())
                 .items(items)
                 .totalAmount(order.getTotalAmount())
+                .shippingPostalCode(order.getShippingAddress() != null
+                        ? order.getShippingAddress().getZipCode() : null)
                 .timestamp(Instant.now())
                 .build();
     }
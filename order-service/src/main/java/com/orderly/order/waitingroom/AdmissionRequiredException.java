@@ -0,0 +1,18 @@
+package com.orderly.order.waitingroom;
+
+/**
+ * An order includes a waiting-room product without a valid, unused admission.
+ */
+public class AdmissionRequiredException extends RuntimeException {
+
+    private final String productId;
+
+    public AdmissionRequiredException(String productId, String message) {
+        super(message);
+        this.productId = productId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,68 @@
+package com.orderly.order.waitingroom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC-signed admission tokens binding a user to one product until an expiry.
+ * Verified locally, so orders without a valid token are turned away without
+ * touching Redis. Every instance must share the secret.
+ */
+@Component
+public class AdmissionTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public AdmissionTokens(@Value("${waiting-room.secret}") String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String issue(String productId, String userId, long expiresAtMillis) {
+        String payload = expiresAtMillis + "|" + productId + "|" + userId;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + encoder.encodeToString(sign(payload));
+    }
+
+    /**
+     * Whether {@code token} was issued for this product and user and has not expired.
+     */
+    public boolean verify(String token, String productId, String userId, long nowMillis) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            String payload = new String(decoder.decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+            if (!MessageDigest.isEqual(sign(payload), decoder.decode(token.substring(dot + 1)))) {
+                return false;
+            }
+            String[] parts = payload.split("\\|", 3);
+            return parts.length == 3
+                    && Long.parseLong(parts[0]) > nowMillis
+                    && parts[1].equals(productId)
+                    && parts[2].equals(userId);
+        } catch (IllegalArgumentException e) {
+            return false; // Bad base64 or expiry
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign admission token", e);
+        }
+    }
+}
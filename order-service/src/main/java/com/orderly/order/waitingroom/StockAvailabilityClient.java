@@ -0,0 +1,49 @@
+package com.orderly.order.waitingroom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads available quantities from the inventory service's bulk availability endpoint.
+ */
+@Component
+public class StockAvailabilityClient {
+
+    private final RestClient restClient;
+
+    public StockAvailabilityClient(RestClient.Builder builder,
+                                   @Value("${waiting-room.inventory-url:http://localhost:8082}") String inventoryUrl) {
+        this.restClient = builder.baseUrl(inventoryUrl).build();
+    }
+
+    /**
+     * Available quantity per product; inactive and unknown products are absent.
+     */
+    public Map<String, Integer> available(Collection<String> productIds) {
+        JsonNode response = restClient.post()
+                .uri("/api/products/availability")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(productIds)
+                .retrieve()
+                .body(JsonNode.class);
+        Map<String, Integer> available = new HashMap<>();
+        JsonNode data = response != null ? response.path("data") : null;
+        if (data == null || data.isMissingNode()) {
+            return available;
+        }
+        JsonNode ids = data.path("ids");
+        for (int i = 0; i < ids.size(); i++) {
+            if (data.path("active").path(i).asBoolean()) {
+                available.put(ids.path(i).asText(), data.path("available").path(i).asInt());
+            }
+        }
+        return available;
+    }
+}
@@ -0,0 +1,262 @@
+package com.orderly.order.waitingroom;
+
+import com.orderly.common.dto.CartItemDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admission control for flash-sale products.
+ *
+ * Users join a per-product queue (a Redis sorted set by join time) and are
+ * admitted in order, no faster than the stock allows: each tick tops the
+ * admitted set up to the available quantity divided by the units allowed per
+ * admission. Admitted users get a signed token valid for a short window;
+ * an admission keeps its slot until it expires, even once used, so orders
+ * still on their way to inventory are not admitted against twice.
+ *
+ * Orders for designated products must carry a valid token, which can be
+ * used once. Everything else is unaffected.
+ */
+@Service
+public class WaitingRoomService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitingRoomService.class);
+
+    private static final String PRODUCTS_KEY = "waitingroom:products";
+    private static final String QUEUE_KEY_PREFIX = "waitingroom:queue:";
+    private static final String ADMITTED_KEY_PREFIX = "waitingroom:admitted:";
+    private static final String USED_KEY_PREFIX = "waitingroom:used:";
+
+    /**
+     * Drop expired admissions, then move users from the head of the queue
+     * into the admitted set until it holds ARGV[3] (at most ARGV[4] per call).
+     */
+    private static final RedisScript<Long> ADMIT = new DefaultRedisScript<>("""
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[1])
+            local slots = math.min(tonumber(ARGV[3]) - redis.call('ZCARD', KEYS[2]), tonumber(ARGV[4]))
+            if slots <= 0 then return 0 end
+            local popped = redis.call('ZPOPMIN', KEYS[1], slots)
+            for i = 1, #popped, 2 do
+                redis.call('ZADD', KEYS[2], ARGV[2], popped[i])
+            end
+            return #popped / 2
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AdmissionTokens tokens;
+    private final StockAvailabilityClient availabilityClient;
+    private final Duration admissionTtl;
+    private final int unitsPerAdmission;
+    private final int maxAdmissionsPerTick;
+
+    private final Counter admitted;
+    private final Counter rejected;
+
+    private volatile Set<String> designated = Set.of();
+
+    public WaitingRoomService(RedisTemplate<String, String> redisTemplate,
+                              AdmissionTokens tokens,
+                              StockAvailabilityClient availabilityClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${waiting-room.admission-ttl:2m}") Duration admissionTtl,
+                              @Value("${waiting-room.units-per-admission:1}") int unitsPerAdmission,
+                              @Value("${waiting-room.max-admissions-per-tick:200}") int maxAdmissionsPerTick) {
+        this.redisTemplate = redisTemplate;
+        this.tokens = tokens;
+        this.availabilityClient = availabilityClient;
+        this.admissionTtl = admissionTtl;
+        this.unitsPerAdmission = unitsPerAdmission;
+        this.maxAdmissionsPerTick = maxAdmissionsPerTick;
+        this.admitted = meterRegistry.counter("orders.waiting_room.admitted");
+        this.rejected = meterRegistry.counter("orders.waiting_room.rejected");
+    }
+
+    public void designate(String productId) {
+        redisTemplate.opsForSet().add(PRODUCTS_KEY, productId);
+        refreshDesignated();
+    }
+
+    /**
+     * Stop gating a product; its queue and admissions are dropped.
+     */
+    public void release(String productId) {
+        redisTemplate.opsForSet().remove(PRODUCTS_KEY, productId);
+        redisTemplate.delete(List.of(QUEUE_KEY_PREFIX + productId, ADMITTED_KEY_PREFIX + productId));
+        refreshDesignated();
+    }
+
+    public Set<String> getDesignated() {
+        return designated;
+    }
+
+    /**
+     * Queue the user for a product. Joining again keeps the original place.
+     *
+     * @throws IllegalArgumentException if the product has no waiting room
+     */
+    public WaitingRoomStatus join(String productId, String userId) {
+        requireDesignated(productId);
+        if (admittedUntil(productId, userId) == null) {
+            redisTemplate.opsForZSet().addIfAbsent(QUEUE_KEY_PREFIX + productId, userId, System.currentTimeMillis());
+        }
+        return status(productId, userId);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the product has no waiting room
+     */
+    public WaitingRoomStatus status(String productId, String userId) {
+        requireDesignated(productId);
+        String queueKey = QUEUE_KEY_PREFIX + productId;
+        Long queueLength = redisTemplate.opsForZSet().zCard(queueKey);
+        long length = queueLength != null ? queueLength : 0;
+
+        Long expiresAt = admittedUntil(productId, userId);
+        if (expiresAt != null) {
+            return WaitingRoomStatus.admitted(productId, length,
+                    tokens.issue(productId, userId, expiresAt), Instant.ofEpochMilli(expiresAt));
+        }
+        Long rank = redisTemplate.opsForZSet().rank(queueKey, userId);
+        return WaitingRoomStatus.waiting(productId, rank != null ? rank + 1 : null, length);
+    }
+
+    /**
+     * Check and use up the user's admissions for every designated product in
+     * the cart. Tokens are verified locally first, so requests without one
+     * are rejected without a Redis round trip.
+     *
+     * @param admissionTokens tokens sent with the order, any order; may be null
+     * @return products whose admissions were used, for {@link #releaseAdmissions}
+     *         if the order then fails
+     * @throws AdmissionRequiredException if any designated product lacks a valid, unused admission
+     */
+    public Set<String> consumeAdmissions(String userId, List<CartItemDto> items, String admissionTokens) {
+        Set<String> gated = designated;
+        if (gated.isEmpty()) {
+            return Set.of();
+        }
+        List<String> presented = admissionTokens == null || admissionTokens.isBlank()
+                ? List.of()
+                : Arrays.stream(admissionTokens.split(",")).map(String::trim).toList();
+        long now = System.currentTimeMillis();
+
+        Map<String, Long> toUse = new HashMap<>();
+        for (CartItemDto item : items) {
+            String productId = item.getProductId();
+            if (!gated.contains(productId)) {
+                continue;
+            }
+            if (item.getQuantity() > unitsPerAdmission) {
+                throw reject(productId, "At most " + unitsPerAdmission + " of this item per order");
+            }
+            if (presented.stream().noneMatch(token -> tokens.verify(token, productId, userId, now))) {
+                throw reject(productId, "Waiting room admission required");
+            }
+            Long expiresAt = admittedUntil(productId, userId);
+            if (expiresAt == null || expiresAt <= now) {
+                throw reject(productId, "Waiting room admission expired");
+            }
+            toUse.put(productId, expiresAt);
+        }
+
+        Set<String> used = new HashSet<>();
+        for (Map.Entry<String, Long> entry : toUse.entrySet()) {
+            String usedKey = USED_KEY_PREFIX + entry.getKey() + ":" + userId;
+            Boolean first = redisTemplate.opsForValue().setIfAbsent(usedKey, "1",
+                    Duration.ofMillis(Math.max(1, entry.getValue() - now)));
+            if (!Boolean.TRUE.equals(first)) {
+                releaseAdmissions(userId, used); // Give back the admissions taken so far in this call
+                throw reject(entry.getKey(), "Waiting room admission already used");
+            }
+            used.add(entry.getKey());
+        }
+        return used;
+    }
+
+    /**
+     * Give back admissions used by an order that was never placed, so the
+     * user can retry while the admissions are still valid.
+     */
+    public void releaseAdmissions(String userId, Collection<String> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        redisTemplate.delete(productIds.stream()
+                .map(productId -> USED_KEY_PREFIX + productId + ":" + userId)
+                .toList());
+    }
+
+    /**
+     * Admit the next users for every designated product, sized to current stock.
+     */
+    @Scheduled(fixedDelayString = "${waiting-room.admit-interval:PT1S}")
+    public void admit() {
+        Set<String> products = refreshDesignated();
+        if (products.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> available;
+        try {
+            available = availabilityClient.available(products);
+        } catch (Exception e) {
+            log.warn("Skipping waiting room admissions, stock unavailable: {}", e.getMessage());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        String expiresAt = Long.toString(now + admissionTtl.toMillis());
+        for (String productId : products) {
+            int capacity = available.getOrDefault(productId, 0) / unitsPerAdmission;
+            Long count = redisTemplate.execute(ADMIT,
+                    List.of(QUEUE_KEY_PREFIX + productId, ADMITTED_KEY_PREFIX + productId),
+                    Long.toString(now), expiresAt, Integer.toString(capacity), Integer.toString(maxAdmissionsPerTick));
+            if (count != null && count > 0) {
+                admitted.increment(count);
+                log.debug("Admitted {} users for product {} (capacity {})", count, productId, capacity);
+            }
+        }
+    }
+
+    private Set<String> refreshDesignated() {
+        Set<String> members = redisTemplate.opsForSet().members(PRODUCTS_KEY);
+        designated = members != null ? Set.copyOf(members) : Set.of();
+        return designated;
+    }
+
+    private Long admittedUntil(String productId, String userId) {
+        Double score = redisTemplate.opsForZSet().score(ADMITTED_KEY_PREFIX + productId, userId);
+        if (score == null || score.longValue() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return score.longValue();
+    }
+
+    private void requireDesignated(String productId) {
+        if (!designated.contains(productId)) {
+            throw new IllegalArgumentException("No waiting room for product: " + productId);
+        }
+    }
+
+    private AdmissionRequiredException reject(String productId, String message) {
+        rejected.increment();
+        return new AdmissionRequiredException(productId, message);
+    }
+}
@@ -0,0 +1,62 @@
+package com.orderly.order.waitingroom;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * A user's place in a product's waiting room: either a 1-based queue
+ * position, or an admission token to send with the order until it expires.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WaitingRoomStatus {
+
+    private final String productId;
+    private final Long position;
+    private final long queueLength;
+    private final String token;
+    private final Instant expiresAt;
+
+    private WaitingRoomStatus(String productId, Long position, long queueLength, String token, Instant expiresAt) {
+        this.productId = productId;
+        this.position = position;
+        this.queueLength = queueLength;
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    static WaitingRoomStatus waiting(String productId, Long position, long queueLength) {
+        return new WaitingRoomStatus(productId, position, queueLength, null, null);
+    }
+
+    static WaitingRoomStatus admitted(String productId, long queueLength, String token, Instant expiresAt) {
+        return new WaitingRoomStatus(productId, null, queueLength, token, expiresAt);
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    /**
+     * Null once admitted, or when the user has not joined.
+     */
+    public Long getPosition() {
+        return position;
+    }
+
+    public long getQueueLength() {
+        return queueLength;
+    }
+
+    public boolean isAdmitted() {
+        return token != null;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}